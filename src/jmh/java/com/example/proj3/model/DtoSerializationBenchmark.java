@@ -0,0 +1,93 @@
+package com.example.proj3.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Serialization throughput of the responses that moved from entities to DTOs: a game's
+ * reviews and a user's game list, each written as the entity graph and as the DTO. The
+ * DTO benchmarks include the mapping from the entities, as the controllers pay for it.
+ * Run with {@code ./gradlew jmh}; the gc profiler reports bytes allocated per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DtoSerializationBenchmark {
+
+    private static final int REVIEWS = 20;
+    private static final int GAMES = 50;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<Review> reviews;
+    private UserGameList list;
+
+    @Setup
+    public void build() {
+        VideoGame game = game(1);
+        reviews = new ArrayList<>(REVIEWS);
+        for (int i = 0; i < REVIEWS; i++) {
+            Review review = new Review(user(i), game, 1 + i % 5, "Review number " + i + " of this game");
+            review.setId((long) i);
+            reviews.add(review);
+        }
+
+        list = new UserGameList("Favourites", user(0));
+        list.setId(1L);
+        List<VideoGame> games = new ArrayList<>(GAMES);
+        for (int i = 0; i < GAMES; i++) {
+            games.add(game(i));
+        }
+        list.setVideoGames(games);
+    }
+
+    @Benchmark
+    public String reviewEntities() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(reviews);
+    }
+
+    @Benchmark
+    public String reviewDtos() throws JsonProcessingException {
+        List<ReviewDto> dtos = new ArrayList<>(reviews.size());
+        for (Review review : reviews) {
+            dtos.add(ReviewDto.of(review));
+        }
+        return objectMapper.writeValueAsString(dtos);
+    }
+
+    @Benchmark
+    public String gameListEntity() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(list);
+    }
+
+    @Benchmark
+    public String gameListDto() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(GameListDto.of(list));
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setEmail("user" + id + "@example.com");
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuv");
+        user.setProfilePicture("/uploads/ab/cd/abcd" + id + ".png");
+        return user;
+    }
+
+    private static VideoGame game(long id) {
+        return new VideoGame(id, "Game " + id, "Action, Adventure", "https://example.com/" + id + ".jpg",
+                Long.toString(100 + id));
+    }
+}
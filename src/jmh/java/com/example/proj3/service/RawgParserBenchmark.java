@@ -0,0 +1,92 @@
+package com.example.proj3.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.proj3.service.RawgApiService.RawgGame;
+import com.example.proj3.service.RawgApiService.RawgPage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Time and allocation per RAWG response: the Map<String, Object> tree the client used to
+ * bind responses to, against RawgResponseParser. Both read the same fields into the same
+ * records. Run with {@code ./gradlew jmh}; the gc profiler reports gc.alloc.rate.norm,
+ * the bytes allocated per parsed page or game.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RawgParserBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] page;
+    private byte[] detail;
+
+    @Setup
+    public void load() throws IOException {
+        page = resource("/rawg/games-page.json");
+        detail = resource("/rawg/game-detail.json");
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public RawgPage pageAsMap() throws IOException {
+        Map<String, Object> response = objectMapper.readValue(page, Map.class);
+        List<Map<String, Object>> results = (List<Map<String, Object>>) response.get("results");
+        List<RawgGame> games = new ArrayList<>(results.size());
+        for (Map<String, Object> result : results) {
+            games.add(fromMap(result));
+        }
+        return new RawgPage((Integer) response.get("count"), games);
+    }
+
+    @Benchmark
+    public RawgPage pageStreamed() throws IOException {
+        return RawgResponseParser.parsePage(new ByteArrayInputStream(page));
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public RawgGame gameAsMap() throws IOException {
+        return fromMap(objectMapper.readValue(detail, Map.class));
+    }
+
+    @Benchmark
+    public RawgGame gameStreamed() throws IOException {
+        return RawgResponseParser.parseGame(new ByteArrayInputStream(detail));
+    }
+
+    // What the Map path had to do to get the fields RawgResponseParser reads
+    @SuppressWarnings("unchecked")
+    private static RawgGame fromMap(Map<String, Object> game) {
+        Object image = game.get("background_image");
+        List<Map<String, Object>> genres = (List<Map<String, Object>>) game.get("genres");
+        return new RawgGame(game.get("id").toString(), (String) game.get("name"),
+                image == null ? null : image.toString(),
+                genres == null ? null : genres.stream().map(genre -> (String) genre.get("name"))
+                        .collect(Collectors.joining(", ")));
+    }
+
+    private static byte[] resource(String name) throws IOException {
+        try (InputStream in = RawgParserBenchmark.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IOException("Missing benchmark payload " + name);
+            }
+            return in.readAllBytes();
+        }
+    }
+}
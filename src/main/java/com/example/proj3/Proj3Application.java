@@ -2,9 +2,11 @@ package com.example.proj3;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 @SpringBootApplication
+@EnableScheduling
 public class Proj3Application {
 
 	public static void main(String[] args) {
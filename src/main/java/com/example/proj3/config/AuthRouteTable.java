@@ -0,0 +1,116 @@
+package com.example.proj3.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Tells JwtAuthFilter, per request, whether a bearer token needs to be looked at.
+ *
+ * Patterns are parsed once at startup and bucketed by their first path segment, so a
+ * request is only matched against the few rules of its own prefix. Within a bucket the
+ * first matching rule wins. IGNORED is only for endpoints that never read the principal;
+ * a public endpoint that does (e.g. one taking {@code @AuthenticationPrincipal}) must stay
+ * OPTIONAL. Access control itself is still decided by SecurityConfig.
+ */
+@Component
+public class AuthRouteTable {
+
+    public enum Mode {
+        /** SecurityConfig requires an authenticated user */
+        REQUIRED,
+        /** Public, but the controller uses the principal when there is one */
+        OPTIONAL,
+        /** Public and never reads the principal; token processing is skipped */
+        IGNORED
+    }
+
+    private record Rule(HttpMethod method, PathPattern pattern, Mode mode) {
+
+        boolean matches(HttpMethod requestMethod, PathContainer path) {
+            return (method == null || method.equals(requestMethod)) && pattern.matches(path);
+        }
+    }
+
+    private static final String ANY_PREFIX = "*";
+
+    private final PathPatternParser parser = new PathPatternParser();
+    private final Map<String, List<Rule>> rulesByPrefix = new HashMap<>();
+
+    public AuthRouteTable() {
+        // Auth flows: credentials or refresh tokens arrive in the request body, never as a bearer
+        ignore(null, "/auth/login", "/auth/register", "/auth/register/**", "/auth/signup", "/auth/signup/**",
+                "/auth/available", "/auth/refresh", "/auth/oauth2/**");
+        ignore(null, "/oauth2/**", "/login/oauth2/**");
+
+        // Public reads that do not depend on who is asking
+        ignore(HttpMethod.GET, "/api/games/**", "/api/reviews/game/**",
+                "/api/user/allUsernames", "/api/user/search", "/api/user/{id}/similar");
+        ignore(HttpMethod.GET, "/actuator/health", "/actuator/health/**");
+        ignore(HttpMethod.GET, "/uploads/**");
+        ignore(HttpMethod.HEAD, "/uploads/**");
+
+        // Public endpoints whose controllers look at the principal when present
+        add(null, Mode.OPTIONAL, "/auth/**", "/api/lists/**", "/api/reviews/**", "/api/user/**", "/api/games/**");
+
+        add(null, Mode.REQUIRED, "/**");
+    }
+
+    /**
+     * Returns how the given request should be treated. Unknown routes are REQUIRED.
+     */
+    public Mode modeFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return modeFor(HttpMethod.valueOf(request.getMethod()), path);
+    }
+
+    public Mode modeFor(HttpMethod method, String path) {
+        PathContainer container = PathContainer.parsePath(path);
+        Mode mode = match(rulesByPrefix.get(firstSegment(path)), method, container);
+        if (mode == null) {
+            mode = match(rulesByPrefix.get(ANY_PREFIX), method, container);
+        }
+        return mode == null ? Mode.REQUIRED : mode;
+    }
+
+    private static Mode match(List<Rule> rules, HttpMethod method, PathContainer path) {
+        if (rules == null) {
+            return null;
+        }
+        for (Rule rule : rules) {
+            if (rule.matches(method, path)) {
+                return rule.mode();
+            }
+        }
+        return null;
+    }
+
+    private void ignore(HttpMethod method, String... patterns) {
+        add(method, Mode.IGNORED, patterns);
+    }
+
+    private void add(HttpMethod method, Mode mode, String... patterns) {
+        for (String pattern : patterns) {
+            String prefix = firstSegment(pattern);
+            // Patterns starting with a wildcard or variable can match any prefix
+            String bucket = prefix.startsWith("*") || prefix.startsWith("{") ? ANY_PREFIX : prefix;
+            rulesByPrefix.computeIfAbsent(bucket, key -> new ArrayList<>())
+                    .add(new Rule(method, parser.parse(pattern), mode));
+        }
+    }
+
+    private static String firstSegment(String path) {
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.substring(start) : path.substring(start, end);
+    }
+}
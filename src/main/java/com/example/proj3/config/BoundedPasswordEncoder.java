@@ -0,0 +1,123 @@
+package com.example.proj3.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * BCrypt encoder that runs every hash and verification on a dedicated, core-count-sized
+ * pool with a bounded queue, so a login burst can't take over Tomcat's request threads.
+ *
+ * When the queue is full, or a task can't finish within the wait limit, it fails fast with
+ * {@link PasswordHashingUnavailableException} (503). Queue depth and hash latency are
+ * published as metrics. Hashes made with a lower cost than {@code security.bcrypt.strength}
+ * report {@link #upgradeEncoding}, so DaoAuthenticationProvider rehashes them on the next
+ * successful login.
+ */
+@Component
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoundedPasswordEncoder.class);
+
+    private final BCryptPasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitMillis;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    public BoundedPasswordEncoder(@Value("${security.bcrypt.strength:10}") int strength,
+                                  @Value("${security.bcrypt.threads:0}") int threads,
+                                  @Value("${security.bcrypt.queue-capacity:64}") int queueCapacity,
+                                  @Value("${security.bcrypt.max-wait-ms:5000}") long maxWaitMillis,
+                                  MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.maxWaitMillis = maxWaitMillis;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("password.hash.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Password hash/verify tasks waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hash/verify tasks currently running")
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("password.hash.latency").tag("operation", "encode").register(meterRegistry);
+        this.matchesTimer = Timer.builder("password.hash.latency").tag("operation", "matches").register(meterRegistry);
+
+        logger.info("Password hashing pool: {} threads, queue capacity {}, BCrypt strength {}",
+                poolSize, queueCapacity, strength);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> encodeTimer.record(() -> delegate.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Password hashing pool saturated ({} queued)", executor.getQueue().size());
+            throw new PasswordHashingUnavailableException("Password service is busy, please retry shortly");
+        }
+
+        try {
+            return future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new PasswordHashingUnavailableException("Password service is busy, please retry shortly");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new PasswordHashingUnavailableException("Interrupted while waiting for password hashing");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.proj3.config;
 
 import java.io.IOException;
+import java.util.List;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -11,7 +12,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -19,6 +23,10 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.example.proj3.service.TokenVersionService;
+
+import io.jsonwebtoken.Claims;
+
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthFilter.class);
@@ -29,6 +37,18 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
+    @Autowired
+    private AuthRouteTable authRouteTable;
+
+    // Public routes that never read the principal skip token parsing entirely
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return authRouteTable.modeFor(request) == AuthRouteTable.Mode.IGNORED;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -43,24 +63,17 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         
         try {
             String jwt = parseJwt(request);
-            if (jwt != null) {
-                String username = jwtUtil.extractUsername(jwt);
-                
-                if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                    
-                    if (jwtUtil.validateToken(jwt, userDetails)) {
-                        UsernamePasswordAuthenticationToken authentication =
-                                new UsernamePasswordAuthenticationToken(
-                                        userDetails, null, userDetails.getAuthorities());
-                        
-                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
-                        
-                        logger.info("Successfully authenticated user: {}", username);
-                    } else {
-                        logger.warn("Invalid JWT token for user: {}", username);
-                    }
+            if (jwt != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                // Signature and expiry are checked here; a bad token throws and stays anonymous
+                Claims claims = jwtUtil.parseClaims(jwt);
+                String username = claims.getSubject();
+
+                if (username == null || jwtUtil.isTokenBlacklisted(jwt)) {
+                    logger.warn("Rejected JWT token for user: {}", username);
+                } else if (claims.get(JwtUtil.USER_ID_CLAIM) != null) {
+                    authenticateFromClaims(claims, username, request);
+                } else {
+                    authenticateFromDatabase(jwt, username, request);
                 }
             }
         } catch (Exception e) {
@@ -71,6 +84,44 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    // Authorizes entirely from the verified claims; only the in-memory version table is consulted
+    private void authenticateFromClaims(Claims claims, String username, HttpServletRequest request) {
+        Long userId = claims.get(JwtUtil.USER_ID_CLAIM, Long.class);
+        Integer version = claims.get(JwtUtil.VERSION_CLAIM, Integer.class);
+        String role = claims.get(JwtUtil.ROLE_CLAIM, String.class);
+
+        if (version == null || role == null || !tokenVersionService.isCurrent(userId, version)) {
+            logger.warn("Stale JWT token for user: {}", username);
+            return;
+        }
+
+        List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(role));
+        UserDetails principal = User.withUsername(username)
+                .password("")
+                .authorities(authorities)
+                .build();
+        setAuthentication(new UsernamePasswordAuthenticationToken(principal, null, authorities), request);
+        logger.debug("Authenticated user from token claims: {}", username);
+    }
+
+    // Tokens issued before claims were added carry only a subject, so the user is loaded as before
+    private void authenticateFromDatabase(String jwt, String username, HttpServletRequest request) {
+        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+
+        if (jwtUtil.validateToken(jwt, userDetails)) {
+            setAuthentication(new UsernamePasswordAuthenticationToken(
+                    userDetails, null, userDetails.getAuthorities()), request);
+            logger.info("Successfully authenticated user: {}", username);
+        } else {
+            logger.warn("Invalid JWT token for user: {}", username);
+        }
+    }
+
+    private void setAuthentication(UsernamePasswordAuthenticationToken authentication, HttpServletRequest request) {
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
@@ -9,29 +9,42 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import com.example.proj3.model.User;
+
 import jakarta.annotation.PostConstruct;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
-import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
+    // Signed claims that let JwtAuthFilter authorize a request without loading the user
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+    public static final String VERSION_CLAIM = "ver";
+
     @Value("${jwt.secret}")
     private String secretKeyString;
 
     @Value("${jwt.expiration}")
     private long expirationTime;
 
+    // With refresh tokens on, access tokens only live for jwt.access-expiration
+    @Value("${jwt.refresh.enabled:false}")
+    private boolean refreshEnabled;
+
+    @Value("${jwt.access-expiration:900000}")
+    private long accessExpirationTime;
+
     private SecretKey secretKey;
 
-    private final Set<String> blacklistedTokens = Collections.synchronizedSet(new HashSet<>());
+    // Logged-out token -> its expiry in epoch millis, so purging needs no re-parse
+    private final Map<String, Long> blacklistedTokens = new ConcurrentHashMap<>();
 
     @PostConstruct
     public void init() {
@@ -41,6 +54,16 @@ public class JwtUtil {
         } else {
             secretKey = Keys.hmacShaKeyFor(secretKeyString.getBytes(StandardCharsets.UTF_8));
         }
+        if (refreshEnabled) {
+            expirationTime = accessExpirationTime;
+        }
+    }
+
+    /**
+     * @return How long newly issued access tokens are valid, in milliseconds
+     */
+    public long getExpirationTime() {
+        return expirationTime;
     }
 
     public String extractUsername(String token) {
@@ -56,6 +79,15 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
 
+    /**
+     * Verifies the token's signature and expiry and returns its claims.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public Claims parseClaims(String token) {
+        return extractAllClaims(token);
+    }
+
     private Claims extractAllClaims(String token) {
         return Jwts.parserBuilder()
                 .setSigningKey(secretKey)
@@ -69,11 +101,17 @@ public class JwtUtil {
     }
 
     public boolean isTokenBlacklisted(String token) {
-        return blacklistedTokens.contains(token);
+        return blacklistedTokens.containsKey(token);
     }
 
     public void invalidateToken(String token) {
-        blacklistedTokens.add(token);
+        long expiry;
+        try {
+            expiry = extractExpiration(token).getTime();
+        } catch (Exception e) {
+            return; // Invalid or already expired tokens are rejected anyway
+        }
+        blacklistedTokens.put(token, expiry);
     }
 
     //need to check out what the line does 
@@ -83,6 +121,22 @@ public class JwtUtil {
         return createToken(claims, userDetails.getUsername());
     }
 
+    /**
+     * Issues a token carrying the user's ID, role and current token version.
+     */
+    public String generateToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(USER_ID_CLAIM, user.getId());
+        claims.put(ROLE_CLAIM, roleOf(user));
+        claims.put(VERSION_CLAIM, user.getTokenVersion());
+        return createToken(claims, user.getUsername());
+    }
+
+    // Same authority names CustomUserDetailsService hands out
+    public static String roleOf(User user) {
+        return user.isAdmin() ? "ADMIN" : "ROLE_USER";
+    }
+
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
@@ -100,23 +154,8 @@ public class JwtUtil {
 
     @Scheduled(fixedRate = 60000) // 1 minute
     public void clearExpiredTokens() {
-        Date now = new Date();
-        Set<String> expiredTokens = new HashSet<>();
-
-        for (String token : blacklistedTokens) {
-            try {
-                Date expiration = extractExpiration(token);
-                if (expiration.before(now)) {
-                    expiredTokens.add(token);
-                }
-            } catch (Exception e) {
-                expiredTokens.add(token); // If token is invalid, consider it expired
-            }
-        }
-
-        if(!expiredTokens.isEmpty()) {
-            blacklistedTokens.removeAll(expiredTokens);
-        }
+        long now = System.currentTimeMillis();
+        blacklistedTokens.values().removeIf(expiry -> expiry < now);
     }
 
 }
\ No newline at end of file
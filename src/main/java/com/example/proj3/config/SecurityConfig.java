@@ -11,8 +11,8 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
@@ -36,13 +36,18 @@ public class SecurityConfig {
     private final UserDetailsService userDetailsService;
     private final JwtUtil jwtUtil;
     private final UserService userService;
+    private final PasswordEncoder passwordEncoder;
+    private final UserDetailsPasswordService userDetailsPasswordService;
 
    public SecurityConfig(JwtAuthFilter jwtAuthFilter, UserDetailsService userDetailsService,
-                         JwtUtil jwtUtil,  @Lazy UserService userService) {
+                         JwtUtil jwtUtil,  @Lazy UserService userService,
+                         PasswordEncoder passwordEncoder, UserDetailsPasswordService userDetailsPasswordService) {
         this.jwtAuthFilter = jwtAuthFilter;
         this.userDetailsService = userDetailsService;
         this.jwtUtil = jwtUtil;
         this.userService = userService;
+        this.passwordEncoder = passwordEncoder;
+        this.userDetailsPasswordService = userDetailsPasswordService;
     }
     @Bean
     public WebSecurityCustomizer webSecurityCustomizer() {
@@ -61,6 +66,8 @@ public class SecurityConfig {
                         .requestMatchers("/auth/register", "/auth/register/**").permitAll()
                         .requestMatchers("/auth/**", "/api/lists/**", "/api/games/**").permitAll()
                         .requestMatchers("/oauth2/**", "/login/oauth2/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/uploads/**").permitAll()
+                        .requestMatchers(HttpMethod.HEAD, "/uploads/**").permitAll()
                         .requestMatchers( "/api/reviews/**").permitAll() // Allow GETs only for reviews
                         .requestMatchers("/api/reviews/edit/**", "/api/reviews/delete/**").authenticated() // Protect edit/delete
                         .requestMatchers("/api/user/**").permitAll()
@@ -100,15 +107,12 @@ public class SecurityConfig {
     public DaoAuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        // BCrypt runs on BoundedPasswordEncoder's pool; hashes below the configured cost are upgraded on login
+        authProvider.setPasswordEncoder(passwordEncoder);
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService);
         return authProvider;
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration authConfig) throws Exception {
         return authConfig.getAuthenticationManager();
@@ -116,7 +120,7 @@ public class SecurityConfig {
 
     @Bean
     public AuthenticationSuccessHandler oAuth2AuthenticationSuccessHandler() {
-        return new OAuth2AuthenticationSuccessHandler(jwtUtil, userService, userDetailsService, passwordEncoder());
+        return new OAuth2AuthenticationSuccessHandler(jwtUtil, userService, userDetailsService, passwordEncoder);
     }
 
     @Bean
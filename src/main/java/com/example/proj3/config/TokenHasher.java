@@ -0,0 +1,41 @@
+package com.example.proj3.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Helpers for opaque bearer tokens (refresh tokens, password reset tokens) that are
+ * handed to the client once and stored only as a SHA-256 hash.
+ */
+public final class TokenHasher {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private TokenHasher() {
+    }
+
+    /**
+     * @return A new URL-safe token carrying 256 random bits
+     */
+    public static String newToken() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * @return The lowercase hex SHA-256 of the token, 64 characters long
+     */
+    public static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,20 +1,22 @@
 package com.example.proj3.controller;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.text.SimpleDateFormat;
+import java.util.Base64;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -27,9 +29,16 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.example.proj3.config.JwtUtil;
+import com.example.proj3.config.PasswordHashingUnavailableException;
 import com.example.proj3.model.User;
+import com.example.proj3.model.UserDto;
+import com.example.proj3.model.UserSummary;
 import com.example.proj3.repository.UserRepository;
+import com.example.proj3.repository.UserRepositoryCustom.SortKey;
+import com.example.proj3.repository.UserRepositoryCustom.UserFilter;
+import com.example.proj3.service.RefreshTokenService;
 import com.example.proj3.service.UserService;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -41,39 +50,94 @@ public class AdminController {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
+    private final RefreshTokenService refreshTokenService;
 
     public AdminController(UserService userService, UserRepository userRepository, 
                          PasswordEncoder passwordEncoder, AuthenticationManager authenticationManager, 
-                         JwtUtil jwtUtil) {
+                         JwtUtil jwtUtil, RefreshTokenService refreshTokenService) {
         this.userService = userService;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
+        this.refreshTokenService = refreshTokenService;
+    }
+
+    public record UserResponse(String message, UserDto user) {
+    }
+
+    public record CreatedAccountResponse(Long id, String username, String email,
+                                         @JsonProperty("isAdmin") boolean isAdmin, String jwtToken, String message) {
     }
 
     /**
      * Get all users
      * Corresponds to the fetchUsers() function in AdminScreen
+     * Paged by page number or by keyset cursor (X-Next-Cursor of the previous page);
+     * the total for the current filter is in X-Total-Count
      */
     @GetMapping("/users")
-    public ResponseEntity<List<User>> getAllUsers() {
-        logger.info("Fetching all users");
+    public ResponseEntity<List<UserSummary>> getAllUsers(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Boolean admin,
+            @RequestParam(required = false) Boolean oauth,
+            @RequestParam(required = false) String provider) {
+        logger.info("Fetching users: page={}, size={}, sort={} {}, cursor={}", page, size, sort, direction, cursor);
         try {
-            List<User> users = userService.getAllUsers();
-            return ResponseEntity.ok(users);
+            SortKey sortKey;
+            Object after;
+            try {
+                sortKey = SortKey.valueOf(sort.toUpperCase());
+                after = cursor == null || cursor.isEmpty() ? null : decodeCursor(cursor, sortKey);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Invalid sort or cursor: sort={}, cursor={}", sort, cursor);
+                return ResponseEntity.badRequest().body(null);
+            }
+            boolean descending = "desc".equalsIgnoreCase(direction);
+            int pageSize = Math.max(1, Math.min(size, 500));
+            UserFilter filter = new UserFilter(admin, oauth, provider);
+
+            // Fetch one extra row to learn whether there is a next page
+            int offset = Math.max(page, 0) * pageSize;
+            List<UserSummary> users = userService.listUsers(filter, sortKey, descending, after,
+                    offset, pageSize + 1);
+            boolean hasMore = users.size() > pageSize;
+            if (hasMore) {
+                users = users.subList(0, pageSize);
+            }
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .header("X-Total-Count", String.valueOf(userService.countUsers(filter)));
+            if (hasMore) {
+                UserSummary last = users.get(users.size() - 1);
+                response.header("X-Next-Cursor", encodeCursor(sortKey == SortKey.ID ? last.id() : last.username()));
+            }
+            return response.body(users);
         } catch (Exception e) {
             logger.error("Error fetching users: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
     }
 
+    private static String encodeCursor(Object value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Object decodeCursor(String cursor, SortKey sortKey) {
+        String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        return sortKey == SortKey.ID ? (Object) Long.valueOf(value) : value;
+    }
+
     /**
      * Create a new user
      * Corresponds to the handleCreateUser() function in AdminScreen
      */
     @PostMapping("/users")
-    public ResponseEntity<User> createUser(@RequestBody Map<String, Object> userData) {
+    public ResponseEntity<UserDto> createUser(@RequestBody Map<String, Object> userData) {
         logger.info("Creating new user from admin panel");
         try {
             String username = (String) userData.get("username");
@@ -94,7 +158,9 @@ public class AdminController {
             user.setAdmin(isAdmin != null ? isAdmin : false);
 
             User createdUser = userService.saveUser(user);
-            return ResponseEntity.status(HttpStatus.CREATED).body(createdUser);
+            return ResponseEntity.status(HttpStatus.CREATED).body(UserDto.of(createdUser));
+        } catch (PasswordHashingUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(null);
         } catch (Exception e) {
             logger.error("Error creating user: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
@@ -116,7 +182,7 @@ public class AdminController {
                         .body(Map.of("message", "User not found"));
             }
 
-            userRepository.delete(user);
+            userService.deleteUser(userId);
             logger.info("User deleted successfully: {}", userId);
             return ResponseEntity.ok(Map.of("message", "User deleted successfully"));
         } catch (Exception e) {
@@ -131,7 +197,7 @@ public class AdminController {
      * Corresponds to the handleToggleAdmin() function in AdminScreen
      */
     @PutMapping("/users/{userId}/grant-admin")
-    public ResponseEntity<Map<String, Object>> grantAdminPrivileges(@PathVariable Long userId) {
+    public ResponseEntity<?> grantAdminPrivileges(@PathVariable Long userId) {
         logger.info("Granting admin privileges to user: {}", userId);
         try {
             User user = userRepository.findById(userId).orElse(null);
@@ -141,14 +207,14 @@ public class AdminController {
                         .body(Map.of("message", "User not found"));
             }
 
-            user.setAdmin(true);
-            userRepository.save(user);
+            // Outstanding tokens still carry the old role, so retire them
+            if (!user.isAdmin()) {
+                user.setAdmin(true);
+                user.incrementTokenVersion();
+            }
+            userService.saveUser(user);
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("message", "Admin privileges granted successfully");
-            response.put("user", user);
-            
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(new UserResponse("Admin privileges granted successfully", UserDto.of(user)));
         } catch (Exception e) {
             logger.error("Error granting admin privileges: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -161,7 +227,7 @@ public class AdminController {
      * Corresponds to the handleToggleAdmin() function in AdminScreen
      */
     @PutMapping("/users/{userId}/revoke-admin")
-    public ResponseEntity<Map<String, Object>> revokeAdminPrivileges(@PathVariable Long userId) {
+    public ResponseEntity<?> revokeAdminPrivileges(@PathVariable Long userId) {
         logger.info("Revoking admin privileges from user: {}", userId);
         try {
             User user = userRepository.findById(userId).orElse(null);
@@ -171,14 +237,14 @@ public class AdminController {
                         .body(Map.of("message", "User not found"));
             }
 
-            user.setAdmin(false);
-            userRepository.save(user);
+            // Outstanding tokens still carry the old role, so retire them
+            if (user.isAdmin()) {
+                user.setAdmin(false);
+                user.incrementTokenVersion();
+            }
+            userService.saveUser(user);
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("message", "Admin privileges revoked successfully");
-            response.put("user", user);
-            
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(new UserResponse("Admin privileges revoked successfully", UserDto.of(user)));
         } catch (Exception e) {
             logger.error("Error revoking admin privileges: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -191,7 +257,7 @@ public class AdminController {
      * To support the UserDetailModal in AdminScreen
      */
     @GetMapping("/users/{userId}")
-    public ResponseEntity<User> getUserById(@PathVariable Long userId) {
+    public ResponseEntity<UserDto> getUserById(@PathVariable Long userId) {
         logger.info("Fetching user with ID: {}", userId);
         try {
             User user = userRepository.findById(userId).orElse(null);
@@ -199,7 +265,7 @@ public class AdminController {
                 logger.warn("User with ID {} not found", userId);
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
             }
-            return ResponseEntity.ok(user);
+            return ResponseEntity.ok(UserDto.of(user));
         } catch (Exception e) {
             logger.error("Error fetching user by ID: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
@@ -211,7 +277,7 @@ public class AdminController {
      * Additional endpoint that might be useful for the admin panel
      */
     @PutMapping("/users/{userId}")
-    public ResponseEntity<User> updateUser(@PathVariable Long userId, @RequestBody Map<String, Object> userData) {
+    public ResponseEntity<UserDto> updateUser(@PathVariable Long userId, @RequestBody Map<String, Object> userData) {
         logger.info("Updating user with ID: {}", userId);
         try {
             User user = userRepository.findById(userId).orElse(null);
@@ -221,6 +287,9 @@ public class AdminController {
             }
 
             // Update user fields if provided
+            String previousUsername = user.getUsername();
+            boolean previousAdmin = user.isAdmin();
+
             if (userData.containsKey("username")) {
                 user.setUsername((String) userData.get("username"));
             }
@@ -232,17 +301,30 @@ public class AdminController {
             if (userData.containsKey("admin")) {
                 user.setAdmin((Boolean) userData.get("admin"));
             }
-            
+
             // Only update password if provided
+            boolean passwordChanged = false;
             if (userData.containsKey("password") && userData.get("password") != null) {
                 String newPassword = (String) userData.get("password");
                 if (!newPassword.isEmpty()) {
                     user.setPassword(passwordEncoder.encode(newPassword));
+                    passwordChanged = true;
                 }
             }
 
-            User updatedUser = userRepository.save(user);
-            return ResponseEntity.ok(updatedUser);
+            // Tokens carry the username and role, and a new password must end existing sessions
+            if (passwordChanged || user.isAdmin() != previousAdmin
+                    || !Objects.equals(user.getUsername(), previousUsername)) {
+                user.incrementTokenVersion();
+            }
+
+            User updatedUser = userService.saveUser(user);
+            if (passwordChanged) {
+                refreshTokenService.revokeAllForUser(updatedUser.getId());
+            }
+            return ResponseEntity.ok(UserDto.of(updatedUser));
+        } catch (PasswordHashingUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(null);
         } catch (Exception e) {
             logger.error("Error updating user: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
@@ -252,17 +334,18 @@ public class AdminController {
     /**
      * Search users
      * To support the search functionality in AdminScreen
+     * Served from the in-memory user search index; the total match count is in X-Total-Count
      */
     @GetMapping("/users/search")
-    public ResponseEntity<List<User>> searchUsers(@RequestParam String query) {
+    public ResponseEntity<List<UserSummary>> searchUsers(@RequestParam String query,
+                                                         @RequestParam(defaultValue = "0") int page,
+                                                         @RequestParam(defaultValue = "50") int size) {
         logger.info("Searching users with query: {}", query);
         try {
-            if (query == null || query.trim().isEmpty()) {
-                return getAllUsers();
-            }
-            
-            List<User> users = userService.searchUsers(query);
-            return ResponseEntity.ok(users);
+            Page<UserSummary> users = userService.searchUsers(query, Math.max(page, 0), Math.max(1, Math.min(size, 200)));
+            return ResponseEntity.ok()
+                    .header("X-Total-Count", String.valueOf(users.getTotalElements()))
+                    .body(users.getContent());
         } catch (Exception e) {
             logger.error("Error searching users: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
@@ -343,23 +426,18 @@ public class AdminController {
                     new UsernamePasswordAuthenticationToken(username, password)
                 );
                 
-                UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-                String token = jwtUtil.generateToken(userDetails);
-                
-                Map<String, Object> response = new HashMap<>();
-                response.put("id", createdUser.getId());
-                response.put("username", createdUser.getUsername());
-                response.put("email", createdUser.getEmail());
-                response.put("isAdmin", createdUser.isAdmin());
-                response.put("jwtToken", token);
-                response.put("message", "User account created successfully");
+                String token = jwtUtil.generateToken(createdUser);
                 
+                CreatedAccountResponse response = new CreatedAccountResponse(createdUser.getId(), createdUser.getUsername(),
+                        createdUser.getEmail(), createdUser.isAdmin(), token, "User account created successfully");
                 return ResponseEntity.status(HttpStatus.CREATED).body(response);
             } else {
                 logger.error("Failed to create user account");
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                         .body(Map.of("message", "Failed to create user account"));
             }
+        } catch (PasswordHashingUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("message", e.getMessage()));
         } catch (Exception e) {
             logger.error("Error creating user account: " + e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
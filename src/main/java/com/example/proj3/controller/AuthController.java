@@ -8,9 +8,11 @@ import java.util.Date;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -28,8 +30,11 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 
 import com.example.proj3.config.JwtUtil;
+import com.example.proj3.config.PasswordHashingUnavailableException;
 import com.example.proj3.model.User;
 import com.example.proj3.repository.UserRepository;
+import com.example.proj3.service.LoginAttemptService;
+import com.example.proj3.service.RefreshTokenService;
 import com.example.proj3.service.UserService;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -43,12 +48,17 @@ public class AuthController {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
+    private final LoginAttemptService loginAttemptService;
+    private final RefreshTokenService refreshTokenService;
 
-    public AuthController(UserService userService, PasswordEncoder passwordEncoder, AuthenticationManager authenticationManager, JwtUtil jwtUtil) {
+    public AuthController(UserService userService, PasswordEncoder passwordEncoder, AuthenticationManager authenticationManager,
+                          JwtUtil jwtUtil, LoginAttemptService loginAttemptService, RefreshTokenService refreshTokenService) {
         this.userService = userService;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
+        this.loginAttemptService = loginAttemptService;
+        this.refreshTokenService = refreshTokenService;
     }
 
      @PostMapping("/register")
@@ -108,6 +118,8 @@ public class AuthController {
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                         .body(Map.of("message", "Failed to create user account"));
             }
+        } catch (PasswordHashingUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("message", e.getMessage()));
         } catch (Exception e) {
             logger.error("Error during user registration: " + e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -115,6 +127,29 @@ public class AuthController {
         }
     }
 
+    /**
+     * Live availability check for signup forms. Pass a username, an email, or both;
+     * each one given is reported as available or not.
+     */
+    @GetMapping("/available")
+    public ResponseEntity<?> checkAvailability(@RequestParam(required = false) String username,
+                                               @RequestParam(required = false) String email) {
+        if ((username == null || username.isBlank()) && (email == null || email.isBlank())) {
+            return ResponseEntity.badRequest().body(Map.of("message", "A username or email is required"));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        if (username != null && !username.isBlank()) {
+            response.put("username", username);
+            response.put("usernameAvailable", userService.isUsernameAvailable(username.trim()));
+        }
+        if (email != null && !email.isBlank()) {
+            response.put("email", email);
+            response.put("emailAvailable", userService.isEmailAvailable(email.trim()));
+        }
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/oauth2/redirect")
     public ResponseEntity<?> handleOAuthRedirect(@RequestParam String token) {
         
@@ -134,8 +169,18 @@ public class AuthController {
     }
     
   @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestParam String username, @RequestParam String password) {
+    public ResponseEntity<?> login(@RequestParam String username, @RequestParam String password, HttpServletRequest request) {
         logger.info("User attempting to login: " + username);
+
+        // Reject locked-out usernames/IPs before spending a BCrypt verification on them
+        String clientIp = request.getRemoteAddr();
+        long retryAfterMillis = loginAttemptService.retryAfterMillis(username, clientIp);
+        if (retryAfterMillis > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfterMillis + 999) / 1000))
+                    .body("Too many failed login attempts. Try again later.");
+        }
+
         try {
             logger.info("Attempting to authenticate user: " + username);
             Authentication authentication = authenticationManager.authenticate(
@@ -143,26 +188,37 @@ public class AuthController {
             );
 
             logger.info("User has been authenticated: " + username);
+            loginAttemptService.recordSuccess(username);
 
             UserDetails userDetails = (UserDetails) authentication.getPrincipal();
             logger.info("User details: " + userDetails);
 
-            String jwtToken = jwtUtil.generateToken(userDetails);
-            logger.info("JWT Token generated: " + jwtToken);
-
             // Get the user ID
             User user;
-            user = userService.getUserByUsername(username);
+            user = userService.getUserByUsername(userDetails.getUsername());
             Long userId = user.getId();
 
+            String jwtToken = jwtUtil.generateToken(user);
+            logger.info("JWT Token generated: " + jwtToken);
+
             Map<String, Object> response = new HashMap<>();
             response.put("jwtToken", jwtToken);
             response.put("username", userDetails.getUsername());
             response.put("userId", userId);
+            if (refreshTokenService.isEnabled()) {
+                response.put("refreshToken", refreshTokenService.issue(user));
+                response.put("expiresIn", jwtUtil.getExpirationTime() / 1000);
+            }
 
             return ResponseEntity.ok(response);
+        } catch (InternalAuthenticationServiceException e) {
+            if (e.getCause() instanceof PasswordHashingUnavailableException) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getCause().getMessage());
+            }
+            logger.error("Unexpected error during login: " + e.getMessage());
+            return ResponseEntity.status(500).body("Error during login: " + e.getMessage());
         } catch (AuthenticationException e) {
-
+            loginAttemptService.recordFailure(username, clientIp);
             return ResponseEntity.status(401).body("Authentication failed: " + e.getMessage());
         } catch (Exception e) {
             logger.error("Unexpected error during login: " + e.getMessage());
@@ -172,7 +228,7 @@ public class AuthController {
 
     @PostMapping("/signup")
     public ResponseEntity<String> register(@RequestParam String username, @RequestParam String email, @RequestParam String password){
-        if(userService.getUserByUsername(username) != null || userService.getUserByEmail(email) !=null) {
+        if(userService.userExistsByUsername(username) || userService.userExistsByEmail(email)) {
             return ResponseEntity.badRequest().body("User Already Exists!");
         }
 
@@ -199,8 +255,33 @@ public class AuthController {
         }
     }
 
+    /**
+     * Exchanges a refresh token for a new access token and the next refresh token.
+     * Only available when jwt.refresh.enabled is set.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestParam String refreshToken) {
+        if (!refreshTokenService.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Refresh tokens are not enabled"));
+        }
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        if (rotation == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Invalid or expired refresh token"));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("jwtToken", jwtUtil.generateToken(rotation.user()));
+        response.put("refreshToken", rotation.refreshToken());
+        response.put("expiresIn", jwtUtil.getExpirationTime() / 1000);
+        response.put("username", rotation.user().getUsername());
+        response.put("userId", rotation.user().getId());
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/logout")
-    public ResponseEntity<Map<String, String>> logout(HttpServletRequest request) {
+    public ResponseEntity<Map<String, String>> logout(HttpServletRequest request,
+                                                      @RequestParam(required = false) String refreshToken) {
         // Extract token from Authorization header
         String authHeader = request.getHeader("Authorization");
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
@@ -208,6 +289,11 @@ public class AuthController {
             // Invalidate the token
             jwtUtil.invalidateToken(token);
             }
+
+        // End the whole refresh token family of this login
+        if (refreshToken != null && !refreshToken.isBlank()) {
+            refreshTokenService.revokeFamily(refreshToken);
+        }
             
         // Clear security context
         SecurityContextHolder.clearContext();
@@ -1,11 +1,13 @@
 package com.example.proj3.controller;
 
+import com.example.proj3.model.MessageResponse;
 import com.example.proj3.model.Review;
+import com.example.proj3.model.ReviewDto;
 import com.example.proj3.model.User;
 import com.example.proj3.service.UserService;
 import com.example.proj3.model.VideoGame;
+import com.example.proj3.service.GameResolver;
 import com.example.proj3.service.ReviewService;
-import com.example.proj3.service.VideoGameService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -14,25 +16,29 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.security.core.userdetails.UserDetails;
 
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/reviews")
 public class ReviewController {
 
     private final ReviewService reviewService;
-    private final VideoGameService videoGameService;
     private final  UserService userService;
+    private final GameResolver gameResolver;
 
 
     @Autowired
-    public ReviewController(ReviewService reviewService, VideoGameService videoGameService, UserService userService) {
+    public ReviewController(ReviewService reviewService, UserService userService, GameResolver gameResolver) {
         this.reviewService = reviewService;
-        this.videoGameService = videoGameService;
         this.userService = userService;
+        this.gameResolver = gameResolver;
+    }
+
+    public record ReviewResponse(String message, ReviewDto review) {
+    }
+
+    public record ReviewsResponse(String message, List<ReviewDto> reviews, int count) {
     }
 
     //creates review
@@ -41,13 +47,18 @@ public class ReviewController {
             @PathVariable Long gameId,
             @RequestParam Integer rating,
             @RequestParam String comment,
+            @RequestParam(defaultValue = "auto") String idType,
             @AuthenticationPrincipal UserDetails userDetails) {
 
-        Map<String, Object> response = new HashMap<>();
+        GameResolver.IdType type;
+        try {
+            type = GameResolver.IdType.parse(idType);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new MessageResponse("idType must be local, rawg or auto"));
+        }
 
         if (userDetails == null) {
-            response.put("message", "You must be logged in to submit a review");
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("You must be logged in to submit a review"));
         }
 
         // Attempt to retrieve the full User entity
@@ -56,8 +67,7 @@ public class ReviewController {
         System.out.println("Found user: " + (user != null ? user.getUsername() : "null"));
 
         if (user == null) {
-            response.put("message", "Authenticated user not found in the database");
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("Authenticated user not found in the database"));
         }
 
         System.out.println("Incoming rating: " + rating);
@@ -65,49 +75,38 @@ public class ReviewController {
 
         // Validate rating
         if (rating == null || rating < 1 || rating > 10) {
-            response.put("message", "Rating must be between 1 and 10");
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new MessageResponse("Rating must be between 1 and 10"));
         }
 
         // Validate comment
         if (comment == null || comment.trim().isEmpty()) {
-            response.put("message", "Comment cannot be empty");
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new MessageResponse("Comment cannot be empty"));
         }
 
         try {
-            Optional<VideoGame> gameOpt = videoGameService.findById(gameId);
             VideoGame videoGame;
-
-            if (gameOpt.isEmpty()) {
-                // Game not in DB — fetch from RAWG and save
-                try {
-                    videoGame = videoGameService.fetchAndSaveFromRawg(gameId);
-                    System.out.println("Fetched game from RAWG and saved: " + videoGame.getTitle());
-                } catch (Exception e) {
-                    response.put("message", "Failed to fetch and save game: " + e.getMessage());
-                    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
-                }
-            } else {
-                videoGame = gameOpt.get();
+            try {
+                // A RAWG game not yet in the DB is fetched and saved
+                videoGame = gameResolver.resolve(gameId, type);
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new MessageResponse("Failed to fetch and save game: " + e.getMessage()));
+            }
+            if (videoGame == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new MessageResponse("Game not found"));
             }
 
             Review review = reviewService.createReview(user, videoGame, rating, comment);
 
-            response.put("message", "Review created successfully");
-            response.put("review", review);
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(new ReviewResponse("Review created successfully", ReviewDto.of(review)));
         } catch (RuntimeException e) {
             if (e.getMessage().contains("Review already exists")) {
-                response.put("message", "You have already reviewed this game");
-                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(new MessageResponse("You have already reviewed this game"));
             } else {
-                response.put("message", "Failed to create review: " + e.getMessage());
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new MessageResponse("Failed to create review: " + e.getMessage()));
             }
         } catch (Exception e) {
-            response.put("message", "An unexpected error occurred: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new MessageResponse("An unexpected error occurred: " + e.getMessage()));
         }
     }
 
@@ -115,57 +114,39 @@ public class ReviewController {
     //gets reviews for specfic game
     @GetMapping("/game/{gameId}")
     public ResponseEntity<?> getReviewsForGame(@PathVariable Long gameId) {
-        Map<String, Object> response = new HashMap<>();
-
         try {
-            List<Review> reviews = reviewService.getReviewsForGame(gameId);
-
-            response.put("message", "Reviews retrieved successfully");
-            response.put("reviews", reviews);
-            response.put("count", reviews.size());
-            return ResponseEntity.ok(response);
+            List<ReviewDto> reviews = ReviewDto.of(reviewService.getReviewsForGame(gameId));
+            return ResponseEntity.ok(new ReviewsResponse("Reviews retrieved successfully", reviews, reviews.size()));
         } catch (RuntimeException e) {
             if (e.getMessage().contains("Game not found")) {
-                response.put("message", "Game not found");
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new MessageResponse("Game not found"));
             } else {
-                response.put("message", "Failed to get reviews: " + e.getMessage());
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new MessageResponse("Failed to get reviews: " + e.getMessage()));
             }
         } catch (Exception e) {
-            response.put("message", "An unexpected error occurred: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new MessageResponse("An unexpected error occurred: " + e.getMessage()));
         }
     }
 
     //gets all reviews from a user
     @GetMapping("all/user")
     public ResponseEntity<?> getUserReviews(@AuthenticationPrincipal UserDetails userDetails) {
-        Map<String, Object> response = new HashMap<>();
-
         try {
             if (userDetails == null) {
-                response.put("message", "Not authenticated");
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("Not authenticated"));
             }
 
             // Fetch full User entity
             User user = userService.getUserByUsername(userDetails.getUsername());
 
             if (user == null) {
-                response.put("message", "Authenticated user not found");
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("Authenticated user not found"));
             }
 
-            List<Review> reviews = reviewService.getUserReviews(user);
-
-            response.put("message", "User reviews retrieved successfully");
-            response.put("reviews", reviews);
-            response.put("count", reviews.size());
-            return ResponseEntity.ok(response);
+            List<ReviewDto> reviews = ReviewDto.of(reviewService.getUserReviews(user));
+            return ResponseEntity.ok(new ReviewsResponse("User reviews retrieved successfully", reviews, reviews.size()));
         } catch (Exception e) {
-            response.put("message", "Failed to get user reviews: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new MessageResponse("Failed to get user reviews: " + e.getMessage()));
         }
     }
 
@@ -177,8 +158,6 @@ public class ReviewController {
             @AuthenticationPrincipal UserDetails userDetails,
             @RequestBody Map<String, Object> payload) {
 
-        Map<String, Object> response = new HashMap<>();
-
         // Extract rating and comment from JSON payload
 
         Integer rating = (Integer) payload.get("rating");
@@ -186,41 +165,34 @@ public class ReviewController {
 
         // Validate rating
         if (rating == null || rating < 1 || rating > 10) {
-            response.put("message", "Rating must be between 1 and 10");
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new MessageResponse("Rating must be between 1 and 10"));
         }
 
         // Validate comment
         if (comment == null || comment.trim().isEmpty()) {
-            response.put("message", "Comment cannot be empty");
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new MessageResponse("Comment cannot be empty"));
         }
 
         System.out.println("UserDetails: " + (userDetails != null ? userDetails.getUsername() : "null"));
 
         try {
             if (userDetails == null) {
-                response.put("message", "User not authenticated");
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("User not authenticated"));
             }
 
 
 
             User user = userService.getUserByUsername(userDetails.getUsername());
             if (user == null) {
-                response.put("message", "User not found");
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("User not found"));
             }
 
             Review updatedReview = reviewService.editReview(reviewId, user, rating, comment);
 
-            response.put("message", "Review updated successfully");
-            response.put("review", updatedReview);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(new ReviewResponse("Review updated successfully", ReviewDto.of(updatedReview)));
 
         } catch (Exception e) {
-            response.put("message", "Failed to edit review: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new MessageResponse("Failed to edit review: " + e.getMessage()));
         }
     }
 
@@ -230,30 +202,24 @@ public class ReviewController {
             @PathVariable Long reviewId,
             @AuthenticationPrincipal UserDetails userDetails) {
 
-        Map<String, Object> response = new HashMap<>();
-
         System.out.println("UserDetails: " + (userDetails != null ? userDetails.getUsername() : "null"));
 
         try {
             if (userDetails == null) {
-                response.put("message", "User not authenticated");
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("User not authenticated"));
             }
 
             User user = userService.getUserByUsername(userDetails.getUsername());
             if (user == null) {
-                response.put("message", "User not found");
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("User not found"));
             }
 
             reviewService.deleteReview(reviewId, user);
 
-            response.put("message", "Review deleted successfully");
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(new MessageResponse("Review deleted successfully"));
 
         } catch (Exception e) {
-            response.put("message", "Failed to delete review: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new MessageResponse("Failed to delete review: " + e.getMessage()));
         }
     }
 
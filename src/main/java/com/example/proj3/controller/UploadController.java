@@ -0,0 +1,289 @@
+package com.example.proj3.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UrlPathHelper;
+
+import com.example.proj3.service.ProfilePictureService;
+import com.example.proj3.storage.BlobStore;
+import com.example.proj3.storage.LocalDiskBlobStore;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Serves stored uploads from {@code /uploads/<key>}.
+ *
+ * Content-addressed keys never change content, so they are sent with a strong ETag of
+ * their SHA-256 and an immutable, year-long Cache-Control; older flat file names get an
+ * ETag from size and modification time and a short max-age. Conditional requests are
+ * answered with 304, and a single byte range is honoured (206 / 416). File bodies are
+ * handed to Tomcat's sendfile when the connector offers it, otherwise copied with
+ * FileChannel.transferTo, so the bytes do not pass through the heap.
+ */
+@RestController
+public class UploadController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("[0-9a-f]{2}/[0-9a-f]{2}/([0-9a-f]{64})\\.[a-z0-9]+");
+
+    private final BlobStore blobStore;
+
+    @Value("${storage.serve.legacy-max-age-seconds:3600}")
+    private long legacyMaxAgeSeconds;
+
+    @Autowired
+    public UploadController(BlobStore blobStore) {
+        this.blobStore = blobStore;
+    }
+
+    /**
+     * Byte range of a response body, both ends inclusive.
+     */
+    record ByteRange(long start, long end) {
+        long length() {
+            return end - start + 1;
+        }
+    }
+
+    @GetMapping(ProfilePictureService.URL_PREFIX + "**")
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String key = keyOf(request);
+
+        if (blobStore instanceof LocalDiskBlobStore disk) {
+            Path path;
+            try {
+                path = disk.resolve(key);
+            } catch (IllegalArgumentException e) {
+                response.sendError(HttpStatus.NOT_FOUND.value());
+                return;
+            }
+            if (!Files.isRegularFile(path)) {
+                response.sendError(HttpStatus.NOT_FOUND.value());
+                return;
+            }
+            long length = Files.size(path);
+            long lastModified = Files.getLastModifiedTime(path).toMillis();
+            serveFile(request, response, key, path, length, lastModified);
+        } else {
+            serveStream(request, response, key);
+        }
+    }
+
+    // The request URI is still percent-encoded; stored keys are not, so use the decoded path
+    static String keyOf(HttpServletRequest request) {
+        String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+        return path.startsWith(ProfilePictureService.URL_PREFIX)
+                ? path.substring(ProfilePictureService.URL_PREFIX.length())
+                : "";
+    }
+
+    private void serveFile(HttpServletRequest request, HttpServletResponse response, String key,
+                           Path path, long length, long lastModified) throws IOException {
+        String etag = etagFor(key, length, lastModified);
+        writeCachingHeaders(response, key, etag, lastModified);
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        ByteRange range = rangeFor(request, response, etag, length);
+        if (range == null) {
+            return; // 416 already sent
+        }
+        if (isHead(request)) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, range.start());
+            request.setAttribute(SENDFILE_END, range.end() + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = range.start();
+            long remaining = range.length();
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    // Stores without a file system path (the in-memory store); only used for local runs
+    private void serveStream(HttpServletRequest request, HttpServletResponse response, String key) throws IOException {
+        byte[] bytes;
+        try (InputStream in = blobStore.open(key)) {
+            bytes = in.readAllBytes();
+        } catch (NoSuchFileException | IllegalArgumentException e) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        String etag = etagFor(key, bytes.length, 0);
+        writeCachingHeaders(response, key, etag, -1);
+        if (notModified(request, etag, -1)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+        ByteRange range = rangeFor(request, response, etag, bytes.length);
+        if (range == null || isHead(request)) {
+            return;
+        }
+        try (OutputStream out = response.getOutputStream()) {
+            out.write(bytes, (int) range.start(), (int) range.length());
+        }
+    }
+
+    private void writeCachingHeaders(HttpServletResponse response, String key, String etag, long lastModified) {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        if (lastModified > 0) {
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CONTENT_ADDRESSED.matcher(key).matches()
+                ? "public, max-age=31536000, immutable"
+                : "public, max-age=" + legacyMaxAgeSeconds);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setContentType(contentTypeFor(key));
+    }
+
+    /**
+     * Picks the byte range to send and writes the status and length headers for it.
+     *
+     * @return null if the range cannot be satisfied; the 416 has been sent
+     */
+    private static ByteRange rangeFor(HttpServletRequest request, HttpServletResponse response,
+                                      String etag, long length) throws IOException {
+        ByteRange full = new ByteRange(0, length - 1);
+        String header = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        ByteRange range = header == null || (ifRange != null && !ifRange.equals(etag))
+                ? full
+                : parseRange(header, length);
+
+        if (range == null) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            return null;
+        }
+        if (!range.equals(full)) {
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range.start() + "-" + range.end() + "/" + length);
+        }
+        response.setContentLengthLong(Math.max(0, range.length()));
+        return range;
+    }
+
+    /**
+     * Parses a single-range {@code bytes=} header. Multiple ranges and malformed headers
+     * fall back to the whole file, which RFC 9110 allows.
+     *
+     * @return The range, or null if it lies outside the file
+     */
+    static ByteRange parseRange(String header, long length) {
+        ByteRange full = new ByteRange(0, length - 1);
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return full;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return full;
+        }
+        try {
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0 || length == 0) {
+                    return null;
+                }
+                return new ByteRange(Math.max(0, length - suffix), length - 1);
+            }
+            long start = Long.parseLong(spec.substring(0, dash));
+            long end = dash == spec.length() - 1 ? length - 1 : Long.parseLong(spec.substring(dash + 1));
+            if (start >= length || end < start) {
+                return null;
+            }
+            return new ByteRange(start, Math.min(end, length - 1));
+        } catch (NumberFormatException e) {
+            return full;
+        }
+    }
+
+    static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (lastModified > 0) {
+            try {
+                long since = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+                // HTTP dates have second precision
+                return since >= 0 && lastModified / 1000 <= since / 1000;
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static String etagFor(String key, long length, long lastModified) {
+        Matcher matcher = CONTENT_ADDRESSED.matcher(key);
+        if (matcher.matches()) {
+            return "\"" + matcher.group(1) + "\"";
+        }
+        return "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    private static String contentTypeFor(String key) {
+        String extension = key.substring(key.lastIndexOf('.') + 1).toLowerCase();
+        return switch (extension) {
+            case "jpg", "jpeg" -> "image/jpeg";
+            case "png" -> "image/png";
+            case "gif" -> "image/gif";
+            case "webp" -> "image/webp";
+            default -> "application/octet-stream";
+        };
+    }
+
+    private static boolean isHead(HttpServletRequest request) {
+        return "HEAD".equals(request.getMethod());
+    }
+}
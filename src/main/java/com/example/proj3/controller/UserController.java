@@ -1,22 +1,18 @@
 package com.example.proj3.controller;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import static java.nio.file.Paths.get;
 import java.security.Principal;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -29,13 +25,26 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.proj3.model.MessageResponse;
+import com.example.proj3.model.PublicUserDto;
 import com.example.proj3.model.User;
+import com.example.proj3.model.UserDto;
+import com.example.proj3.service.ProfilePictureService;
+import com.example.proj3.service.ProfilePictureService.PictureUrls;
+import com.example.proj3.service.TasteSimilarityService;
+import com.example.proj3.service.TasteSimilarityService.SimilarUser;
+import com.example.proj3.service.UnsupportedImageTypeException;
 import com.example.proj3.service.UserService;
+import com.example.proj3.service.UsernameDirectory;
+import com.example.proj3.storage.BlobTooLargeException;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 @RestController
 @RequestMapping("/api/user")
@@ -46,8 +55,31 @@ public class UserController {
     @Autowired
     private UserService userService;
 
-    @Value("${file.upload-dir:./uploads/profile-pictures}")
-    private String uploadDir;
+    @Autowired
+    private TasteSimilarityService tasteSimilarityService;
+
+    @Autowired
+    private UsernameDirectory usernameDirectory;
+
+    @Autowired
+    private ProfilePictureService profilePictureService;
+
+    public record AccountUpdateResponse(Long id, String username, String email, String message) {
+    }
+
+    public record ProfilePictureResponse(Long id, String username, String email, String profilePicture,
+                                         Map<Integer, String> thumbnails, boolean thumbnailsReady, String message) {
+    }
+
+    public record PasswordStatusResponse(@JsonProperty("isOAuthUser") boolean isOAuthUser, boolean hasSetPassword,
+                                         String oauthProvider) {
+    }
+
+    public record SimilarUserEntry(Long userId, String username, double similarity, int sharedGames) {
+    }
+
+    public record SimilarUsersResponse(String message, List<SimilarUserEntry> users, int count) {
+    }
 
     //user registration endpoint
     @PostMapping("/create")
@@ -74,7 +106,7 @@ public class UserController {
         if (user == null) {
             return new ResponseEntity<>("User not found", HttpStatus.NOT_FOUND);
         }
-        return new ResponseEntity<>(user, HttpStatus.OK);
+        return new ResponseEntity<>(UserDto.of(user), HttpStatus.OK);
     }
 
      /**
@@ -117,12 +149,8 @@ public class UserController {
         User updatedUser = userService.updateUser(currentUser.getId(), currentUser);
         
         if (updatedUser != null) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("id", updatedUser.getId());
-            response.put("username", updatedUser.getUsername());
-            response.put("email", updatedUser.getEmail());
-            response.put("message", "Username updated successfully");
-            
+            AccountUpdateResponse response = new AccountUpdateResponse(updatedUser.getId(), updatedUser.getUsername(),
+                    updatedUser.getEmail(), "Username updated successfully");
             return new ResponseEntity<>(response, HttpStatus.OK);
         } else {
             return new ResponseEntity<>("Failed to update username", HttpStatus.INTERNAL_SERVER_ERROR);
@@ -169,12 +197,8 @@ public class UserController {
         User updatedUser = userService.updateUser(currentUser.getId(), currentUser);
         
         if (updatedUser != null) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("id", updatedUser.getId());
-            response.put("username", updatedUser.getUsername());
-            response.put("email", updatedUser.getEmail());
-            response.put("message", "Email updated successfully");
-            
+            AccountUpdateResponse response = new AccountUpdateResponse(updatedUser.getId(), updatedUser.getUsername(),
+                    updatedUser.getEmail(), "Email updated successfully");
             return new ResponseEntity<>(response, HttpStatus.OK);
         } else {
             return new ResponseEntity<>("Failed to update email", HttpStatus.INTERNAL_SERVER_ERROR);
@@ -198,47 +222,23 @@ public class UserController {
         }
         
         try {
-            // Create the upload directory if it doesn't exist
-            File directory = new File(uploadDir);
-            if (!directory.exists()) {
-                directory.mkdirs();
-            }
-            
-            // Delete old profile picture if exists
-            if (currentUser.getProfilePicture() != null && !currentUser.getProfilePicture().isEmpty()) {
-                try {
-                    String oldFilePath = currentUser.getProfilePicture().replace("/uploads/", uploadDir + "/");
-                    Files.deleteIfExists(get(oldFilePath));
-                } catch (Exception e) {
-                    logger.warn("Failed to delete old profile picture: {}", e.getMessage());
-                }
-            }
-            
-            // Generate a unique filename
-            String filename = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-            Path filePath = Paths.get(uploadDir, filename);
-            
-            // Save the file
-            Files.copy(file.getInputStream(), filePath);
-            
-            // Update user profile picture
-            String fileUrl = "/uploads/" + filename;
-            currentUser.setProfilePicture(fileUrl);
-            
-            User updatedUser = userService.updateUser(currentUser.getId(), currentUser);
+            // Stored content-addressed; the previous picture's reference is released
+            User updatedUser = profilePictureService.replace(currentUser, file);
             
             if (updatedUser != null) {
-                Map<String, Object> response = new HashMap<>();
-                response.put("id", updatedUser.getId());
-                response.put("username", updatedUser.getUsername());
-                response.put("email", updatedUser.getEmail());
-                response.put("profilePicture", fileUrl);
-                response.put("message", "Profile picture updated successfully");
-                
+                // A picture seen before already has thumbnails; otherwise poll /{id}/profile-picture until ready
+                PictureUrls picture = profilePictureService.describe(updatedUser.getProfilePicture());
+                ProfilePictureResponse response = new ProfilePictureResponse(updatedUser.getId(), updatedUser.getUsername(),
+                        updatedUser.getEmail(), updatedUser.getProfilePicture(), picture.thumbnails(),
+                        picture.thumbnailsReady(), "Profile picture updated successfully");
                 return new ResponseEntity<>(response, HttpStatus.OK);
             } else {
                 return new ResponseEntity<>("Failed to update profile picture", HttpStatus.INTERNAL_SERVER_ERROR);
             }
+        } catch (UnsupportedImageTypeException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+        } catch (BlobTooLargeException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.PAYLOAD_TOO_LARGE);
         } catch (IOException e) {
             logger.error("Error uploading profile picture: {}", e.getMessage());
             return new ResponseEntity<>("Error uploading profile picture: " + e.getMessage(), 
@@ -305,11 +305,8 @@ public class UserController {
             return new ResponseEntity<>("User not found", HttpStatus.NOT_FOUND);
         }
     
-        Map<String, Object> response = new HashMap<>();
-        response.put("isOAuthUser", user.isOAuthUser());
-        response.put("hasSetPassword", user.getPasswordSetDate() != null);
-        response.put("oauthProvider", user.getOauthProvider());
-    
+        PasswordStatusResponse response = new PasswordStatusResponse(user.isOAuthUser(),
+                user.getPasswordSetDate() != null, user.getOauthProvider());
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
@@ -403,9 +400,9 @@ public ResponseEntity<?> confirmPasswordReset(@RequestBody Map<String, String> r
 
     // Search users by username
     @GetMapping("/search")
-    public ResponseEntity<?> searchUsers(@RequestParam String query) {
+    public ResponseEntity<?> searchUsers(@RequestParam String query, @RequestParam(defaultValue = "20") int limit) {
         try {
-            List<User> users = userService.searchUsersByUsername(query);
+            List<PublicUserDto> users = userService.searchUsersByUsername(query, Math.max(1, Math.min(limit, 100)));
             return ResponseEntity.ok(users);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to search users: " + e.getMessage());
@@ -436,11 +433,24 @@ public ResponseEntity<?> confirmPasswordReset(@RequestBody Map<String, String> r
     }
 
     // Get all usernames
+    // Served from a cached JSON snapshot with an ETag, or streamed from the database when caching is off
     @GetMapping("/allUsernames")
-    public ResponseEntity<?> getAllUsernames() {
+    public ResponseEntity<?> getAllUsernames(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            List<String> usernames = userService.getAllUsernames();
-            return ResponseEntity.ok(usernames);
+            if (!usernameDirectory.isCacheEnabled()) {
+                StreamingResponseBody body = usernameDirectory::writeTo;
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+            }
+
+            UsernameDirectory.Snapshot snapshot = usernameDirectory.snapshot();
+            if (snapshot.etag().equals(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.etag()).build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(snapshot.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(snapshot.json());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to fetch usernames: " + e.getMessage());
         }
@@ -464,7 +474,48 @@ public ResponseEntity<?> confirmPasswordReset(@RequestBody Map<String, String> r
             return new ResponseEntity<>("User not found", HttpStatus.NOT_FOUND);
         }
 
-        return ResponseEntity.ok(requestedUser);
+        return ResponseEntity.ok(UserDto.of(requestedUser));
+    }
+
+    // Profile picture URL with its thumbnails, once they have been generated
+    @GetMapping("/{id}/profile-picture")
+    public ResponseEntity<?> getProfilePicture(@PathVariable Long id) {
+        User user = userService.getUserById(id);
+        if (user == null) {
+            return new ResponseEntity<>("User not found", HttpStatus.NOT_FOUND);
+        }
+        PictureUrls picture = profilePictureService.describe(user.getProfilePicture());
+        if (picture == null) {
+            return new ResponseEntity<>("User has no profile picture", HttpStatus.NOT_FOUND);
+        }
+
+        return ResponseEntity.ok(picture);
+    }
+
+    // Users whose review ratings correlate with this user's, most similar first
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<?> getSimilarUsers(@PathVariable Long id, @RequestParam(defaultValue = "10") int limit) {
+        try {
+            List<SimilarUser> similar = tasteSimilarityService.getSimilarUsers(id, Math.max(1, Math.min(limit, 50)));
+
+            Map<Long, String> usernames = new HashMap<>();
+            for (User user : userService.getUsersByIds(similar.stream().map(SimilarUser::userId).toList())) {
+                usernames.put(user.getId(), user.getUsername());
+            }
+
+            List<SimilarUserEntry> users = new ArrayList<>(similar.size());
+            for (SimilarUser match : similar) {
+                String username = usernames.get(match.userId());
+                if (username == null) {
+                    continue; // user deleted since the index was refreshed
+                }
+                users.add(new SimilarUserEntry(match.userId(), username, match.similarity(), match.sharedGames()));
+            }
+
+            return ResponseEntity.ok(new SimilarUsersResponse("Similar users retrieved successfully", users, users.size()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new MessageResponse("Failed to get similar users: " + e.getMessage()));
+        }
     }
 
      // Delete user - admins or own user only
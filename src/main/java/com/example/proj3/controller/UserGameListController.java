@@ -1,8 +1,11 @@
 package com.example.proj3.controller;
 
+import com.example.proj3.model.GameListDto;
+import com.example.proj3.model.MessageResponse;
 import com.example.proj3.model.User;
 import com.example.proj3.model.UserGameList;
 import com.example.proj3.model.VideoGame;
+import com.example.proj3.service.GameResolver;
 import com.example.proj3.service.UserGameListService;
 import com.example.proj3.service.VideoGameService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,9 +17,7 @@ import com.example.proj3.repository.UserRepository;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -35,6 +36,12 @@ public class UserGameListController {
         this.videoGameService = videoGameService;
     }
 
+    public record ListResponse(String message, GameListDto list) {
+    }
+
+    public record ListsResponse(String message, List<GameListDto> lists) {
+    }
+
     //create lists
     @PostMapping("/createList")
     public ResponseEntity<?> createList(
@@ -42,9 +49,7 @@ public class UserGameListController {
             @AuthenticationPrincipal UserDetails userDetails) {
 
         if (name == null || name.trim().isEmpty()) {
-            Map<String, String> response = new HashMap<>();
-            response.put("message", "List name cannot be empty");
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new MessageResponse("List name cannot be empty"));
         }
 
         try {
@@ -52,14 +57,10 @@ public class UserGameListController {
                     .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
             UserGameList newList = listService.createList(name, user);
-            Map<String, Object> response = new HashMap<>();
-            response.put("message", "List created successfully");
-            response.put("list", newList);
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(new ListResponse("List created successfully", GameListDto.of(newList)));
         } catch (Exception e) {
-            Map<String, String> response = new HashMap<>();
-            response.put("message", "Failed to create list: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new MessageResponse("Failed to create list: " + e.getMessage()));
         }
     }
 
@@ -69,15 +70,10 @@ public class UserGameListController {
         try {
             Optional<User> userOpt = userRepository.findByUsername(userDetails.getUsername());
             User user = userOpt.orElseThrow(() -> new UsernameNotFoundException("User not found"));
-            List<UserGameList> lists = listService.getUserLists(user);
-            Map<String, Object> response = new HashMap<>();
-            response.put("message", "Lists retrieved successfully");
-            response.put("lists", lists);
-            return ResponseEntity.ok(response);
+            List<GameListDto> lists = GameListDto.of(listService.getUserLists(user));
+            return ResponseEntity.ok(new ListsResponse("Lists retrieved successfully", lists));
         } catch (Exception e) {
-            Map<String, String> response = new HashMap<>();
-            response.put("message", "Failed to retrieve lists: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new MessageResponse("Failed to retrieve lists: " + e.getMessage()));
         }
     }
 
@@ -85,28 +81,28 @@ public class UserGameListController {
     @PostMapping("addGame/{listId}/games/{gameId}")
     public ResponseEntity<?> addGameToList(
             @PathVariable Long listId,
-            @PathVariable Long gameId) {
+            @PathVariable Long gameId,
+            @RequestParam(defaultValue = "auto") String idType) {
 
+        GameResolver.IdType type;
         try {
+            type = GameResolver.IdType.parse(idType);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new MessageResponse("idType must be local, rawg or auto"));
+        }
 
-            listService.addGameToList(listId, gameId);
+        try {
 
-            Map<String, String> response = new HashMap<>();
-            response.put("message", "Game added to list successfully");
-            return ResponseEntity.status(HttpStatus.OK).body(response);
+            listService.addGameToList(listId, gameId, type);
+            return ResponseEntity.status(HttpStatus.OK).body(new MessageResponse("Game added to list successfully"));
         } catch (RuntimeException e) {
-            Map<String, String> response = new HashMap<>();
-
             // Check message to determine the appropriate status code
             if (e.getMessage().contains("List not found")) {
-                response.put("message", "List not found");
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new MessageResponse("List not found"));
             } else if (e.getMessage().contains("Game not found")) {
-                response.put("message", "Game not found");
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new MessageResponse("Game not found"));
             } else {
-                response.put("message", "Failed to add game to list: " + e.getMessage());
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new MessageResponse("Failed to add game to list: " + e.getMessage()));
             }
         }
     }
@@ -120,20 +116,13 @@ public class UserGameListController {
         try {
 
             listService.removeGameFromList(listId, gameId);
-
-            Map<String, String> response = new HashMap<>();
-            response.put("message", "Game removed from list successfully");
-            return ResponseEntity.status(HttpStatus.OK).body(response);
+            return ResponseEntity.status(HttpStatus.OK).body(new MessageResponse("Game removed from list successfully"));
         } catch (RuntimeException e) {
-            Map<String, String> response = new HashMap<>();
-
             // Check message to determine the appropriate status code
             if (e.getMessage().contains("List not found")) {
-                response.put("message", "List not found");
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new MessageResponse("List not found"));
             } else {
-                response.put("message", "Failed to remove game from list: " + e.getMessage());
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new MessageResponse("Failed to remove game from list: " + e.getMessage()));
             }
         }
     }
@@ -144,20 +133,16 @@ public class UserGameListController {
             @PathVariable Long listId,
             @AuthenticationPrincipal UserDetails userDetails) {
 
-        Map<String, String> response = new HashMap<>();
-
         Optional<User> optionalUser = userRepository.findByUsername(userDetails.getUsername());
         if (!optionalUser.isPresent()) {
-            response.put("message", "User not found");
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("User not found"));
         }
 
         try {
             listService.deleteList(listId, optionalUser.get());
-            response.put("message", "List deleted successfully");
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(new MessageResponse("List deleted successfully"));
         } catch (RuntimeException e) {
-            response.put("message", e.getMessage());
+            MessageResponse response = new MessageResponse(e.getMessage());
 
             if (e.getMessage().contains("List not found")) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
@@ -1,17 +1,25 @@
 package com.example.proj3.controller;
 
+import com.example.proj3.model.GameDto;
+import com.example.proj3.model.MessageResponse;
 import com.example.proj3.model.VideoGame;
 import com.example.proj3.service.VideoGameService;
+import com.example.proj3.service.GameSimilarityService;
+import com.example.proj3.service.GameSimilarityService.SimilarGame;
 import com.example.proj3.service.RawgApiService;
+import com.example.proj3.service.RawgApiService.RawgPage;
+import com.example.proj3.service.RawgUnavailableException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/games")
@@ -19,68 +27,96 @@ public class VideoGameController {
 
     private final VideoGameService videoGameService;
     private final RawgApiService rawgApiService;
+    private final GameSimilarityService gameSimilarityService;
 
     @Autowired
-    public VideoGameController(VideoGameService videoGameService, RawgApiService rawgApiService) {
+    public VideoGameController(VideoGameService videoGameService, RawgApiService rawgApiService,
+                               GameSimilarityService gameSimilarityService) {
         this.videoGameService = videoGameService;
         this.rawgApiService = rawgApiService;
+        this.gameSimilarityService = gameSimilarityService;
+    }
+
+    public record GamesResponse(String message, List<GameDto> games, int count) {
+    }
+
+    public record GameResponse(String message, GameDto game) {
+    }
+
+    public record SimilarGameEntry(GameDto game, double similarity) {
+    }
+
+    public record SimilarGamesResponse(String message, List<SimilarGameEntry> games, int count) {
+    }
+
+    public record RawgPageResponse(List<GameDto> games, int totalPages) {
     }
 
     //gets all games
     @GetMapping("/all")
     public ResponseEntity<?> getAllGames() {
-        Map<String, Object> response = new HashMap<>();
-
         try {
-            List<VideoGame> games = videoGameService.getAllGames();
-
-            response.put("message", "Games retrieved successfully");
-            response.put("games", games);
-            response.put("count", games.size());
-            return ResponseEntity.ok(response);
+            List<GameDto> games = GameDto.of(videoGameService.getAllGames());
+            return ResponseEntity.ok(new GamesResponse("Games retrieved successfully", games, games.size()));
         } catch (Exception e) {
-            response.put("message", "Failed to retrieve games: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new MessageResponse("Failed to retrieve games: " + e.getMessage()));
         }
     }
 
     //get a game by its id
     @GetMapping("/getGameById/{id}")
     public ResponseEntity<?> getGameById(@PathVariable Long id) {
-        Map<String, Object> response = new HashMap<>();
         try {
             System.out.println("Fetching game with ID: " + id); // Debugging log
             Optional<VideoGame> gameOpt = videoGameService.findById(id);
 
             if (gameOpt.isPresent()) {
-                response.put("message", "Game retrieved successfully");
-                response.put("game", gameOpt.get());
-                return ResponseEntity.ok(response);
+                return ResponseEntity.ok(new GameResponse("Game retrieved successfully", GameDto.of(gameOpt.get())));
             } else {
                 System.out.println("Game not found for ID: " + id); // Debugging log
-                response.put("message", "Game not found");
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new MessageResponse("Game not found"));
             }
         } catch (Exception e) {
             System.out.println("Error fetching game: " + e.getMessage()); // Debugging log
-            response.put("message", "Failed to retrieve game: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new MessageResponse("Failed to retrieve game: " + e.getMessage()));
+        }
+    }
+
+    //gets games with the most genres in common, served from the precomputed table
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<?> getSimilarGames(@PathVariable Long id, @RequestParam(defaultValue = "10") int limit) {
+        try {
+            List<SimilarGame> similar = gameSimilarityService.getSimilarGames(id, Math.max(1, Math.min(limit, 50)));
+            Map<Long, VideoGame> gamesById = videoGameService.findAllById(similar.stream().map(SimilarGame::gameId).toList())
+                    .stream()
+                    .collect(Collectors.toMap(VideoGame::getId, Function.identity()));
+
+            List<SimilarGameEntry> games = new ArrayList<>(similar.size());
+            for (SimilarGame match : similar) {
+                VideoGame game = gamesById.get(match.gameId());
+                if (game != null) {
+                    games.add(new SimilarGameEntry(GameDto.of(game), match.similarity()));
+                }
+            }
+
+            return ResponseEntity.ok(new SimilarGamesResponse("Similar games retrieved successfully", games, games.size()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new MessageResponse("Failed to retrieve similar games: " + e.getMessage()));
         }
     }
 
     //creates or update game in db
     @PostMapping("/createOrUpdateGame")
     public ResponseEntity<?> createOrUpdateGame(@RequestBody VideoGame game) {
-        Map<String, Object> response = new HashMap<>();
-
         if (game == null) {
-            response.put("message", "Game data cannot be empty");
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new MessageResponse("Game data cannot be empty"));
         }
 
         if (game.getRawgId() == null) {
-            response.put("message", "RAWG ID is required");
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new MessageResponse("RAWG ID is required"));
         }
 
         try {
@@ -89,12 +125,11 @@ public class VideoGameController {
             boolean isNewGame = game.getId() == null;
             String message = isNewGame ? "Game created successfully" : "Game updated successfully";
 
-            response.put("message", message);
-            response.put("game", savedGame);
-            return ResponseEntity.status(isNewGame ? HttpStatus.CREATED : HttpStatus.OK).body(response);
+            return ResponseEntity.status(isNewGame ? HttpStatus.CREATED : HttpStatus.OK)
+                    .body(new GameResponse(message, GameDto.of(savedGame)));
         } catch (Exception e) {
-            response.put("message", "Failed to save game: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new MessageResponse("Failed to save game: " + e.getMessage()));
         }
     }
 
@@ -105,17 +140,14 @@ public class VideoGameController {
     ) {
 
         try {
-            // Fetch games from RAWG API
-            List<VideoGame> games = rawgApiService.fetchGamesFromRawg(page, pageSize);
-            int totalGames = rawgApiService.getTotalGames(); // Total number of games
-            int totalPages = (int) Math.ceil((double) totalGames / pageSize);
-
-            // Prepare response
-            Map<String, Object> response = new HashMap<>();
-            response.put("games", games);
-            response.put("totalPages", totalPages);
-
-            return ResponseEntity.ok(response);
+            // The page carries the total count, so one RAWG call is enough
+            RawgPage rawgPage = rawgApiService.fetchPage(page, pageSize);
+            int totalPages = (int) Math.ceil((double) rawgPage.count() / pageSize);
+
+            List<VideoGame> games = videoGameService.linkLocalIds(rawgPage.toVideoGames());
+            return ResponseEntity.ok(new RawgPageResponse(GameDto.of(games), totalPages));
+        } catch (RawgUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Error fetching games: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error fetching games: " + e.getMessage());
         }
@@ -125,8 +157,10 @@ public class VideoGameController {
     @GetMapping("/search")
     public ResponseEntity<?> searchGames(@RequestParam String query) {
         try {
-            List<VideoGame> games = rawgApiService.searchGames(query);
-            return ResponseEntity.ok(games);
+            List<VideoGame> games = videoGameService.linkLocalIds(rawgApiService.searchGames(query));
+            return ResponseEntity.ok(GameDto.of(games));
+        } catch (RawgUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Failed to search games: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to search games: " + e.getMessage());
         }
@@ -0,0 +1,26 @@
+package com.example.proj3.mail;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Transport for local development only: logs that an email would have been sent instead of
+ * sending it. Only the recipient and subject are logged, never the body, since bodies carry
+ * secrets such as password reset links. Needs the {@code dev} profile and
+ * {@code mail.transport=log}.
+ */
+@Component
+@Profile("dev")
+@ConditionalOnProperty(name = "mail.transport", havingValue = "log")
+public class LoggingMailTransport implements MailTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoggingMailTransport.class);
+
+    @Override
+    public void send(String to, String subject, String body) {
+        logger.info("Email to {} - {} (body not logged, {} chars)", to, subject, body == null ? 0 : body.length());
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.proj3.mail;
+
+/**
+ * Delivers one email. Implementations are picked with {@code mail.transport}.
+ */
+public interface MailTransport {
+
+    /**
+     * Sends the message, blocking until the server accepts it.
+     *
+     * @throws Exception if delivery failed; the outbox will retry it later
+     */
+    void send(String to, String subject, String body) throws Exception;
+}
@@ -0,0 +1,36 @@
+package com.example.proj3.mail;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+/**
+ * Default transport: sends through the SMTP server configured with the standard
+ * {@code spring.mail.*} properties. Pointing those at a local SMTP stand-in exercises the
+ * whole delivery path without a real mail server.
+ */
+@Component
+@ConditionalOnProperty(name = "mail.transport", havingValue = "smtp", matchIfMissing = true)
+public class SmtpMailTransport implements MailTransport {
+
+    private final JavaMailSender mailSender;
+
+    @Value("${mail.from:no-reply@localhost}")
+    private String from;
+
+    public SmtpMailTransport(JavaMailSender mailSender) {
+        this.mailSender = mailSender;
+    }
+
+    @Override
+    public void send(String to, String subject, String body) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(from);
+        message.setTo(to);
+        message.setSubject(subject);
+        message.setText(body);
+        mailSender.send(message);
+    }
+}
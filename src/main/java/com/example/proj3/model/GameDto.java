@@ -0,0 +1,22 @@
+package com.example.proj3.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JSON view of a VideoGame, with the same fields the entity serialized to.
+ */
+public record GameDto(Long id, String title, String genre, String imageUrl, String rawgId) {
+
+    public static GameDto of(VideoGame game) {
+        return new GameDto(game.getId(), game.getTitle(), game.getGenre(), game.getImageUrl(), game.getRawgId());
+    }
+
+    public static List<GameDto> of(List<VideoGame> games) {
+        List<GameDto> dtos = new ArrayList<>(games.size());
+        for (VideoGame game : games) {
+            dtos.add(of(game));
+        }
+        return dtos;
+    }
+}
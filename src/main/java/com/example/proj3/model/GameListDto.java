@@ -0,0 +1,24 @@
+package com.example.proj3.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JSON view of a UserGameList with its games. The owner is reduced to their public fields.
+ */
+public record GameListDto(Long id, String name, PublicUserDto user, List<GameDto> videoGames) {
+
+    public static GameListDto of(UserGameList list) {
+        List<VideoGame> games = list.getVideoGames();
+        return new GameListDto(list.getId(), list.getName(), PublicUserDto.of(list.getUser()),
+                games == null ? List.of() : GameDto.of(games));
+    }
+
+    public static List<GameListDto> of(List<UserGameList> lists) {
+        List<GameListDto> dtos = new ArrayList<>(lists.size());
+        for (UserGameList list : lists) {
+            dtos.add(of(list));
+        }
+        return dtos;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.proj3.model;
+
+/**
+ * Response body that only carries a message, used for errors and simple acknowledgements.
+ */
+public record MessageResponse(String message) {
+}
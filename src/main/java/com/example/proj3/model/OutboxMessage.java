@@ -0,0 +1,155 @@
+package com.example.proj3.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * An email waiting to be sent. Written in the same transaction as the change that caused
+ * it and delivered later by OutboxDispatcher, so a crash can delay an email but not lose it.
+ *
+ * The body is cleared as soon as the message is sent or given up on. Bodies can carry
+ * secrets such as password reset links, and the row itself is kept for a while afterwards.
+ */
+@Entity
+@Table(name = "outbox_messages", indexes = {
+        @Index(name = "idx_outbox_due", columnList = "status, nextAttemptAt")
+})
+public class OutboxMessage {
+
+    public enum Status {
+        PENDING,
+        SENT,
+        FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 50)
+    private String type;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    @Column(nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    private Instant sentAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    public OutboxMessage() {
+    }
+
+    public OutboxMessage(String type, String recipient, String subject, String body) {
+        this.type = type;
+        this.recipient = recipient;
+        this.subject = subject;
+        this.body = body;
+        this.createdAt = Instant.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getSentAt() {
+        return sentAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Leases the message to one dispatcher: it is not due again before {@code until}, so
+     * other instances skip it while it is being sent, and it is retried if the sender
+     * dies before recording the outcome.
+     */
+    public void claim(Instant until) {
+        this.nextAttemptAt = until;
+    }
+
+    public void markSent(Instant when) {
+        this.status = Status.SENT;
+        this.sentAt = when;
+        this.lastError = null;
+        this.body = "";
+    }
+
+    /**
+     * Records a failed delivery and schedules the next attempt, or gives up if there is none.
+     *
+     * @param nextAttempt When to retry, or null to mark the message FAILED
+     */
+    public void markFailed(String error, Instant nextAttempt) {
+        this.attempts++;
+        this.lastError = error == null || error.length() <= 1000 ? error : error.substring(0, 1000);
+        if (nextAttempt == null) {
+            this.status = Status.FAILED;
+            this.body = "";
+        } else {
+            this.nextAttemptAt = nextAttempt;
+        }
+    }
+}
@@ -2,23 +2,32 @@ package com.example.proj3.model;
 
 import java.util.Date;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
 
+// Only the SHA-256 of the emailed token is stored; lookups hit the unique hash index
 @Entity
+@Table(name = "password_reset_token", indexes = {
+        @Index(name = "idx_reset_token_hash", columnList = "tokenHash", unique = true),
+        @Index(name = "idx_reset_token_expiry", columnList = "expiryDate")
+})
 public class PasswordResetToken {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    private String token;
+    @Column(length = 64)
+    private String tokenHash;
     
     @OneToOne(targetEntity = User.class, fetch = FetchType.EAGER)
     @JoinColumn(nullable = false, name = "user_id")
@@ -31,10 +40,10 @@ public class PasswordResetToken {
     public PasswordResetToken() {
     }
     
-    // Constructor with user and token
-    public PasswordResetToken(User user, String token, Date expiryDate) {
+    // Constructor with user and token hash
+    public PasswordResetToken(User user, String tokenHash, Date expiryDate) {
         this.user = user;
-        this.token = token;
+        this.tokenHash = tokenHash;
         this.expiryDate = expiryDate;
     }
     
@@ -47,12 +56,12 @@ public class PasswordResetToken {
         this.id = id;
     }
 
-    public String getToken() {
-        return token;
+    public String getTokenHash() {
+        return tokenHash;
     }
 
-    public void setToken(String token) {
-        this.token = token;
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
     }
 
     public User getUser() {
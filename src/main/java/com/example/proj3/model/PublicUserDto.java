@@ -0,0 +1,11 @@
+package com.example.proj3.model;
+
+/**
+ * What other users see of a user, e.g. as the author of a review or owner of a list.
+ */
+public record PublicUserDto(Long id, String username, String profilePicture) {
+
+    public static PublicUserDto of(User user) {
+        return user == null ? null : new PublicUserDto(user.getId(), user.getUsername(), user.getProfilePicture());
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.proj3.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * RAWG requests made in one calendar month (UTC) by every instance sharing the API key.
+ * A new month starts a new row, so nothing has to be reset.
+ */
+@Entity
+@Table(name = "rawg_quota_usage")
+public class RawgQuotaUsage {
+    // e.g. "2026-10"
+    @Id
+    @Column(length = 7)
+    private String period;
+
+    @Column(nullable = false)
+    private long requests;
+
+    public RawgQuotaUsage() {
+    }
+
+    public RawgQuotaUsage(String period, long requests) {
+        this.period = period;
+        this.requests = requests;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+}
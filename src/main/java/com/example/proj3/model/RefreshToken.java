@@ -0,0 +1,97 @@
+package com.example.proj3.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * A refresh token, stored only as its SHA-256 hash.
+ *
+ * Every token issued from one login shares a family ID. Each refresh revokes the presented
+ * token and issues the next one in the family, so presenting a revoked token means it was
+ * copied, and the whole family is revoked. A rotated token records when it was rotated and
+ * which token replaced it, for the short grace window RefreshTokenService allows.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_token_hash", columnList = "tokenHash", unique = true),
+        @Index(name = "idx_refresh_token_family", columnList = "familyId"),
+        @Index(name = "idx_refresh_token_expires", columnList = "expiresAt")
+})
+public class RefreshToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String tokenHash;
+
+    @Column(nullable = false, length = 36)
+    private String familyId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    @Column(nullable = false)
+    private boolean revoked = false;
+
+    // Set when a refresh replaced this token; null if it was never rotated
+    private Instant rotatedAt;
+
+    private Long replacedById;
+
+    public RefreshToken() {
+    }
+
+    public RefreshToken(String tokenHash, String familyId, Long userId, Instant expiresAt) {
+        this.tokenHash = tokenHash;
+        this.familyId = familyId;
+        this.userId = userId;
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public String getFamilyId() {
+        return familyId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isRevoked() {
+        return revoked;
+    }
+
+    public Instant getRotatedAt() {
+        return rotatedAt;
+    }
+
+    public Long getReplacedById() {
+        return replacedById;
+    }
+
+    public boolean isExpired() {
+        return expiresAt.isBefore(Instant.now());
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.proj3.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JSON view of a Review. The author is reduced to their public fields.
+ */
+public record ReviewDto(Long id, PublicUserDto user, GameDto videoGame, int rating, String comment) {
+
+    public static ReviewDto of(Review review) {
+        return new ReviewDto(review.getId(), PublicUserDto.of(review.getUser()),
+                review.getVideoGame() == null ? null : GameDto.of(review.getVideoGame()),
+                review.getRating(), review.getComment());
+    }
+
+    public static List<ReviewDto> of(List<Review> reviews) {
+        List<ReviewDto> dtos = new ArrayList<>(reviews.size());
+        for (Review review : reviews) {
+            dtos.add(of(review));
+        }
+        return dtos;
+    }
+}
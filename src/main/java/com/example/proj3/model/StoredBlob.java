@@ -0,0 +1,148 @@
+package com.example.proj3.model;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Reference count for a blob in the BlobStore. A blob whose count has stayed at zero for
+ * the grace period is deleted together with this row. Also records the keys of the
+ * thumbnails generated from the blob; each thumbnail has a row of its own.
+ */
+@Entity
+@Table(name = "stored_blobs", indexes = {
+        @Index(name = "idx_stored_blob_key", columnList = "blobKey", unique = true),
+        @Index(name = "idx_stored_blob_orphans", columnList = "refCount, updatedAt"),
+        @Index(name = "idx_stored_blob_thumbnails", columnList = "thumbnailState")
+})
+public class StoredBlob {
+
+    public enum ThumbnailState {
+        PENDING,
+        READY,
+        FAILED,
+        // The blob is itself a thumbnail, referenced once per original that uses it
+        DERIVED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String blobKey;
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private long sizeBytes;
+
+    @Column(nullable = false, length = 50)
+    private String contentType;
+
+    @Column(nullable = false)
+    private int refCount;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private ThumbnailState thumbnailState = ThumbnailState.PENDING;
+
+    // "size:key" pairs separated by commas, e.g. "32:ab/cd/...jpg,64:..."
+    @Column(length = 600)
+    private String thumbnailKeys;
+
+    public StoredBlob() {
+    }
+
+    public StoredBlob(String blobKey, String sha256, long sizeBytes, String contentType) {
+        this.blobKey = blobKey;
+        this.sha256 = sha256;
+        this.sizeBytes = sizeBytes;
+        this.contentType = contentType;
+        this.refCount = 1;
+        this.createdAt = Instant.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getBlobKey() {
+        return blobKey;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public int getRefCount() {
+        return refCount;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public ThumbnailState getThumbnailState() {
+        return thumbnailState;
+    }
+
+    public void setThumbnailState(ThumbnailState thumbnailState) {
+        this.thumbnailState = thumbnailState;
+    }
+
+    /**
+     * @return Thumbnail keys by edge length in pixels, smallest first; empty until READY
+     */
+    public Map<Integer, String> getThumbnails() {
+        Map<Integer, String> thumbnails = new LinkedHashMap<>();
+        if (thumbnailKeys != null && !thumbnailKeys.isEmpty()) {
+            for (String entry : thumbnailKeys.split(",")) {
+                int colon = entry.indexOf(':');
+                thumbnails.put(Integer.parseInt(entry.substring(0, colon)), entry.substring(colon + 1));
+            }
+        }
+        return thumbnails;
+    }
+
+    public void setThumbnails(Map<Integer, String> thumbnails) {
+        StringBuilder keys = new StringBuilder();
+        thumbnails.forEach((size, key) -> {
+            if (keys.length() > 0) {
+                keys.append(',');
+            }
+            keys.append(size).append(':').append(key);
+        });
+        this.thumbnailKeys = keys.toString();
+    }
+}
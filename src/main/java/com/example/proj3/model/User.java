@@ -1,4 +1,6 @@
 package com.example.proj3.model;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -44,6 +46,11 @@ public class User {
     @Column(nullable = true)
     private String passwordSetDate;
 
+    // Signed into every JWT; bumping it invalidates the user's outstanding tokens
+    @JsonIgnore
+    @Column(nullable = false)
+    private int tokenVersion = 0;
+
     // Getters and Setters
 
     public Long getId() {
@@ -121,4 +128,16 @@ public class User {
     public boolean hasSetPassword() {
         return passwordSetDate != null;
     }
-}
\ No newline at end of file
+
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(int tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
+    public void incrementTokenVersion() {
+        this.tokenVersion++;
+    }
+}
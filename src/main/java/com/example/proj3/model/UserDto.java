@@ -0,0 +1,14 @@
+package com.example.proj3.model;
+
+/**
+ * A user's account details, for the user themselves and for admins. Never includes the
+ * password hash or token version.
+ */
+public record UserDto(Long id, String username, String email, boolean admin, String profilePicture,
+                      boolean oauthUser, String oauthProvider, String passwordSetDate) {
+
+    public static UserDto of(User user) {
+        return new UserDto(user.getId(), user.getUsername(), user.getEmail(), user.isAdmin(), user.getProfilePicture(),
+                user.isOAuthUser(), user.getOauthProvider(), user.getPasswordSetDate());
+    }
+}
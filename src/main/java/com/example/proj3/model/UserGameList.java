@@ -1,5 +1,8 @@
 package com.example.proj3.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -32,7 +35,9 @@ public class UserGameList {
     @JoinColumn(name = "user_id")
     private User user;
 
+    // Caches the game IDs; the games themselves come from the VideoGame cache
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "userGameListGames")
     private List<VideoGame> videoGames;
 
     public UserGameList() {
@@ -0,0 +1,14 @@
+package com.example.proj3.model;
+
+/**
+ * Lightweight, read-only view of a user for listings and search results.
+ * Never carries the password hash or any association.
+ */
+public record UserSummary(Long id, String username, String email, boolean admin,
+                          boolean oauthUser, String oauthProvider) {
+
+    public static UserSummary of(User user) {
+        return new UserSummary(user.getId(), user.getUsername(), user.getEmail(), user.isAdmin(),
+                user.isOAuthUser(), user.getOauthProvider());
+    }
+}
@@ -1,10 +1,15 @@
 package com.example.proj3.model;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -13,7 +18,12 @@ import jakarta.persistence.ManyToOne;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.JoinColumn;
 
+// One row per RAWG game, also when several instances fetch it at once. Rows are written
+// once from RAWG and rarely changed, so reads are served from the second-level cache
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_video_game_rawg_id", columnNames = "rawgId"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "videoGames")
 public class VideoGame {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -4,7 +4,6 @@ import java.io.IOException;
 import java.security.SecureRandom;
 
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.core.user.OAuth2User;
@@ -86,10 +85,7 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
             }
             
             // Generate JWT token
-            UserDetails userDetails = userDetailsService.loadUserByUsername(user.getUsername());
-            System.out.println("UserDetails loaded for: " + user.getUsername());
-            
-            String token = jwtUtil.generateToken(userDetails);
+            String token = jwtUtil.generateToken(user);
             System.out.println("JWT token generated successfully");
             
             // Redirect to frontend with token
@@ -0,0 +1,44 @@
+package com.example.proj3.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.proj3.model.OutboxMessage;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    // Locks the batch with SKIP LOCKED (timeout -2), so several instances never send the same message
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT m FROM OutboxMessage m WHERE m.status = com.example.proj3.model.OutboxMessage.Status.PENDING "
+            + "AND m.nextAttemptAt <= :now ORDER BY m.nextAttemptAt")
+    List<OutboxMessage> lockDue(@Param("now") Instant now, Pageable pageable);
+
+    @Query("SELECT COUNT(m) FROM OutboxMessage m WHERE m.status = com.example.proj3.model.OutboxMessage.Status.PENDING")
+    long countPending();
+
+    // Empties bodies of finished messages written before bodies were cleared on send
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE outbox_messages SET body = '' WHERE status <> 'PENDING' AND body <> ''", nativeQuery = true)
+    int clearFinishedBodies();
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM outbox_messages WHERE status = 'SENT' AND sent_at < :cutoff LIMIT :batchSize", nativeQuery = true)
+    int deleteSentBatch(@Param("cutoff") Instant cutoff, @Param("batchSize") int batchSize);
+}
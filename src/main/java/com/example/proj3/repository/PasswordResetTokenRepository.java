@@ -1,13 +1,25 @@
 package com.example.proj3.repository;
 
+import java.util.Date;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.proj3.model.PasswordResetToken;
 import com.example.proj3.model.User;
 
 @Repository
 public interface PasswordResetTokenRepository extends JpaRepository<PasswordResetToken, Long> {
-    PasswordResetToken findByToken(String token);
+    PasswordResetToken findByTokenHash(String tokenHash);
     PasswordResetToken findByUser(User user);
-}
\ No newline at end of file
+
+    // MySQL DELETE ... LIMIT keeps each purge transaction and its row locks small
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM password_reset_token WHERE expiry_date < :now LIMIT :batchSize", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") Date now, @Param("batchSize") int batchSize);
+}
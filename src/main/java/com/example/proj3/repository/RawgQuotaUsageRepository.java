@@ -0,0 +1,22 @@
+package com.example.proj3.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.proj3.model.RawgQuotaUsage;
+
+@Repository
+public interface RawgQuotaUsageRepository extends JpaRepository<RawgQuotaUsage, String> {
+    // Returns 0 if the month has no row yet
+    @Modifying
+    @Query("UPDATE RawgQuotaUsage q SET q.requests = q.requests + :requests WHERE q.period = :period")
+    int addRequests(@Param("period") String period, @Param("requests") long requests);
+
+    @Query("SELECT q.requests FROM RawgQuotaUsage q WHERE q.period = :period")
+    Optional<Long> findRequests(@Param("period") String period);
+}
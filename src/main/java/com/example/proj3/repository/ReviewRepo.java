@@ -1,9 +1,12 @@
 package com.example.proj3.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import com.example.proj3.model.Review;
 import com.example.proj3.model.VideoGame;
@@ -11,9 +14,15 @@ import com.example.proj3.model.User;
 
 @Repository
 public interface ReviewRepo extends JpaRepository<Review, Long> {
+    @EntityGraph(attributePaths = {"user", "videoGame"}) // one join instead of a select per reviewer
     List<Review> findByVideoGame(VideoGame videoGame); // Find all reviews for a specific game
     List<Review> findByUser(User user); // Find all reviews by a specific user
     Optional<Review> findByUserAndVideoGame(User user, VideoGame videoGame); // to prevent duplicate reviews
+    @EntityGraph(attributePaths = {"user", "videoGame"})
     List<Review> findByUserId(Long userId); // Find all reviews by a specific user
+    List<Review> findByVideoGameIn(Collection<VideoGame> videoGames);
+
+    @Query("SELECT r.user.id, r.videoGame.id, r.rating FROM Review r")
+    List<Object[]> findAllRatings(); // (userId, gameId, rating) triples for the similarity index
 
 }
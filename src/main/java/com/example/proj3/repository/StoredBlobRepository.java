@@ -0,0 +1,48 @@
+package com.example.proj3.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.proj3.model.StoredBlob;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, Long> {
+    Optional<StoredBlob> findByBlobKey(String blobKey);
+
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount + 1, b.updatedAt = :now WHERE b.blobKey = :key")
+    int incrementRefCount(@Param("key") String key, @Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount - 1, b.updatedAt = :now WHERE b.blobKey = :key AND b.refCount > 0")
+    int decrementRefCount(@Param("key") String key, @Param("now") Instant now);
+
+    // Row-locked so a concurrent upload of the same content waits until the blob is gone
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT b FROM StoredBlob b WHERE b.refCount = 0 AND b.updatedAt < :cutoff ORDER BY b.updatedAt")
+    List<StoredBlob> lockOrphans(@Param("cutoff") Instant cutoff, Pageable pageable);
+
+    // Originals still waiting for thumbnails, oldest first; picks up jobs lost to a full queue or restart
+    @Query("SELECT b.blobKey FROM StoredBlob b WHERE (b.thumbnailState IS NULL "
+            + "OR b.thumbnailState = com.example.proj3.model.StoredBlob.ThumbnailState.PENDING) "
+            + "AND b.refCount > 0 ORDER BY b.createdAt")
+    List<String> findPendingThumbnailKeys(Pageable pageable);
+
+    @Query("SELECT b.blobKey FROM StoredBlob b WHERE b.blobKey IN :keys")
+    List<String> findExistingKeys(@Param("keys") Collection<String> keys);
+}
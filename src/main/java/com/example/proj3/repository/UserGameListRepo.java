@@ -1,16 +1,25 @@
 package com.example.proj3.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.example.proj3.model.User;
 import com.example.proj3.model.UserGameList;
+import com.example.proj3.model.VideoGame;
 
 @Repository
 public interface UserGameListRepo extends JpaRepository<UserGameList, Long> {
+    @EntityGraph(attributePaths = "videoGames") // the list DTOs include every game
     List<UserGameList> findByUser(User user); // get all lists for a user
 
     Optional<UserGameList> findByIdAndUser(Long id, User user); // secure fetching
+
+    @Query("SELECT DISTINCT l FROM UserGameList l JOIN l.videoGames g WHERE g IN :games")
+    List<UserGameList> findContainingAny(@Param("games") Collection<VideoGame> games);
 }
@@ -1,14 +1,26 @@
 package com.example.proj3.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
+import java.util.stream.Stream;
 import com.example.proj3.model.User;
+import com.example.proj3.model.UserSummary;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
     List<User> findAll();
 
     Optional<User> findByUsername(String username);
@@ -22,4 +34,44 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByIsAdminTrue();
 
     List<User> findByUsernameContainingIgnoreCase(String query);
+
+    @Query("SELECT new com.example.proj3.model.UserSummary(u.id, u.username, u.email, u.isAdmin, u.isOAuthUser, u.oauthProvider) FROM User u")
+    List<UserSummary> findAllSummaries();
+
+    @Query("SELECT u.username FROM User u")
+    List<String> findAllUsernames();
+
+    // Row lock for read-modify-write of a single column, e.g. swapping the profile picture
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.id = :id")
+    Optional<User> lockById(@Param("id") Long id);
+
+    // Rows are [id, profilePicture]; the search index does not hold pictures
+    @Query("SELECT u.id, u.profilePicture FROM User u WHERE u.id IN :ids")
+    List<Object[]> findProfilePictures(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT u.profilePicture FROM User u WHERE u.profilePicture IN :urls")
+    List<String> findReferencedPictures(@Param("urls") Collection<String> urls);
+
+    // Rows are [id, tokenVersion]; users still on version 0 are left out
+    @Query("SELECT u.id, u.tokenVersion FROM User u WHERE u.tokenVersion > 0")
+    List<Object[]> findRaisedTokenVersions();
+
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+    // Username-only projection, read in fetch-size chunks; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("SELECT u.username FROM User u ORDER BY u.username")
+    Stream<String> streamAllUsernames();
+
+    // Database fallback for UserSearchIndex while the in-memory index is loading
+    @Query(value = "SELECT new com.example.proj3.model.UserSummary(u.id, u.username, u.email, u.isAdmin, u.isOAuthUser, u.oauthProvider) FROM User u "
+            + "WHERE LOWER(u.username) LIKE CONCAT('%', :query, '%') "
+            + "OR (:includeEmail = true AND LOWER(u.email) LIKE CONCAT('%', :query, '%'))",
+           countQuery = "SELECT COUNT(u) FROM User u "
+            + "WHERE LOWER(u.username) LIKE CONCAT('%', :query, '%') "
+            + "OR (:includeEmail = true AND LOWER(u.email) LIKE CONCAT('%', :query, '%'))")
+    Page<UserSummary> searchSummaries(@Param("query") String query, @Param("includeEmail") boolean includeEmail,
+                                      Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.example.proj3.repository;
+
+import java.util.List;
+
+import com.example.proj3.model.UserSummary;
+
+/**
+ * Keyset-paginated, filtered user listing for the admin dashboard.
+ * Implemented by {@link UserRepositoryImpl}.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Optional listing filters; a null field means "don't filter on this".
+     */
+    record UserFilter(Boolean admin, Boolean oauthUser, String oauthProvider) {
+    }
+
+    /**
+     * Column a listing is ordered by. Both are unique, so either can serve as a keyset cursor.
+     */
+    enum SortKey {
+        ID("id"),
+        USERNAME("username");
+
+        final String attribute;
+
+        SortKey(String attribute) {
+            this.attribute = attribute;
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} summaries matching the filter, ordered by {@code sortKey}.
+     *
+     * @param after The sort-key value of the last row already seen (keyset cursor), or null
+     * @param offset Rows to skip; only used for plain page-number paging when there is no cursor
+     */
+    List<UserSummary> findSummaries(UserFilter filter, SortKey sortKey, boolean descending,
+                                    Object after, int offset, int limit);
+
+    long countSummaries(UserFilter filter);
+}
@@ -0,0 +1,76 @@
+package com.example.proj3.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.proj3.model.User;
+import com.example.proj3.model.UserSummary;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<UserSummary> findSummaries(UserFilter filter, SortKey sortKey, boolean descending,
+                                           Object after, int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserSummary> query = cb.createQuery(UserSummary.class);
+        Root<User> user = query.from(User.class);
+        query.select(cb.construct(UserSummary.class,
+                user.get("id"), user.get("username"), user.get("email"),
+                user.get("isAdmin"), user.get("isOAuthUser"), user.get("oauthProvider")));
+
+        List<Predicate> predicates = filterPredicates(cb, user, filter);
+        if (sortKey == SortKey.ID) {
+            Path<Long> key = user.get(sortKey.attribute);
+            if (after != null) {
+                predicates.add(descending ? cb.lessThan(key, (Long) after) : cb.greaterThan(key, (Long) after));
+            }
+            query.orderBy(descending ? cb.desc(key) : cb.asc(key));
+        } else {
+            Path<String> key = user.get(sortKey.attribute);
+            if (after != null) {
+                predicates.add(descending ? cb.lessThan(key, (String) after) : cb.greaterThan(key, (String) after));
+            }
+            query.orderBy(descending ? cb.desc(key) : cb.asc(key));
+        }
+        query.where(predicates.toArray(Predicate[]::new));
+
+        return entityManager.createQuery(query)
+                .setFirstResult(after == null ? offset : 0)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public long countSummaries(UserFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<User> user = query.from(User.class);
+        query.select(cb.count(user)).where(filterPredicates(cb, user, filter).toArray(Predicate[]::new));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private List<Predicate> filterPredicates(CriteriaBuilder cb, Root<User> user, UserFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.admin() != null) {
+            predicates.add(cb.equal(user.get("isAdmin"), filter.admin()));
+        }
+        if (filter.oauthUser() != null) {
+            predicates.add(cb.equal(user.get("isOAuthUser"), filter.oauthUser()));
+        }
+        if (filter.oauthProvider() != null) {
+            predicates.add(cb.equal(user.get("oauthProvider"), filter.oauthProvider()));
+        }
+        return predicates;
+    }
+}
@@ -1,12 +1,51 @@
 package com.example.proj3.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.example.proj3.model.VideoGame;
+
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface VideoGameRepo extends JpaRepository<VideoGame, Long> {
+    // Query cache holds the matching ID; any insert or update of a game invalidates it
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     Optional<VideoGame> findByRawgId(String rawgId); // helpful if syncing with RAWG
+
+    // Canonical game for a RAWG ID: older data can hold duplicates, and the first one stored wins
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    Optional<VideoGame> findFirstByRawgIdOrderByIdAsc(String rawgId);
+
+    // An AUTO game ID in one query: the game with this local ID first, then the first one stored with this RAWG ID
+    @Query("SELECT g FROM VideoGame g WHERE g.id = :id OR g.rawgId = :rawgId"
+            + " ORDER BY CASE WHEN g.id = :id THEN 0 ELSE 1 END, g.id")
+    List<VideoGame> findByIdOrRawgId(@Param("id") Long id, @Param("rawgId") String rawgId);
+
+    // (rawgId, id) pairs for RawgIdIndex, read in fetch-size chunks; must be consumed inside a transaction.
+    // Newest first, so for duplicated RAWG IDs the oldest row is put last and wins
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("SELECT g.rawgId, g.id FROM VideoGame g WHERE g.rawgId IS NOT NULL ORDER BY g.id DESC")
+    Stream<Object[]> streamRawgIds();
+
+    // (rawgId, id) pairs for the given RAWG IDs
+    @Query("SELECT g.rawgId, g.id FROM VideoGame g WHERE g.rawgId IN :rawgIds ORDER BY g.id DESC")
+    List<Object[]> findIdsByRawgIds(@Param("rawgIds") Collection<String> rawgIds);
+
+    // (rawgId, lowest id) for every RAWG ID stored more than once
+    @Query("SELECT g.rawgId, MIN(g.id) FROM VideoGame g WHERE g.rawgId IS NOT NULL GROUP BY g.rawgId HAVING COUNT(g) > 1")
+    List<Object[]> findDuplicateRawgIds();
+
+    List<VideoGame> findByRawgIdAndIdNot(String rawgId, Long id);
+
+    @Query("SELECT g.id, g.genre FROM VideoGame g")
+    List<Object[]> findAllGenres(); // (id, genre) pairs for the similar-games table
 }
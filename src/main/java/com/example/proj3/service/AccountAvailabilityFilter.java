@@ -0,0 +1,239 @@
+package com.example.proj3.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.proj3.model.UserSummary;
+import com.example.proj3.repository.UserRepository;
+
+/**
+ * Bloom filter over every taken username and email, compared case-insensitively.
+ *
+ * A negative answer is definite for this instance, so most {@code /auth/available} checks
+ * never reach the database. A positive answer only means "maybe taken" and is confirmed
+ * with an exists query. Users created by another instance or outside UserService are not
+ * in this copy, so registration and other writes always ask the database instead. The
+ * filter is loaded at startup and new names are added as soon as UserService saves them,
+ * before the transaction commits, and again after it commits. Bits are never cleared, so
+ * deleted users and old names only cost an extra database check. The filter is rebuilt at
+ * a larger size once it holds more distinct entries than it was sized for.
+ *
+ * A rebuild must never lose a name, since a false negative would let a taken name through.
+ * While the snapshot query runs, every added name is also buffered and replayed onto the
+ * new filter before it is published. A name saved just before the query, whose transaction
+ * commits too late for the query to see it, arrives again through the after-commit event.
+ */
+@Service
+public class AccountAvailabilityFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountAvailabilityFilter.class);
+
+    private final UserRepository userRepository;
+    private final long expectedEntries;
+    private final double falsePositiveRate;
+
+    private volatile Bits bits;
+    // Guarded by this; names added while a rebuild's snapshot query runs, null otherwise
+    private List<UserSummary> addedDuringRebuild;
+
+    public AccountAvailabilityFilter(UserRepository userRepository,
+                                     @Value("${users.availability.expected-entries:100000}") long expectedEntries,
+                                     @Value("${users.availability.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Whether the filter has been loaded. Until then every check must go to the database.
+     */
+    public boolean isReady() {
+        return bits != null;
+    }
+
+    /**
+     * @return false if the username is definitely not taken, true if it might be
+     */
+    public boolean mightContainUsername(String username) {
+        Bits current = bits;
+        return current == null || current.mightContain(usernameKey(username));
+    }
+
+    /**
+     * @return false if the email is definitely not taken, true if it might be
+     */
+    public boolean mightContainEmail(String email) {
+        Bits current = bits;
+        return current == null || current.mightContain(emailKey(email));
+    }
+
+    // Runs synchronously when UserService publishes, so a new name is visible before commit
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (!event.isDeleted()) {
+            record(event.user());
+        }
+    }
+
+    // Adds the name again once it is committed, in case a rebuild's query ran in between
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUserCommitted(UserChangedEvent event) {
+        if (!event.isDeleted()) {
+            record(event.user());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            if (addedDuringRebuild != null) {
+                return;
+            }
+            addedDuringRebuild = new ArrayList<>();
+        }
+        try {
+            long start = System.currentTimeMillis();
+            List<UserSummary> users = userRepository.findAllSummaries();
+            Bits rebuilt = new Bits(Math.max(expectedEntries, users.size() * 4L), falsePositiveRate);
+            for (UserSummary user : users) {
+                add(rebuilt, user);
+            }
+            int replayed;
+            synchronized (this) {
+                replayed = addedDuringRebuild.size();
+                for (UserSummary user : addedDuringRebuild) {
+                    add(rebuilt, user);
+                }
+                bits = rebuilt;
+            }
+            logger.info("Built account availability filter for {} users ({} replayed, {} bits, {} hashes) in {} ms",
+                    users.size(), replayed, rebuilt.bitCount, rebuilt.hashCount, System.currentTimeMillis() - start);
+        } finally {
+            synchronized (this) {
+                addedDuringRebuild = null;
+            }
+        }
+    }
+
+    // Keeps the false positive rate near its target as users are added
+    @Scheduled(fixedDelayString = "${users.availability.check-ms:60000}")
+    public void rebuildIfSaturated() {
+        Bits current = bits;
+        if (current != null && current.entries.get() > current.capacity) {
+            rebuild();
+        }
+    }
+
+    private synchronized void record(UserSummary user) {
+        Bits current = bits;
+        if (current != null) {
+            add(current, user);
+        }
+        if (addedDuringRebuild != null) {
+            addedDuringRebuild.add(user);
+        }
+    }
+
+    private static void add(Bits target, UserSummary user) {
+        if (user.username() != null) {
+            target.add(usernameKey(user.username()));
+        }
+        if (user.email() != null) {
+            target.add(emailKey(user.email()));
+        }
+    }
+
+    private static String usernameKey(String username) {
+        return "u:" + (username == null ? "" : username.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private static String emailKey(String email) {
+        return "e:" + (email == null ? "" : email.trim().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Fixed-size bit array probed with double hashing (h1 + i * h2) from one 64-bit hash.
+     * {@code entries} counts adds that set at least one new bit, so repeated names do not
+     * count towards the capacity.
+     */
+    static final class Bits {
+        final long capacity;
+        final long bitCount;
+        final int hashCount;
+        final AtomicLong entries = new AtomicLong();
+        private final AtomicLongArray words;
+
+        Bits(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bitCount = Math.max(64, (optimalBits + 63) / 64 * 64);
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+            this.words = new AtomicLongArray((int) (bitCount / 64));
+        }
+
+        void add(String key) {
+            long hash = hash(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            boolean changed = false;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long value;
+                do {
+                    value = words.get(word);
+                    if ((value & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(word, value, value | mask));
+                changed |= (value & mask) == 0;
+            }
+            if (changed) {
+                entries.incrementAndGet();
+            }
+        }
+
+        boolean mightContain(String key) {
+            long hash = hash(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 fmix64 avalanche
+        private static long hash(String key) {
+            long h = 0xcbf29ce484222325L;
+            for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+                h ^= b & 0xff;
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
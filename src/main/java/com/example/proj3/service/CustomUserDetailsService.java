@@ -4,6 +4,7 @@ import java.util.Collections;
 
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -16,7 +17,7 @@ import org.slf4j.LoggerFactory;
 
 import com.example.proj3.config.JwtUtil;
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
     private static final Logger logger = LoggerFactory.getLogger(CustomUserDetailsService.class);
@@ -39,8 +40,25 @@ public class CustomUserDetailsService implements UserDetailsService {
         logger.info("User found: {}", user.getUsername());
         UserDetails userDetails = org.springframework.security.core.userdetails.User.withUsername(user.getUsername())
                 .password(user.getPassword())
-                .authorities(Collections.singletonList(new SimpleGrantedAuthority(user.isAdmin() ? "ADMIN" : "ROLE_USER")))
+                .authorities(Collections.singletonList(new SimpleGrantedAuthority(JwtUtil.roleOf(user))))
                 .build();
         return userDetails;
     }
-}
\ No newline at end of file
+
+    /**
+     * Stores a password re-hashed with the current BCrypt cost. Called by
+     * DaoAuthenticationProvider after a successful login with an outdated hash.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newEncodedPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + userDetails.getUsername()));
+        user.setPassword(newEncodedPassword);
+        userRepository.save(user);
+        logger.info("Upgraded password hash for user: {}", user.getUsername());
+
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails)
+                .password(newEncodedPassword)
+                .build();
+    }
+}
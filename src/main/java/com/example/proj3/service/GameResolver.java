@@ -0,0 +1,197 @@
+package com.example.proj3.service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.example.proj3.model.VideoGame;
+import com.example.proj3.repository.VideoGameRepo;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Turns a game ID from a request into the canonical VideoGame.
+ *
+ * Local and RAWG IDs are both plain numbers, so callers say which one they mean. Lookups
+ * go cache first (the Hibernate second-level cache for local IDs, RawgIdIndex for RAWG
+ * IDs), then at most one database query, and only then RAWG. A RAWG game is always looked up by
+ * its RAWG ID before it is fetched. Concurrent requests for the same RAWG ID share one
+ * fetch, while fetches of other IDs go ahead in parallel; across instances the unique
+ * RAWG ID constraint keeps a game from being stored twice. Outcomes are counted in
+ * {@code games.resolve} by ID type and source. An AUTO lookup that is not a local ID and
+ * is resolved as a RAWG ID instead is also counted in {@code games.resolve.auto_fallback}
+ * (and logged at debug level), so callers that still rely on the guess can be found.
+ */
+@Service
+public class GameResolver {
+
+    /**
+     * Which ID space a game ID belongs to.
+     */
+    public enum IdType {
+        LOCAL,
+        RAWG,
+        // Local ID if such a game exists, otherwise RAWG ID; what the endpoints did before idType existed
+        AUTO;
+
+        /**
+         * @throws IllegalArgumentException for anything but local, rawg or auto
+         */
+        public static IdType parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(GameResolver.class);
+
+    private final VideoGameRepo videoGameRepo;
+    private final VideoGameService videoGameService;
+    private final RawgIdIndex rawgIdIndex;
+    private final EntityManagerFactory entityManagerFactory;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Counter autoFallbacks;
+    // RAWG fetches in progress by RAWG ID; later requests for the same ID wait for the first
+    private final Map<Long, CompletableFuture<VideoGame>> inFlight = new ConcurrentHashMap<>();
+
+    public GameResolver(VideoGameRepo videoGameRepo, VideoGameService videoGameService, RawgIdIndex rawgIdIndex,
+                        EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry) {
+        this.videoGameRepo = videoGameRepo;
+        this.videoGameService = videoGameService;
+        this.rawgIdIndex = rawgIdIndex;
+        this.entityManagerFactory = entityManagerFactory;
+        this.meterRegistry = meterRegistry;
+        this.autoFallbacks = Counter.builder("games.resolve.auto_fallback")
+                .description("AUTO game IDs that were not local IDs and were resolved as RAWG IDs")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return The game, or null if no game has this ID
+     * @throws RuntimeException if the game had to be fetched from RAWG and that failed
+     */
+    public VideoGame resolve(long id, IdType type) {
+        switch (type) {
+            case LOCAL:
+                return findLocal(id);
+            case RAWG:
+                return findOrFetchRawg(id, IdType.RAWG, false);
+            default:
+                return resolveAuto(id);
+        }
+    }
+
+    private VideoGame findLocal(long id) {
+        boolean cached = entityManagerFactory.getCache().contains(VideoGame.class, id);
+        Optional<VideoGame> game = videoGameRepo.findById(id);
+        count(IdType.LOCAL, game.isEmpty() ? "miss" : cached ? "cache" : "db");
+        return game.orElse(null);
+    }
+
+    // Local ID first, then RAWG ID; a game that is not in the cache costs one query for both
+    private VideoGame resolveAuto(long id) {
+        if (entityManagerFactory.getCache().contains(VideoGame.class, id)) {
+            Optional<VideoGame> game = videoGameRepo.findById(id);
+            if (game.isPresent()) {
+                count(IdType.AUTO, "cache");
+                return game.get();
+            }
+        }
+        String key = Long.toString(id);
+        List<VideoGame> candidates = videoGameRepo.findByIdOrRawgId(id, key);
+        if (!candidates.isEmpty() && id == candidates.get(0).getId()) {
+            count(IdType.AUTO, "db");
+            return candidates.get(0);
+        }
+        autoFallbacks.increment();
+        logger.debug("Game ID {} has no local game; resolving it as a RAWG ID", id);
+        if (!candidates.isEmpty()) {
+            rawgIdIndex.record(candidates.get(0));
+            count(IdType.AUTO, "db");
+            return candidates.get(0);
+        }
+        return findOrFetchRawg(id, IdType.AUTO, true);
+    }
+
+    /**
+     * @param checked Whether the caller has just looked the RAWG ID up in the database, so
+     *                the fetch can start without looking again
+     */
+    private VideoGame findOrFetchRawg(long rawgId, IdType type, boolean checked) {
+        String key = Long.toString(rawgId);
+        Long localId = checked ? null : rawgIdIndex.cached(key);
+        if (localId != null) {
+            Optional<VideoGame> game = videoGameRepo.findById(localId);
+            if (game.isPresent()) {
+                count(type, "cache");
+                return game.get();
+            }
+        }
+
+        CompletableFuture<VideoGame> fetch = new CompletableFuture<>();
+        CompletableFuture<VideoGame> running = inFlight.putIfAbsent(rawgId, fetch);
+        if (running != null) {
+            count(type, "joined");
+            return join(running);
+        }
+        try {
+            // Only the request that leads the fetch queries the database; the others wait for it.
+            // A game stored by another instance in the meantime is caught by the unique RAWG ID
+            Optional<VideoGame> stored = checked ? Optional.empty() : findByRawgId(key);
+            VideoGame game;
+            if (stored.isPresent()) {
+                count(type, "db");
+                game = stored.get();
+            } else {
+                count(type, "rawg");
+                game = videoGameService.fetchAndSaveFromRawg(rawgId);
+            }
+            fetch.complete(game);
+            return game;
+        } catch (RuntimeException | Error e) {
+            fetch.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(rawgId, fetch);
+        }
+    }
+
+    // Waits for another request's fetch and rethrows its failure as it was thrown there
+    private static VideoGame join(CompletableFuture<VideoGame> fetch) {
+        try {
+            return fetch.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Optional<VideoGame> findByRawgId(String rawgId) {
+        Optional<VideoGame> game = videoGameRepo.findFirstByRawgIdOrderByIdAsc(rawgId);
+        game.ifPresent(rawgIdIndex::record);
+        return game;
+    }
+
+    private void count(IdType type, String source) {
+        counters.computeIfAbsent(type.name() + ":" + source, name -> Counter.builder("games.resolve")
+                .tag("type", type.name().toLowerCase(Locale.ROOT))
+                .tag("source", source)
+                .register(meterRegistry))
+                .increment();
+    }
+}
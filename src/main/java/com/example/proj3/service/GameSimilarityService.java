@@ -0,0 +1,249 @@
+package com.example.proj3.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.example.proj3.model.VideoGame;
+import com.example.proj3.repository.VideoGameRepo;
+
+/**
+ * In-memory "similar games" table based on genre overlap.
+ *
+ * The comma-separated genre string of each game is parsed once into a bitset over a shared
+ * genre vocabulary. Games with the same genre set are grouped together, and exact Jaccard
+ * similarity is kept between the distinct genre sets, of which there are far fewer than
+ * games. A lookup walks the ranked genre sets and never touches the database.
+ *
+ * A genre set seen for the first time is scored against the existing ones and inserted
+ * into their ranked neighbour sets, so saving a game never rebuilds the table. A full
+ * rebuild fills a fresh table and swaps it in, so lookups meanwhile use the old one.
+ */
+@Service
+public class GameSimilarityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameSimilarityService.class);
+
+    // Most similar first; ties in a stable order so distinct genre sets never compare equal
+    private static final Comparator<ScoredGenreSet> RANKING = Comparator
+            .comparingDouble(ScoredGenreSet::similarity).reversed()
+            .thenComparing(ScoredGenreSet::genres);
+
+    private final VideoGameRepo videoGameRepo;
+
+    private final Map<String, Integer> genreIndex = new ConcurrentHashMap<>();
+    private final AtomicInteger nextGenreBit = new AtomicInteger();
+
+    private volatile Table table = new Table();
+
+    public GameSimilarityService(VideoGameRepo videoGameRepo) {
+        this.videoGameRepo = videoGameRepo;
+    }
+
+    /**
+     * A game similar to the requested one.
+     *
+     * @param gameId The similar game's ID
+     * @param similarity Jaccard similarity of the two genre sets, in (0, 1]
+     */
+    public record SimilarGame(Long gameId, double similarity) {
+    }
+
+    private record ScoredGenreSet(GenreSet genres, double similarity) {
+    }
+
+    // Games by genre set and the ranked neighbours of every genre set, including itself
+    private static final class Table {
+        final Map<Long, GenreSet> genresByGame = new ConcurrentHashMap<>();
+        final Map<GenreSet, NavigableSet<Long>> gamesByGenres = new ConcurrentHashMap<>();
+        final Map<GenreSet, NavigableSet<ScoredGenreSet>> neighbors = new ConcurrentHashMap<>();
+
+        void add(Long gameId, GenreSet genres) {
+            genresByGame.put(gameId, genres);
+            gamesByGenres.computeIfAbsent(genres, key -> new ConcurrentSkipListSet<>()).add(gameId);
+        }
+    }
+
+    /**
+     * Returns games sharing the most genres with the given game, most similar first.
+     *
+     * @param gameId The game to look up
+     * @param limit Maximum number of games to return
+     * @return Similar games, or an empty list if the game has no known genres
+     */
+    public List<SimilarGame> getSimilarGames(Long gameId, int limit) {
+        Table current = table;
+        GenreSet genres = current.genresByGame.get(gameId);
+        if (genres == null) {
+            return Collections.emptyList();
+        }
+
+        List<SimilarGame> result = new ArrayList<>(limit);
+        for (ScoredGenreSet neighbor : current.neighbors.getOrDefault(genres, Collections.emptyNavigableSet())) {
+            NavigableSet<Long> games = current.gamesByGenres.get(neighbor.genres());
+            if (games == null) {
+                continue;
+            }
+            for (Long candidate : games) {
+                if (!candidate.equals(gameId)) {
+                    result.add(new SimilarGame(candidate, neighbor.similarity()));
+                    if (result.size() == limit) {
+                        return result;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds or re-indexes a saved game. A genre combination not seen before is scored
+     * against the known combinations, which is linear in their number.
+     */
+    public synchronized void index(VideoGame game) {
+        if (game == null || game.getId() == null) {
+            return;
+        }
+        Table current = table;
+        GenreSet genres = parse(game.getGenre());
+        GenreSet previous = genres == null
+                ? current.genresByGame.remove(game.getId())
+                : current.genresByGame.get(game.getId());
+        if (previous != null && !previous.equals(genres)) {
+            NavigableSet<Long> oldGroup = current.gamesByGenres.get(previous);
+            if (oldGroup != null) {
+                oldGroup.remove(game.getId());
+            }
+        }
+        if (genres == null) {
+            return;
+        }
+
+        if (!current.neighbors.containsKey(genres)) {
+            addCombination(current, genres);
+        }
+        current.add(game.getId(), genres);
+    }
+
+    // Loads every game's genres in one query and builds a new table in parallel
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        List<Object[]> rows = videoGameRepo.findAllGenres();
+
+        Table fresh = new Table();
+        rows.parallelStream().forEach(row -> {
+            GenreSet genres = parse((String) row[1]);
+            if (genres != null) {
+                fresh.add((Long) row[0], genres);
+            }
+        });
+        List<GenreSet> all = new ArrayList<>(fresh.gamesByGenres.keySet());
+        all.parallelStream().forEach(genres -> {
+            NavigableSet<ScoredGenreSet> scored = new ConcurrentSkipListSet<>(RANKING);
+            for (GenreSet other : all) {
+                double similarity = genres.jaccard(other);
+                if (similarity > 0) {
+                    scored.add(new ScoredGenreSet(other, similarity));
+                }
+            }
+            fresh.neighbors.put(genres, scored);
+        });
+        table = fresh;
+
+        logger.info("Built genre similarity table for {} games ({} genre combinations) in {} ms",
+                fresh.genresByGame.size(), fresh.gamesByGenres.size(), System.currentTimeMillis() - start);
+    }
+
+    // Scores a new combination against the known ones and adds it to each neighbour set it belongs in
+    private static void addCombination(Table current, GenreSet genres) {
+        NavigableSet<ScoredGenreSet> own = new ConcurrentSkipListSet<>(RANKING);
+        own.add(new ScoredGenreSet(genres, 1.0));
+        for (Map.Entry<GenreSet, NavigableSet<ScoredGenreSet>> entry : current.neighbors.entrySet()) {
+            double similarity = genres.jaccard(entry.getKey());
+            if (similarity > 0) {
+                own.add(new ScoredGenreSet(entry.getKey(), similarity));
+                entry.getValue().add(new ScoredGenreSet(genres, similarity));
+            }
+        }
+        current.neighbors.put(genres, own);
+    }
+
+    private GenreSet parse(String genre) {
+        if (genre == null || genre.isBlank()) {
+            return null;
+        }
+        long[] words = new long[1];
+        for (String name : genre.split(",")) {
+            String key = name.trim().toLowerCase(Locale.ROOT);
+            if (key.isEmpty()) {
+                continue;
+            }
+            int bit = genreIndex.computeIfAbsent(key, k -> nextGenreBit.getAndIncrement());
+            if (bit / 64 >= words.length) {
+                words = Arrays.copyOf(words, bit / 64 + 1);
+            }
+            words[bit / 64] |= 1L << (bit % 64);
+        }
+        return Arrays.stream(words).allMatch(word -> word == 0) ? null : new GenreSet(words);
+    }
+
+    /**
+     * Immutable genre bitset. Trailing zero words are trimmed so equal sets compare equal.
+     */
+    static final class GenreSet implements Comparable<GenreSet> {
+        private final long[] words;
+        private final int hash;
+
+        GenreSet(long[] words) {
+            int length = words.length;
+            while (length > 1 && words[length - 1] == 0) {
+                length--;
+            }
+            this.words = Arrays.copyOf(words, length);
+            this.hash = Arrays.hashCode(this.words);
+        }
+
+        double jaccard(GenreSet other) {
+            int intersection = 0;
+            int union = 0;
+            int length = Math.max(words.length, other.words.length);
+            for (int i = 0; i < length; i++) {
+                long a = i < words.length ? words[i] : 0;
+                long b = i < other.words.length ? other.words[i] : 0;
+                intersection += Long.bitCount(a & b);
+                union += Long.bitCount(a | b);
+            }
+            return union == 0 ? 0 : (double) intersection / union;
+        }
+
+        @Override
+        public int compareTo(GenreSet other) {
+            return Arrays.compareUnsigned(words, other.words);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof GenreSet other && Arrays.equals(words, other.words);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.proj3.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Memory-bounded, single-instance {@link LoginAttemptStore}.
+ *
+ * Each key keeps two fixed-window counters (current and previous window). The sliding-window
+ * count is the current count plus the previous count weighted by how much of the previous
+ * window still overlaps, so each key costs a few longs however many attempts it sees.
+ *
+ * Keys are kept in least-recently-used order and capped at
+ * {@code security.login.max-tracked-keys}. A new key on a full store evicts the least
+ * recently used key that is not locked out, looking at no more than a few of the oldest
+ * keys, so the cost per attempt stays constant. If those are all locked out, the new key is
+ * counted on a shared overflow entry instead, so a flood of junk keys does not turn
+ * tracking off. The overflow entry's lockout only applies to keys that would have to use it
+ * at that moment, while the store is full and nothing can be evicted. As soon as a slot can
+ * be freed, untracked keys get entries of their own again, so a locked overflow entry never
+ * turns into a lockout for everyone. Idle entries are also purged in the background.
+ */
+@Component
+@ConditionalOnProperty(name = "security.login.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryLoginAttemptStore implements LoginAttemptStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryLoginAttemptStore.class);
+
+    // How many of the oldest keys a new key may look at to find one to evict
+    private static final int EVICTION_SCAN = 16;
+
+    private final int maxTrackedKeys;
+    private final long idleAfterMillis;
+
+    // Guarded by this; access-ordered, so iteration starts at the least recently used key
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Guarded by this; stands in for keys that could not be given an entry of their own
+    private final Entry overflow = new Entry();
+
+    public InMemoryLoginAttemptStore(@Value("${security.login.max-tracked-keys:100000}") int maxTrackedKeys,
+                                     @Value("${security.login.window-ms:900000}") long idleAfterMillis) {
+        this.maxTrackedKeys = maxTrackedKeys;
+        this.idleAfterMillis = idleAfterMillis;
+    }
+
+    private static final class Entry {
+        long windowStart;
+        int current;
+        int previous;
+        long lockedUntil;
+        int lockouts;
+        long lastTouched;
+    }
+
+    @Override
+    public synchronized long lockedUntil(String key, long now) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (!mustOverflow(now)) {
+                return 0;
+            }
+            entry = overflow;
+        }
+        return entry.lockedUntil > now ? entry.lockedUntil : 0;
+    }
+
+    @Override
+    public synchronized double recordFailure(String key, long now, long windowMillis) {
+        Entry entry = entryFor(key, now);
+        long elapsedWindows = (now - entry.windowStart) / windowMillis;
+        if (elapsedWindows >= 2) {
+            entry.previous = 0;
+            entry.current = 0;
+            entry.windowStart = now;
+        } else if (elapsedWindows == 1) {
+            entry.previous = entry.current;
+            entry.current = 0;
+            entry.windowStart += windowMillis;
+        }
+        entry.current++;
+        entry.lastTouched = now;
+
+        double overlap = 1.0 - (double) (now - entry.windowStart) / windowMillis;
+        return entry.current + entry.previous * overlap;
+    }
+
+    @Override
+    public synchronized int lockoutCount(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return mustOverflow(System.currentTimeMillis()) ? overflow.lockouts : 0;
+        }
+        return entry.lockouts;
+    }
+
+    @Override
+    public synchronized void lock(String key, long until) {
+        Entry entry = entryFor(key, System.currentTimeMillis());
+        entry.lockedUntil = Math.max(entry.lockedUntil, until);
+        entry.current = 0;
+        entry.previous = 0;
+        entry.lockouts++;
+    }
+
+    @Override
+    public synchronized void reset(String key) {
+        // The overflow entry is shared, so one successful login must not clear it
+        entries.remove(key);
+    }
+
+    synchronized int trackedKeys() {
+        return entries.size();
+    }
+
+    // Caller holds the lock
+    private Entry entryFor(String key, long now) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        if (mustOverflow(now)) {
+            if (overflow.lockedUntil <= now && overflow.current == 0) {
+                logger.warn("Login attempt store full ({} keys, oldest all locked); counting new keys together",
+                        entries.size());
+            }
+            return overflow;
+        }
+        if (entries.size() >= maxTrackedKeys) {
+            evictOne(now);
+        }
+        Entry created = new Entry();
+        created.windowStart = now;
+        created.lastTouched = now;
+        entries.put(key, created);
+        return created;
+    }
+
+    // Whether a key without an entry would have to share the overflow entry: the store is
+    // full and none of the oldest keys can be evicted. Caller holds the lock
+    private boolean mustOverflow(long now) {
+        if (entries.size() < maxTrackedKeys) {
+            return false;
+        }
+        Iterator<Entry> oldest = entries.values().iterator();
+        for (int scanned = 0; scanned < EVICTION_SCAN && oldest.hasNext(); scanned++) {
+            if (oldest.next().lockedUntil <= now) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Evicts the least recently used key that is not locked out; caller holds the lock
+    private void evictOne(long now) {
+        Iterator<Entry> oldest = entries.values().iterator();
+        for (int scanned = 0; scanned < EVICTION_SCAN && oldest.hasNext(); scanned++) {
+            if (oldest.next().lockedUntil <= now) {
+                oldest.remove();
+                return;
+            }
+        }
+    }
+
+    // Drops keys that are neither locked nor seen within the last two windows
+    @Scheduled(fixedDelayString = "${security.login.purge-ms:60000}")
+    public synchronized void purgeIdleEntries() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            if (entry.lockedUntil < now && now - entry.lastTouched > 2 * idleAfterMillis) {
+                iterator.remove();
+            }
+        }
+    }
+}
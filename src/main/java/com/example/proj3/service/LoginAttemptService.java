@@ -0,0 +1,84 @@
+package com.example.proj3.service;
+
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Brute-force protection for /auth/login.
+ *
+ * Failures are counted per username and per client IP over a sliding window. Once a key
+ * reaches its threshold it is locked out. Each consecutive lockout doubles the lockout time,
+ * up to a cap. Locked-out attempts are rejected before any password hashing happens.
+ */
+@Service
+public class LoginAttemptService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginAttemptService.class);
+
+    private final LoginAttemptStore store;
+
+    @Value("${security.login.window-ms:900000}")
+    private long windowMillis;
+
+    @Value("${security.login.max-failures-per-user:5}")
+    private int maxFailuresPerUser;
+
+    @Value("${security.login.max-failures-per-ip:20}")
+    private int maxFailuresPerIp;
+
+    @Value("${security.login.base-lockout-ms:30000}")
+    private long baseLockoutMillis;
+
+    @Value("${security.login.max-lockout-ms:900000}")
+    private long maxLockoutMillis;
+
+    public LoginAttemptService(LoginAttemptStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Returns how long the caller must wait before another login attempt is allowed.
+     *
+     * @param username The username being logged in to
+     * @param ip The client IP address
+     * @return Milliseconds until the attempt is allowed, or 0 if it is allowed now
+     */
+    public long retryAfterMillis(String username, String ip) {
+        long now = System.currentTimeMillis();
+        long until = Math.max(store.lockedUntil(userKey(username), now), store.lockedUntil(ipKey(ip), now));
+        return until > now ? until - now : 0;
+    }
+
+    public void recordFailure(String username, String ip) {
+        long now = System.currentTimeMillis();
+        recordFailure(userKey(username), maxFailuresPerUser, now);
+        recordFailure(ipKey(ip), maxFailuresPerIp, now);
+    }
+
+    public void recordSuccess(String username) {
+        store.reset(userKey(username));
+    }
+
+    private void recordFailure(String key, int threshold, long now) {
+        if (store.recordFailure(key, now, windowMillis) < threshold) {
+            return;
+        }
+        // Lock first at the base duration, then double it for each further lockout
+        int previousLockouts = store.lockoutCount(key);
+        long lockout = Math.min(maxLockoutMillis, baseLockoutMillis << Math.min(previousLockouts, 20));
+        store.lock(key, now + lockout);
+        logger.warn("Locked out {} for {} ms after repeated login failures", key, lockout);
+    }
+
+    private static String userKey(String username) {
+        return "user:" + (username == null ? "" : username.toLowerCase(Locale.ROOT));
+    }
+
+    private static String ipKey(String ip) {
+        return "ip:" + ip;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.proj3.service;
+
+/**
+ * Storage for login failure counters and lockouts, keyed by e.g. "user:alice" or "ip:1.2.3.4".
+ *
+ * {@link InMemoryLoginAttemptStore} is the single-instance default. A multi-instance
+ * deployment sets {@code security.login.store} to another value and provides a shared
+ * implementation (e.g. backed by Redis) as a bean.
+ */
+public interface LoginAttemptStore {
+
+    /**
+     * @return Epoch millis until which the key is locked out, or 0 if it is not locked
+     */
+    long lockedUntil(String key, long now);
+
+    /**
+     * Records one failed attempt.
+     *
+     * @return The estimated number of failures within the last {@code windowMillis}, including this one
+     */
+    double recordFailure(String key, long now, long windowMillis);
+
+    /**
+     * @return How many times the key has been locked out since it was last reset
+     */
+    int lockoutCount(String key);
+
+    /**
+     * Locks the key out until the given time, clears its failure window and
+     * increments its lockout count.
+     */
+    void lock(String key, long until);
+
+    /**
+     * Forgets all failures and lockout history for the key (e.g. after a successful login).
+     */
+    void reset(String key);
+}
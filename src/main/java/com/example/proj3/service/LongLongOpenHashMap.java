@@ -0,0 +1,154 @@
+package com.example.proj3.service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Open-addressing hash map from positive long keys to long values.
+ *
+ * Keys and values are interleaved in one LongBuffer (key at 2i, value at 2i + 1) with
+ * linear probing, so a lookup usually touches a single cache line and nothing is boxed.
+ * The buffer is either a plain heap buffer or a direct buffer outside the Java heap. Key 0
+ * marks an empty slot, so only positive keys can be stored. There are no removals.
+ *
+ * Reads are lock-free under a StampedLock optimistic stamp and retry with the read lock
+ * only if a write happened meanwhile; writes take the write lock.
+ */
+final class LongLongOpenHashMap {
+
+    static final long MISSING = -1L;
+
+    private static final double MAX_LOAD = 0.6;
+
+    private final boolean offHeap;
+    private final StampedLock lock = new StampedLock();
+    // Capacity is a power of two, read from the buffer, so a reader sees a consistent table and mask
+    private LongBuffer table;
+    private int size;
+
+    LongLongOpenHashMap(int expectedSize, boolean offHeap) {
+        this.offHeap = offHeap;
+        this.table = newTable(capacityFor(expectedSize));
+    }
+
+    /**
+     * @return The value for the key, or {@link #MISSING}
+     */
+    long get(long key) {
+        if (key <= 0) {
+            return MISSING;
+        }
+        long stamp = lock.tryOptimisticRead();
+        long value = probe(table, key);
+        if (lock.validate(stamp)) {
+            return value;
+        }
+        stamp = lock.readLock();
+        try {
+            return probe(table, key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    void put(long key, long value) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Key must be positive: " + key);
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (insert(table, key, value)) {
+                size++;
+                if (size > capacity(table) * MAX_LOAD) {
+                    rehash(capacityFor(size * 2));
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return Bytes held by the table, on or off the heap
+     */
+    long footprintBytes() {
+        return (long) table.capacity() * Long.BYTES;
+    }
+
+    private static long probe(LongBuffer table, long key) {
+        int mask = capacity(table) - 1;
+        // An optimistic read racing a write may see a half-updated table; bound the walk
+        for (int i = slot(key, mask), n = 0; n <= mask; i = (i + 1) & mask, n++) {
+            long k = table.get(i << 1);
+            if (k == key) {
+                return table.get((i << 1) + 1);
+            }
+            if (k == 0) {
+                return MISSING;
+            }
+        }
+        return MISSING;
+    }
+
+    // Returns true if the key was new
+    private static boolean insert(LongBuffer table, long key, long value) {
+        int mask = capacity(table) - 1;
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            long k = table.get(i << 1);
+            if (k == key || k == 0) {
+                table.put((i << 1) + 1, value);
+                table.put(i << 1, key);
+                return k == 0;
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        LongBuffer old = table;
+        LongBuffer resized = newTable(capacity);
+        for (int i = 0, n = capacity(old); i < n; i++) {
+            long k = old.get(i << 1);
+            if (k != 0) {
+                insert(resized, k, old.get((i << 1) + 1));
+            }
+        }
+        table = resized;
+    }
+
+    private static int capacity(LongBuffer table) {
+        return table.capacity() >> 1;
+    }
+
+    private LongBuffer newTable(int capacity) {
+        int longs = capacity * 2;
+        return offHeap
+                ? ByteBuffer.allocateDirect(longs * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer()
+                : LongBuffer.allocate(longs);
+    }
+
+    private static int capacityFor(int entries) {
+        long needed = (long) Math.ceil(Math.max(entries, 16) / MAX_LOAD);
+        // 2^26 slots is 1 GiB, keeping the byte size of one buffer within an int
+        if (needed > (1 << 26)) {
+            throw new IllegalStateException("Map too large: " + entries + " entries");
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    // MurmurHash3 fmix64; RAWG IDs are sequential, so they must be spread before masking
+    private static int slot(long key, int mask) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.proj3.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.proj3.mail.MailTransport;
+import com.example.proj3.model.OutboxMessage;
+import com.example.proj3.repository.OutboxMessageRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Drains the email outbox in the background.
+ *
+ * Each run claims due messages in batches. The claim is one short transaction that
+ * row-locks them with SKIP LOCKED and pushes their next attempt out by
+ * {@code outbox.lease-ms}, so no other instance picks them up. The messages are then handed
+ * to the MailTransport with no transaction or connection held, and the outcomes are
+ * recorded in a second short transaction. A message whose sender died mid-batch becomes due
+ * again when its lease runs out. A failed message is retried with exponential backoff and
+ * jitter, and is marked FAILED after the last attempt. Sent messages are deleted after a
+ * retention period.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final MailTransport mailTransport;
+    private final TransactionTemplate transaction;
+
+    @Value("${outbox.batch-size:20}")
+    private int batchSize;
+
+    @Value("${outbox.max-batches-per-run:10}")
+    private int maxBatchesPerRun;
+
+    @Value("${outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${outbox.base-backoff-ms:30000}")
+    private long baseBackoffMillis;
+
+    @Value("${outbox.max-backoff-ms:3600000}")
+    private long maxBackoffMillis;
+
+    @Value("${outbox.sent-retention-ms:604800000}")
+    private long sentRetentionMillis;
+
+    @Value("${outbox.lease-ms:300000}")
+    private long leaseMillis;
+
+    public OutboxDispatcher(OutboxMessageRepository outboxMessageRepository, MailTransport mailTransport,
+                            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.mailTransport = mailTransport;
+        this.transaction = new TransactionTemplate(transactionManager);
+        Gauge.builder("outbox.pending", outboxMessageRepository, OutboxMessageRepository::countPending)
+                .description("Emails waiting in the outbox")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-ms:5000}")
+    public void dispatch() {
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<OutboxMessage> claimed = transaction.execute(status -> claimBatch());
+            if (claimed == null || claimed.isEmpty()) {
+                return;
+            }
+            for (OutboxMessage message : claimed) {
+                send(message);
+            }
+            transaction.executeWithoutResult(status -> outboxMessageRepository.saveAll(claimed));
+            if (claimed.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private List<OutboxMessage> claimBatch() {
+        Instant now = Instant.now();
+        List<OutboxMessage> due = outboxMessageRepository.lockDue(now, PageRequest.of(0, batchSize));
+        for (OutboxMessage message : due) {
+            message.claim(now.plusMillis(leaseMillis));
+        }
+        return outboxMessageRepository.saveAll(due);
+    }
+
+    // Runs outside any transaction; only updates the detached message
+    private void send(OutboxMessage message) {
+        try {
+            mailTransport.send(message.getRecipient(), message.getSubject(), message.getBody());
+            message.markSent(Instant.now());
+        } catch (Exception e) {
+            Instant retryAt = message.getAttempts() + 1 >= maxAttempts
+                    ? null
+                    : Instant.now().plus(backoff(message.getAttempts()));
+            message.markFailed(e.getMessage(), retryAt);
+            if (retryAt == null) {
+                logger.error("Giving up on {} email {} to {} after {} attempts: {}",
+                        message.getType(), message.getId(), message.getRecipient(), message.getAttempts(), e.getMessage());
+            } else {
+                logger.warn("Failed to send {} email {}, retrying at {}: {}",
+                        message.getType(), message.getId(), retryAt, e.getMessage());
+            }
+        }
+    }
+
+    // Doubles per attempt up to the cap, with up to 20% jitter so retries do not line up
+    private Duration backoff(int previousAttempts) {
+        long delay = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(previousAttempts, 20));
+        long jitter = ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+        return Duration.ofMillis(delay + jitter);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.cleanup-ms:3600000}")
+    public void deleteSent() {
+        int cleared = outboxMessageRepository.clearFinishedBodies();
+        if (cleared > 0) {
+            logger.info("Cleared the bodies of {} finished outbox messages", cleared);
+        }
+        Instant cutoff = Instant.now().minusMillis(sentRetentionMillis);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = outboxMessageRepository.deleteSentBatch(cutoff, 500);
+            total += deleted;
+        } while (deleted == 500);
+        if (total > 0) {
+            logger.info("Deleted {} sent outbox messages", total);
+        }
+    }
+}
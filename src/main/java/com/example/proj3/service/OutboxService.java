@@ -0,0 +1,30 @@
+package com.example.proj3.service;
+
+import org.springframework.stereotype.Service;
+
+import com.example.proj3.model.OutboxMessage;
+import com.example.proj3.repository.OutboxMessageRepository;
+
+import jakarta.transaction.Transactional;
+
+/**
+ * Queues emails in the outbox table. Must be called inside the transaction that makes the
+ * change the email is about, so the two commit or roll back together.
+ */
+@Service
+public class OutboxService {
+
+    public static final String PASSWORD_RESET = "PASSWORD_RESET";
+    public static final String PASSWORD_CHANGED = "PASSWORD_CHANGED";
+
+    private final OutboxMessageRepository outboxMessageRepository;
+
+    public OutboxService(OutboxMessageRepository outboxMessageRepository) {
+        this.outboxMessageRepository = outboxMessageRepository;
+    }
+
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void enqueue(String type, String recipient, String subject, String body) {
+        outboxMessageRepository.save(new OutboxMessage(type, recipient, subject, body));
+    }
+}
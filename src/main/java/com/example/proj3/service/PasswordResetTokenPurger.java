@@ -0,0 +1,50 @@
+package com.example.proj3.service;
+
+import java.util.Date;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.proj3.repository.PasswordResetTokenRepository;
+
+/**
+ * Deletes expired password reset tokens in bounded batches, each in its own short
+ * transaction, so the table only holds tokens that can still be used.
+ */
+@Component
+public class PasswordResetTokenPurger {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordResetTokenPurger.class);
+
+    private final PasswordResetTokenRepository passwordResetTokenRepository;
+
+    @Value("${password-reset.purge-batch-size:500}")
+    private int batchSize;
+
+    @Value("${password-reset.purge-max-batches:100}")
+    private int maxBatches;
+
+    public PasswordResetTokenPurger(PasswordResetTokenRepository passwordResetTokenRepository) {
+        this.passwordResetTokenRepository = passwordResetTokenRepository;
+    }
+
+    @Scheduled(fixedDelayString = "${password-reset.purge-ms:600000}")
+    public void purgeExpired() {
+        Date now = new Date();
+        int total = 0;
+        // A short batch means nothing expired is left; the batch cap bounds one run
+        for (int batch = 0; batch < maxBatches; batch++) {
+            int deleted = passwordResetTokenRepository.deleteExpiredBatch(now, batchSize);
+            total += deleted;
+            if (deleted < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            logger.info("Purged {} expired password reset tokens", total);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.proj3.service;
+
+/**
+ * Published by UserService when a user holding a profile picture is deleted, so the
+ * picture's reference can be released once the deletion has committed.
+ *
+ * @param pictureUrl The deleted user's profile picture URL
+ */
+public record ProfilePictureReleasedEvent(String pictureUrl) {
+}
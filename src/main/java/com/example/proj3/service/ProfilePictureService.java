@@ -0,0 +1,268 @@
+package com.example.proj3.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.example.proj3.model.StoredBlob;
+import com.example.proj3.model.User;
+import com.example.proj3.repository.StoredBlobRepository;
+import com.example.proj3.repository.UserRepository;
+import com.example.proj3.storage.BlobStore;
+
+/**
+ * Stores profile pictures in the BlobStore and keeps their reference counts.
+ *
+ * The image type is taken from the file's magic bytes, not the client's content type or
+ * file name. Each user holding a picture is one reference; identical uploads share a blob.
+ * Replacing or removing a picture releases its reference, and blobs left at zero
+ * references for the grace period are collected together with their thumbnails. The
+ * picture URL is swapped under a row lock, so concurrent uploads by one user each release
+ * exactly the picture they replaced.
+ */
+@Service
+public class ProfilePictureService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfilePictureService.class);
+
+    public static final String URL_PREFIX = "/uploads/";
+
+    private final BlobStore blobStore;
+    private final StoredBlobRepository storedBlobRepository;
+    private final UserRepository userRepository;
+    private final ThumbnailService thumbnailService;
+    private final TransactionTemplate transaction;
+
+    @Value("${storage.profile-picture.max-bytes:10485760}")
+    private long maxBytes;
+
+    @Value("${storage.orphan-grace-ms:3600000}")
+    private long orphanGraceMillis;
+
+    public ProfilePictureService(BlobStore blobStore, StoredBlobRepository storedBlobRepository,
+                                 UserRepository userRepository, ThumbnailService thumbnailService,
+                                 PlatformTransactionManager transactionManager) {
+        this.blobStore = blobStore;
+        this.storedBlobRepository = storedBlobRepository;
+        this.userRepository = userRepository;
+        this.thumbnailService = thumbnailService;
+        this.transaction = new TransactionTemplate(transactionManager);
+        // release() also runs from an after-commit listener, where joining the finished transaction would never commit
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * A profile picture and the thumbnails generated from it so far.
+     *
+     * @param original URL of the uploaded image
+     * @param thumbnails URLs by edge length in pixels; empty until generation has finished
+     * @param thumbnailsReady whether generation has finished; clients use the original until then
+     */
+    public record PictureUrls(String original, Map<Integer, String> thumbnails, boolean thumbnailsReady) {
+    }
+
+    // The saved user and the picture URL it held before
+    private record Swap(User user, String previous) {
+    }
+
+    /**
+     * Image formats accepted as profile pictures, with their magic bytes.
+     */
+    enum ImageType {
+        JPEG("image/jpeg", "jpg"),
+        PNG("image/png", "png"),
+        GIF("image/gif", "gif"),
+        WEBP("image/webp", "webp");
+
+        final String contentType;
+        final String extension;
+
+        ImageType(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        static ImageType detect(byte[] head, int length) {
+            if (length >= 3 && (head[0] & 0xff) == 0xFF && (head[1] & 0xff) == 0xD8 && (head[2] & 0xff) == 0xFF) {
+                return JPEG;
+            }
+            if (length >= 8 && (head[0] & 0xff) == 0x89 && head[1] == 'P' && head[2] == 'N' && head[3] == 'G') {
+                return PNG;
+            }
+            if (length >= 4 && head[0] == 'G' && head[1] == 'I' && head[2] == 'F' && head[3] == '8') {
+                return GIF;
+            }
+            if (length >= 12 && head[0] == 'R' && head[1] == 'I' && head[2] == 'F' && head[3] == 'F'
+                    && head[8] == 'W' && head[9] == 'E' && head[10] == 'B' && head[11] == 'P') {
+                return WEBP;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Stores a new profile picture for the user and releases the previous one.
+     *
+     * @return The updated user
+     * @throws UnsupportedImageTypeException if the file is not a supported image
+     * @throws com.example.proj3.storage.BlobTooLargeException if the file is too large
+     */
+    public User replace(User user, MultipartFile file) throws IOException {
+        ImageType type = detect(file);
+        if (type == null) {
+            throw new UnsupportedImageTypeException("Profile picture must be a JPEG, PNG, GIF or WebP image");
+        }
+
+        BlobStore.PutResult stored;
+        try (InputStream in = file.getInputStream()) {
+            stored = blobStore.put(in, type.extension, maxBytes);
+        }
+        addReference(stored, type.contentType);
+
+        // The collector may have deleted an orphaned copy of this content just before our
+        // reference committed; the row lock makes that visible here, so write it again
+        if (!blobStore.exists(stored.key())) {
+            try (InputStream in = file.getInputStream()) {
+                blobStore.put(in, type.extension, maxBytes);
+            }
+        }
+
+        // The caller's copy of the user may be stale; release what the row actually held
+        String pictureUrl = URL_PREFIX + stored.key();
+        Swap swap = swapPicture(user.getId(), pictureUrl);
+        if (swap == null) {
+            release(pictureUrl);
+            return null;
+        }
+        release(swap.previous());
+        thumbnailService.submit(stored.key());
+        logger.info("Stored profile picture {} for user {} ({} bytes, {})", stored.key(), user.getId(),
+                stored.size(), stored.created() ? "new" : "deduplicated");
+        return swap.user();
+    }
+
+    /**
+     * Drops one reference to the picture at the given URL. Pictures uploaded before
+     * content addressing have no reference count and are deleted directly.
+     */
+    public void release(String pictureUrl) {
+        if (pictureUrl == null || !pictureUrl.startsWith(URL_PREFIX)) {
+            return;
+        }
+        String key = pictureUrl.substring(URL_PREFIX.length());
+        Integer released = transaction.execute(status -> storedBlobRepository.decrementRefCount(key, Instant.now()));
+        if (released != null && released > 0) {
+            return;
+        }
+        if (!key.contains("/")) {
+            try {
+                blobStore.delete(key);
+            } catch (IOException | IllegalArgumentException e) {
+                logger.warn("Failed to delete old profile picture {}: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Looks up the thumbnails for a profile picture URL. Pictures stored before content
+     * addressing have no thumbnails.
+     */
+    public PictureUrls describe(String pictureUrl) {
+        if (pictureUrl == null) {
+            return null;
+        }
+        StoredBlob blob = pictureUrl.startsWith(URL_PREFIX)
+                ? storedBlobRepository.findByBlobKey(pictureUrl.substring(URL_PREFIX.length())).orElse(null)
+                : null;
+        if (blob == null || blob.getThumbnailState() != StoredBlob.ThumbnailState.READY) {
+            return new PictureUrls(pictureUrl, Map.of(), false);
+        }
+        Map<Integer, String> thumbnails = new LinkedHashMap<>();
+        blob.getThumbnails().forEach((size, key) -> thumbnails.put(size, URL_PREFIX + key));
+        return new PictureUrls(pictureUrl, thumbnails, true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPictureReleased(ProfilePictureReleasedEvent event) {
+        release(event.pictureUrl());
+    }
+
+    // Deletes blobs that have had no references for the grace period, one locked batch at a time
+    @Scheduled(fixedDelayString = "${storage.orphan-collect-ms:600000}")
+    public void collectOrphans() {
+        Instant cutoff = Instant.now().minusMillis(orphanGraceMillis);
+        int collected;
+        do {
+            collected = transaction.execute(status -> {
+                List<StoredBlob> orphans = storedBlobRepository.lockOrphans(cutoff, PageRequest.of(0, 100));
+                for (StoredBlob orphan : orphans) {
+                    try {
+                        blobStore.delete(orphan.getBlobKey());
+                    } catch (IOException e) {
+                        logger.warn("Failed to delete orphaned blob {}: {}", orphan.getBlobKey(), e.getMessage());
+                        continue;
+                    }
+                    // Thumbnails are shared by identical originals; they are collected once unreferenced
+                    for (String thumbnail : orphan.getThumbnails().values()) {
+                        storedBlobRepository.decrementRefCount(thumbnail, Instant.now());
+                    }
+                    storedBlobRepository.delete(orphan);
+                }
+                return orphans.size();
+            });
+            if (collected > 0) {
+                logger.info("Collected {} orphaned blobs", collected);
+            }
+        } while (collected == 100);
+    }
+
+    // Sets the picture with the user's row locked and returns what it replaced; null if the user is gone
+    private Swap swapPicture(Long userId, String pictureUrl) {
+        return transaction.execute(status -> {
+            User locked = userRepository.lockById(userId).orElse(null);
+            if (locked == null) {
+                return null;
+            }
+            String previous = locked.getProfilePicture();
+            locked.setProfilePicture(pictureUrl);
+            return new Swap(userRepository.save(locked), previous);
+        });
+    }
+
+    private void addReference(BlobStore.PutResult stored, String contentType) {
+        try {
+            transaction.executeWithoutResult(status -> {
+                if (storedBlobRepository.incrementRefCount(stored.key(), Instant.now()) == 0) {
+                    storedBlobRepository.saveAndFlush(new StoredBlob(stored.key(), stored.sha256(), stored.size(), contentType));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent upload of the same content inserted the row first
+            transaction.executeWithoutResult(status -> storedBlobRepository.incrementRefCount(stored.key(), Instant.now()));
+        }
+    }
+
+    private static ImageType detect(MultipartFile file) throws IOException {
+        byte[] head = new byte[12];
+        try (InputStream in = file.getInputStream()) {
+            int length = in.readNBytes(head, 0, head.length);
+            return ImageType.detect(head, length);
+        }
+    }
+}
@@ -1,62 +1,249 @@
 package com.example.proj3.service;
 
 import com.example.proj3.model.VideoGame;
+import com.example.proj3.service.RawgRateLimiter.Priority;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+/**
+ * Calls the RAWG games API.
+ *
+ * Responses are read with {@link RawgResponseParser}, which keeps only the fields we
+ * store, and all calls share one RestTemplate with connect and read timeouts. Parsed
+ * results are kept in the persistent {@link RawgResponseCache}, so they are served without
+ * a RAWG call until their TTL runs out, also across restarts.
+ *
+ * Every call takes a token from {@link RawgRateLimiter} (interactive for callers waiting
+ * on the answer, background for refreshes) and goes through {@link RawgCircuitBreaker}.
+ * When a result has expired and RAWG
+ * cannot be reached (breaker open, bulkhead full, or the call fails), the expired result
+ * is returned instead of an error and its key is queued; once the breaker lets calls
+ * through again, the queued keys are refreshed on a background thread.
+ */
 @Service
 public class RawgApiService {
 
-    private static final String RAWG_API_KEY = "c3101d469d92487fa6cc0d34454b74d7";
-    private static final String RAWG_API_URL = "https://api.rawg.io/api/games";
+    private static final Logger logger = LoggerFactory.getLogger(RawgApiService.class);
 
-    public List<VideoGame> fetchGamesFromRawg(int page, int pageSize) {
-        RestTemplate restTemplate = new RestTemplate();
-        String url = RAWG_API_URL + "?key=" + RAWG_API_KEY + "&page=" + page + "&page_size=" + pageSize;
+    private final RestTemplate restTemplate;
+    private final RawgResponseCache cache;
+    private final RawgCircuitBreaker breaker;
+    private final RawgRateLimiter rateLimiter;
+    private final String baseUrl;
+    private final String apiKey;
+    // Keys served stale, with the refresh to run once RAWG is reachable
+    private final Map<String, Runnable> pendingRevalidation = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor revalidator = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1),
+            runnable -> {
+                Thread thread = new Thread(runnable, "rawg-revalidate");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
 
-        Map<String, Object> response = restTemplate.getForObject(url, Map.class);
-        List<Map<String, Object>> results = (List<Map<String, Object>>) response.get("results");
+    @Value("${games.rawg-cache.page-ttl-seconds:3600}")
+    private long pageTtlSeconds;
 
-        List<VideoGame> games = new ArrayList<>();
-        for (Map<String, Object> result : results) {
+    @Value("${games.rawg-cache.search-ttl-seconds:900}")
+    private long searchTtlSeconds;
+
+    @Value("${games.rawg-cache.game-ttl-seconds:86400}")
+    private long gameTtlSeconds;
+
+    @Value("${games.rawg.max-pending-revalidations:1000}")
+    private int maxPendingRevalidations;
+
+    public RawgApiService(RestTemplateBuilder restTemplateBuilder, RawgResponseCache cache, RawgCircuitBreaker breaker,
+                          RawgRateLimiter rateLimiter,
+                          @Value("${games.rawg.base-url:https://api.rawg.io/api}") String baseUrl,
+                          @Value("${games.rawg.api-key}") String apiKey,
+                          @Value("${games.rawg.connect-timeout-ms:2000}") long connectTimeoutMillis,
+                          @Value("${games.rawg.read-timeout-ms:5000}") long readTimeoutMillis) {
+        this.restTemplate = restTemplateBuilder
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .readTimeout(Duration.ofMillis(readTimeoutMillis))
+                .build();
+        this.cache = cache;
+        this.breaker = breaker;
+        this.rateLimiter = rateLimiter;
+        this.baseUrl = baseUrl;
+        this.apiKey = apiKey;
+    }
+
+    /**
+     * The fields of a RAWG game that we store. {@code genres} is a comma-separated list of names.
+     */
+    public record RawgGame(String rawgId, String name, String backgroundImage, String genres) {
+
+        public VideoGame toVideoGame() {
             VideoGame game = new VideoGame();
-            game.setRawgId(result.get("id").toString());
-            game.setTitle(result.get("name").toString());
-            game.setImageUrl(result.get("background_image").toString());
-            games.add(game);
+            game.setRawgId(rawgId);
+            game.setTitle(name);
+            game.setImageUrl(backgroundImage);
+            game.setGenre(genres);
+            return game;
+        }
+    }
+
+    /**
+     * One page of a RAWG game list with the total number of matching games.
+     */
+    public record RawgPage(int count, List<RawgGame> results) {
+
+        public List<VideoGame> toVideoGames() {
+            List<VideoGame> games = new ArrayList<>(results.size());
+            for (RawgGame result : results) {
+                games.add(result.toVideoGame());
+            }
+            return games;
         }
+    }
 
-        return games;
+    public RawgPage fetchPage(int page, int pageSize) {
+        return cached("page:" + page + ":" + pageSize, Duration.ofSeconds(pageTtlSeconds),
+                RawgCodec::encodePage, RawgCodec::decodePage,
+                () -> restTemplate.execute(baseUrl + "/games?key={key}&page={page}&page_size={pageSize}", HttpMethod.GET,
+                        null, response -> RawgResponseParser.parsePage(response.getBody()), apiKey, page, pageSize));
     }
 
     public List<VideoGame> searchGames(String query) {
-        RestTemplate restTemplate = new RestTemplate();
-        String url = RAWG_API_URL + "?key=" + RAWG_API_KEY + "&search=" + query;
+        RawgPage result = cached("search:" + query, Duration.ofSeconds(searchTtlSeconds),
+                RawgCodec::encodePage, RawgCodec::decodePage,
+                () -> restTemplate.execute(baseUrl + "/games?key={key}&search={query}", HttpMethod.GET, null,
+                        response -> RawgResponseParser.parsePage(response.getBody()), apiKey, query));
+        return result.toVideoGames();
+    }
 
-        Map<String, Object> response = restTemplate.getForObject(url, Map.class);
-        List<Map<String, Object>> results = (List<Map<String, Object>>) response.get("results");
+    /**
+     * @throws RuntimeException if RAWG has no such game or the response has no name
+     */
+    public RawgGame fetchGame(long rawgId) {
+        return cached("game:" + rawgId, Duration.ofSeconds(gameTtlSeconds),
+                RawgCodec::encodeGame, RawgCodec::decodeGame,
+                () -> {
+                    RawgGame game = restTemplate.execute(baseUrl + "/games/{id}?key={key}", HttpMethod.GET, null,
+                            response -> RawgResponseParser.parseGame(response.getBody()), rawgId, apiKey);
+                    if (game == null || game.name() == null) {
+                        throw new RuntimeException("Invalid game data from RAWG API.");
+                    }
+                    return game;
+                });
+    }
 
-        List<VideoGame> games = new ArrayList<>();
-        for (Map<String, Object> result : results) {
-            VideoGame game = new VideoGame();
-            game.setRawgId(result.get("id").toString());
-            game.setTitle(result.get("name").toString());
-            game.setImageUrl(result.get("background_image") != null ? result.get("background_image").toString() : null);
-            games.add(game);
+    /**
+     * Hands the queued refreshes to the background thread once RAWG calls are allowed again.
+     */
+    @Scheduled(fixedDelayString = "${games.rawg.revalidate-interval-ms:5000}")
+    public void revalidatePending() {
+        if (pendingRevalidation.isEmpty() || !breaker.isCallPermitted()) {
+            return;
+        }
+        try {
+            revalidator.execute(this::drainPending);
+        } catch (RejectedExecutionException e) {
+            // A drain is already queued
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        revalidator.shutdownNow();
+    }
+
+    private void drainPending() {
+        int refreshed = 0;
+        for (String key : new ArrayList<>(pendingRevalidation.keySet())) {
+            Runnable refresh = pendingRevalidation.remove(key);
+            if (refresh == null) {
+                continue;
+            }
+            try {
+                refresh.run();
+                refreshed++;
+            } catch (RawgUnavailableException e) {
+                // RAWG went away again; keep the rest for the next round
+                pendingRevalidation.putIfAbsent(key, refresh);
+                break;
+            } catch (RuntimeException e) {
+                logger.debug("Dropped revalidation of {}: {}", key, e.getMessage());
+            }
+        }
+        if (refreshed > 0) {
+            logger.info("Revalidated {} stale RAWG results", refreshed);
+        }
+    }
+
+    // Serves a fresh cached result, or fetches from RAWG and caches what came back; falls
+    // back to an expired result when RAWG cannot be reached
+    private <T> T cached(String key, Duration ttl, Function<T, byte[]> encode, Function<byte[], T> decode,
+                         Supplier<T> fetch) {
+        RawgResponseCache.Entry entry = cache.lookup(key);
+        T stale = null;
+        if (entry != null) {
+            T value = decode.apply(entry.value());
+            if (value != null && entry.isFresh()) {
+                return value;
+            }
+            stale = value;
         }
 
-        return games;
+        Runnable refresh = () -> store(key, ttl, encode, call(Priority.BACKGROUND, fetch));
+        if (stale != null && !breaker.isCallPermitted()) {
+            queueRevalidation(key, refresh);
+            return stale;
+        }
+        try {
+            return store(key, ttl, encode, call(Priority.INTERACTIVE, fetch));
+        } catch (RawgUnavailableException e) {
+            if (stale == null) {
+                throw e;
+            }
+            queueRevalidation(key, refresh);
+            return stale;
+        }
+    }
+
+    // Checks the breaker before queueing for a token, so an outage fails fast instead of waiting
+    private <T> T call(Priority priority, Supplier<T> fetch) {
+        if (!breaker.isCallPermitted()) {
+            throw new RawgUnavailableException("RAWG is unavailable");
+        }
+        rateLimiter.acquire(priority);
+        return breaker.call(fetch);
     }
 
-    public int getTotalGames() {
-        RestTemplate restTemplate = new RestTemplate();
-        String url = RAWG_API_URL + "?key=" + RAWG_API_KEY;
+    private <T> T store(String key, Duration ttl, Function<T, byte[]> encode, T value) {
+        try {
+            cache.put(key, encode.apply(value), ttl);
+        } catch (RuntimeException e) {
+            // Not cacheable (a field over 64 KB); the caller still gets the result
+        }
+        return value;
+    }
 
-        Map<String, Object> response = restTemplate.getForObject(url, Map.class);
-        return (int) response.get("count");
+    private void queueRevalidation(String key, Runnable refresh) {
+        if (pendingRevalidation.size() < maxPendingRevalidations) {
+            pendingRevalidation.putIfAbsent(key, refresh);
+        }
     }
 }
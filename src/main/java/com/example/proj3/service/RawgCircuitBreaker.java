@@ -0,0 +1,221 @@
+package com.example.proj3.service;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Guards every call to RAWG with a bulkhead and a circuit breaker.
+ *
+ * The bulkhead is a semaphore: at most {@code games.rawg.max-concurrent-calls} requests
+ * talk to RAWG at once, and a request that cannot get a slot within
+ * {@code games.rawg.bulkhead-wait-ms} is rejected, so a slow RAWG ties up a fixed number
+ * of Tomcat threads rather than all of them. After
+ * {@code games.rawg.breaker.failure-threshold} failures in a row the breaker opens and
+ * calls fail immediately; after {@code games.rawg.breaker.open-ms} one trial call is let
+ * through, which closes the breaker if it succeeds and reopens it if not.
+ *
+ * Timeouts, connection errors, 5xx and 429 count as failures. Other 4xx answers (such as
+ * an unknown game) mean RAWG is up and count as successes.
+ */
+@Component
+public class RawgCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(RawgCircuitBreaker.class);
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final Semaphore bulkhead;
+    private final long bulkheadWaitMillis;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Counter rejectedCalls;
+    private final Counter shortCircuitedCalls;
+    private final Counter failedCalls;
+    private final Counter successfulCalls;
+    // Transition counters by source state, then target state
+    private final Map<State, Map<State, Counter>> transitions = new EnumMap<>(State.class);
+
+    // Guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public RawgCircuitBreaker(@Value("${games.rawg.max-concurrent-calls:8}") int maxConcurrentCalls,
+                              @Value("${games.rawg.bulkhead-wait-ms:250}") long bulkheadWaitMillis,
+                              @Value("${games.rawg.breaker.failure-threshold:5}") int failureThreshold,
+                              @Value("${games.rawg.breaker.open-ms:30000}") long openMillis,
+                              MeterRegistry meterRegistry) {
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.bulkheadWaitMillis = bulkheadWaitMillis;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.rejectedCalls = callCounter("rejected", meterRegistry);
+        this.shortCircuitedCalls = callCounter("short_circuited", meterRegistry);
+        this.failedCalls = callCounter("failure", meterRegistry);
+        this.successfulCalls = callCounter("success", meterRegistry);
+        for (State from : State.values()) {
+            Map<State, Counter> targets = new EnumMap<>(State.class);
+            for (State to : State.values()) {
+                if (to != from) {
+                    targets.put(to, Counter.builder("rawg.breaker.transitions")
+                            .tag("from", from.name().toLowerCase(Locale.ROOT))
+                            .tag("to", to.name().toLowerCase(Locale.ROOT))
+                            .register(meterRegistry));
+                }
+            }
+            transitions.put(from, targets);
+        }
+
+        Gauge.builder("rawg.breaker.state", this, breaker -> breaker.state().ordinal())
+                .description("0 closed, 1 half open, 2 open")
+                .register(meterRegistry);
+        Gauge.builder("rawg.bulkhead.in_use", bulkhead, b -> maxConcurrentCalls - b.availablePermits())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs a RAWG call if the breaker and bulkhead allow it.
+     *
+     * @throws RawgUnavailableException if the call was not attempted, or failed in a way
+     *                                  that counts against RAWG
+     */
+    public <T> T call(Supplier<T> rawgCall) {
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(bulkheadWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejectedCalls.increment();
+            throw new RawgUnavailableException("Too many concurrent RAWG requests");
+        }
+
+        State entered = null;
+        try {
+            entered = tryEnter();
+            if (entered == null) {
+                shortCircuitedCalls.increment();
+                throw new RawgUnavailableException("RAWG is unavailable");
+            }
+            T result;
+            try {
+                result = rawgCall.get();
+            } catch (HttpClientErrorException e) {
+                if (e.getStatusCode().value() == 429) {
+                    onFailure();
+                    failedCalls.increment();
+                    throw new RawgUnavailableException("RAWG rate limit reached", e);
+                }
+                onSuccess();
+                successfulCalls.increment();
+                throw e;
+            } catch (RestClientException e) {
+                onFailure();
+                failedCalls.increment();
+                throw new RawgUnavailableException("RAWG request failed: " + e.getMessage(), e);
+            } catch (RuntimeException e) {
+                // RAWG answered; the answer was unusable
+                onSuccess();
+                successfulCalls.increment();
+                throw e;
+            }
+            onSuccess();
+            successfulCalls.increment();
+            return result;
+        } finally {
+            if (entered == State.HALF_OPEN) {
+                // An Error from the call skips onSuccess and onFailure; it must not hold the trial slot forever
+                endTrial();
+            }
+            bulkhead.release();
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    /**
+     * @return false if calls should not be attempted right now
+     */
+    public synchronized boolean isCallPermitted() {
+        return switch (state) {
+            case CLOSED -> true;
+            case HALF_OPEN -> !trialInFlight;
+            case OPEN -> System.currentTimeMillis() - openedAt >= openMillis;
+        };
+    }
+
+    // Returns the state the call was let through in, HALF_OPEN for the trial call, or null if it may not run
+    private synchronized State tryEnter() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return null;
+            }
+            trialInFlight = true;
+            return State.HALF_OPEN;
+        }
+        return state == State.CLOSED ? State.CLOSED : null;
+    }
+
+    private synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        if (state != State.CLOSED) {
+            transition(State.CLOSED);
+        }
+    }
+
+    private synchronized void endTrial() {
+        trialInFlight = false;
+    }
+
+    private synchronized void onFailure() {
+        trialInFlight = false;
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            openedAt = System.currentTimeMillis();
+            if (state != State.OPEN) {
+                transition(State.OPEN);
+            }
+        }
+    }
+
+    // Caller holds the lock
+    private void transition(State to) {
+        logger.info("RAWG circuit breaker {} -> {}", state, to);
+        transitions.get(state).get(to).increment();
+        state = to;
+        if (to == State.CLOSED) {
+            consecutiveFailures = 0;
+        }
+    }
+
+    private static Counter callCounter(String outcome, MeterRegistry meterRegistry) {
+        return Counter.builder("rawg.calls").tag("outcome", outcome).register(meterRegistry);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.proj3.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.proj3.service.RawgApiService.RawgGame;
+import com.example.proj3.service.RawgApiService.RawgPage;
+
+/**
+ * Compact binary form of parsed RAWG results, as stored in {@link RawgResponseCache}.
+ * Only the fields we keep are written, so a cached page is a small fraction of the JSON.
+ */
+final class RawgCodec {
+
+    // Bump when the layout changes; older entries are then treated as misses
+    private static final byte VERSION = 1;
+
+    private RawgCodec() {
+    }
+
+    static byte[] encodeGame(RawgGame game) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            writeGame(out, game);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] encodePage(RawgPage page) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128 * (page.results().size() + 1));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeInt(page.count());
+            out.writeInt(page.results().size());
+            for (RawgGame game : page.results()) {
+                writeGame(out, game);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return The game, or null if the bytes are from another format version or damaged
+     */
+    static RawgGame decodeGame(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            return in.readByte() == VERSION ? readGame(in) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return The page, or null if the bytes are from another format version or damaged
+     */
+    static RawgPage decodePage(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readByte() != VERSION) {
+                return null;
+            }
+            int count = in.readInt();
+            int size = in.readInt();
+            if (size < 0 || size > data.length) {
+                return null;
+            }
+            List<RawgGame> results = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                results.add(readGame(in));
+            }
+            return new RawgPage(count, results);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void writeGame(DataOutputStream out, RawgGame game) throws IOException {
+        writeNullable(out, game.rawgId());
+        writeNullable(out, game.name());
+        writeNullable(out, game.backgroundImage());
+        writeNullable(out, game.genres());
+    }
+
+    private static RawgGame readGame(DataInputStream in) throws IOException {
+        return new RawgGame(readNullable(in), readNullable(in), readNullable(in), readNullable(in));
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.proj3.service;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.proj3.model.Review;
+import com.example.proj3.model.UserGameList;
+import com.example.proj3.model.VideoGame;
+import com.example.proj3.repository.ReviewRepo;
+import com.example.proj3.repository.UserGameListRepo;
+import com.example.proj3.repository.VideoGameRepo;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Makes sure the unique RAWG ID constraint exists before the application serves requests.
+ *
+ * Databases from before the constraint can hold several games with the same RAWG ID, and
+ * then {@code ddl-auto=update} only logs that it could not add it. At startup every such
+ * group is merged into the first game stored: reviews and list entries are moved over to
+ * it (a review is dropped if its author already reviewed that game), and the other games
+ * are deleted. The constraint is then added if it is still missing, and startup fails if
+ * that does not work, since GameResolver relies on it across instances.
+ */
+@Component
+public class RawgIdDeduplicator {
+
+    static final String CONSTRAINT = "uk_video_game_rawg_id";
+
+    private static final Logger logger = LoggerFactory.getLogger(RawgIdDeduplicator.class);
+
+    private final VideoGameRepo videoGameRepo;
+    private final ReviewRepo reviewRepo;
+    private final UserGameListRepo userGameListRepo;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaction;
+
+    public RawgIdDeduplicator(VideoGameRepo videoGameRepo, ReviewRepo reviewRepo, UserGameListRepo userGameListRepo,
+                              EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.videoGameRepo = videoGameRepo;
+        this.reviewRepo = reviewRepo;
+        this.userGameListRepo = userGameListRepo;
+        this.entityManager = entityManager;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    // Runs before the ApplicationReadyEvent listeners load RawgIdIndex and the similarity tables
+    @PostConstruct
+    public void deduplicate() {
+        Integer removed = transaction.execute(status -> mergeDuplicates());
+        if (removed != null && removed > 0) {
+            logger.warn("Merged {} duplicate games into the first game stored with the same RAWG ID", removed);
+        }
+        transaction.executeWithoutResult(status -> {
+            if (!constraintExists()) {
+                logger.info("Adding unique constraint {}", CONSTRAINT);
+                try {
+                    entityManager.createNativeQuery("ALTER TABLE video_game ADD CONSTRAINT " + CONSTRAINT
+                            + " UNIQUE (rawg_id)").executeUpdate();
+                } catch (RuntimeException e) {
+                    throw new IllegalStateException("Could not add unique constraint " + CONSTRAINT, e);
+                }
+            }
+        });
+    }
+
+    private int mergeDuplicates() {
+        int removed = 0;
+        for (Object[] row : videoGameRepo.findDuplicateRawgIds()) {
+            VideoGame keep = videoGameRepo.getReferenceById((Long) row[1]);
+            List<VideoGame> extras = videoGameRepo.findByRawgIdAndIdNot((String) row[0], keep.getId());
+            Set<Long> extraIds = extras.stream().map(VideoGame::getId).collect(Collectors.toSet());
+
+            for (Review review : reviewRepo.findByVideoGameIn(extras)) {
+                if (reviewRepo.findByUserAndVideoGame(review.getUser(), keep).isPresent()) {
+                    reviewRepo.delete(review);
+                } else {
+                    review.setVideoGame(keep);
+                    // Flushed now so the next review by the same user sees this one
+                    reviewRepo.saveAndFlush(review);
+                }
+            }
+            for (UserGameList list : userGameListRepo.findContainingAny(extras)) {
+                List<VideoGame> games = list.getVideoGames();
+                int at = indexOf(games, extraIds);
+                boolean hasKeep = games.stream().anyMatch(game -> keep.getId().equals(game.getId()));
+                games.removeIf(game -> extraIds.contains(game.getId()));
+                if (!hasKeep) {
+                    games.add(Math.min(at, games.size()), keep);
+                }
+            }
+            videoGameRepo.deleteAll(extras);
+            removed += extras.size();
+        }
+        return removed;
+    }
+
+    // Position of the first duplicate in a list, so the merged game keeps its place
+    private static int indexOf(List<VideoGame> games, Set<Long> ids) {
+        for (int i = 0; i < games.size(); i++) {
+            if (ids.contains(games.get(i).getId())) {
+                return i;
+            }
+        }
+        return games.size();
+    }
+
+    private boolean constraintExists() {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), null, "video_game", true, false)) {
+                while (indexes.next()) {
+                    if (CONSTRAINT.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+    }
+}
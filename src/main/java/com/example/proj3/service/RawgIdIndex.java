@@ -0,0 +1,157 @@
+package com.example.proj3.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.proj3.model.VideoGame;
+import com.example.proj3.repository.VideoGameRepo;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-memory map from RAWG ID to local VideoGame ID.
+ *
+ * RAWG IDs are numeric strings, so the whole mapping fits a primitive long-to-long hash
+ * map: 16 bytes per slot, optionally allocated off the heap. It is bulk-loaded from a
+ * two-column projection at startup and extended whenever a game is saved.
+ *
+ * The map is only trusted for hits. A miss (a game inserted by another instance, a
+ * non-numeric or zero-padded ID, or a lookup before the load finishes) falls through to
+ * the database, and whatever is found there is added to the map. Padded IDs are refused
+ * because "007" and "7" would share a key but are different strings in the database.
+ */
+@Service
+public class RawgIdIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RawgIdIndex.class);
+
+    private final VideoGameRepo videoGameRepo;
+    private final TransactionTemplate readOnlyTransaction;
+    private final LongLongOpenHashMap ids;
+
+    public RawgIdIndex(VideoGameRepo videoGameRepo, PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${games.rawg-index.expected-size:100000}") int expectedSize,
+                       @Value("${games.rawg-index.off-heap:true}") boolean offHeap) {
+        this.videoGameRepo = videoGameRepo;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.ids = new LongLongOpenHashMap(expectedSize, offHeap);
+
+        Gauge.builder("games.rawg_index.size", ids, LongLongOpenHashMap::size).register(meterRegistry);
+        Gauge.builder("games.rawg_index.bytes", ids, LongLongOpenHashMap::footprintBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = videoGameRepo.streamRawgIds()) {
+                rows.forEach(row -> put((String) row[0], (Long) row[1]));
+            }
+        });
+        logger.info("Loaded {} RAWG IDs in {} ms ({} bytes)", ids.size(),
+                System.currentTimeMillis() - start, ids.footprintBytes());
+    }
+
+    /**
+     * Finds the local ID of a game, querying the database only if the map has no entry.
+     *
+     * @return The local ID, or null if no game has this RAWG ID
+     */
+    public Long resolve(String rawgId) {
+        long key = parse(rawgId);
+        long id = ids.get(key);
+        if (id != LongLongOpenHashMap.MISSING) {
+            return id;
+        }
+        return videoGameRepo.findFirstByRawgIdOrderByIdAsc(rawgId).map(game -> {
+            put(rawgId, game.getId());
+            return game.getId();
+        }).orElse(null);
+    }
+
+    /**
+     * Looks the RAWG ID up in the map only.
+     *
+     * @return The local ID, or null if the map has no entry; the game may still be in the database
+     */
+    public Long cached(String rawgId) {
+        long id = ids.get(parse(rawgId));
+        return id == LongLongOpenHashMap.MISSING ? null : id;
+    }
+
+    /**
+     * Resolves several RAWG IDs with at most one database query, for the ones not in the map.
+     *
+     * @return Local IDs keyed by RAWG ID; unknown RAWG IDs are left out
+     */
+    public Map<String, Long> resolveAll(Collection<String> rawgIds) {
+        Map<String, Long> resolved = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String rawgId : rawgIds) {
+            long id = ids.get(parse(rawgId));
+            if (id != LongLongOpenHashMap.MISSING) {
+                resolved.put(rawgId, id);
+            } else if (rawgId != null) {
+                misses.add(rawgId);
+            }
+        }
+        if (!misses.isEmpty()) {
+            // Newest first, so the oldest of any duplicates is put last
+            for (Object[] row : videoGameRepo.findIdsByRawgIds(misses)) {
+                put((String) row[0], (Long) row[1]);
+                resolved.put((String) row[0], (Long) row[1]);
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Records a newly saved game.
+     */
+    public void record(VideoGame game) {
+        if (game.getRawgId() != null && game.getId() != null) {
+            put(game.getRawgId(), game.getId());
+        }
+    }
+
+    private void put(String rawgId, Long id) {
+        long key = parse(rawgId);
+        if (key > 0 && id != null) {
+            ids.put(key, id);
+        }
+    }
+
+    // Only canonical positive numbers are stored; anything else ("007", "abc") always goes to the database
+    static long parse(String rawgId) {
+        if (rawgId == null || rawgId.isEmpty() || rawgId.length() > 18 || rawgId.charAt(0) == '0') {
+            return LongLongOpenHashMap.MISSING;
+        }
+        long value = 0;
+        for (int i = 0; i < rawgId.length(); i++) {
+            char c = rawgId.charAt(i);
+            if (c < '0' || c > '9') {
+                return LongLongOpenHashMap.MISSING;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
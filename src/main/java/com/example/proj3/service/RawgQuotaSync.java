@@ -0,0 +1,75 @@
+package com.example.proj3.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.proj3.model.RawgQuotaUsage;
+import com.example.proj3.repository.RawgQuotaUsageRepository;
+import com.example.proj3.service.RawgRateLimiter.QuotaUsage;
+
+/**
+ * Keeps RawgRateLimiter's monthly request count in the database.
+ *
+ * Every few seconds the requests the limiter counted since the last run are added to the
+ * month's row in one short transaction, and the row's total, which includes every other
+ * instance, becomes the limiter's count. The first run at startup only reads the total, so
+ * a restart picks up where the month stands. If the database cannot be reached the
+ * requests are kept and added on the next run; a crash loses at most one interval.
+ */
+@Component
+public class RawgQuotaSync {
+
+    private static final Logger logger = LoggerFactory.getLogger(RawgQuotaSync.class);
+
+    private final RawgRateLimiter rateLimiter;
+    private final RawgQuotaUsageRepository quotaUsageRepository;
+    private final TransactionTemplate transaction;
+
+    public RawgQuotaSync(RawgRateLimiter rateLimiter, RawgQuotaUsageRepository quotaUsageRepository,
+                         PlatformTransactionManager transactionManager) {
+        this.rateLimiter = rateLimiter;
+        this.quotaUsageRepository = quotaUsageRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${games.rawg.rate-limit.quota-sync-ms:5000}",
+            fixedDelayString = "${games.rawg.rate-limit.quota-sync-ms:5000}")
+    public void sync() {
+        QuotaUsage usage = rateLimiter.drainQuotaUsage();
+        if (usage == null) {
+            return;
+        }
+        try {
+            long total;
+            try {
+                total = record(usage);
+            } catch (DataIntegrityViolationException e) {
+                // Another instance created the month's row first; now it exists
+                total = record(usage);
+            }
+            rateLimiter.applySharedQuotaUsage(usage.month(), total);
+        } catch (RuntimeException e) {
+            rateLimiter.restoreQuotaUsage(usage);
+            logger.warn("Could not save RAWG quota usage, retrying on the next run: {}", e.getMessage());
+        }
+    }
+
+    // Adds the requests to the month's row, creating it on first use, and returns its total
+    private long record(QuotaUsage usage) {
+        return transaction.execute(status -> {
+            if (usage.requests() > 0 && quotaUsageRepository.addRequests(usage.month(), usage.requests()) == 0) {
+                quotaUsageRepository.saveAndFlush(new RawgQuotaUsage(usage.month(), usage.requests()));
+                return usage.requests();
+            }
+            return quotaUsageRepository.findRequests(usage.month()).orElse(0L);
+        });
+    }
+}
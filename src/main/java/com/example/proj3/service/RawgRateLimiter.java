@@ -0,0 +1,334 @@
+package com.example.proj3.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Token bucket for outbound RAWG requests, shared by all callers, with two priority lanes.
+ *
+ * The bucket holds up to {@code games.rawg.rate-limit.burst} tokens and refills at
+ * {@code games.rawg.rate-limit.per-second}; every request takes one, so the configured
+ * rate is never exceeded. Requests that find no token queue in their lane, first come
+ * first served. Freed tokens always go to the interactive lane first, and background
+ * requests additionally leave {@code interactive-reserve} tokens in the bucket, so
+ * background work never makes a user request wait. A queued request that has no token by
+ * its lane's deadline gives up with {@link RawgUnavailableException}.
+ *
+ * On top of the rate, {@code games.rawg.rate-limit.quota-per-month} caps the requests
+ * made per calendar month (UTC), which is how RAWG bills API keys. Once it is used up every
+ * request fails at once with {@link RawgUnavailableException} until the month rolls over,
+ * so callers fall back to cached results instead of getting the key suspended. The count
+ * is checked in memory; {@link RawgQuotaSync} adds the requests counted since its last
+ * run to a per-month database row every few seconds and hands back the total, so the
+ * count survives restarts and covers every instance using the key. Zero disables the cap.
+ */
+@Component
+public class RawgRateLimiter {
+
+    public enum Priority {
+        // On behalf of a user request that is waiting for the answer
+        INTERACTIVE,
+        // Refreshes and other work nobody is waiting for
+        BACKGROUND
+    }
+
+    /**
+     * Requests counted by this instance and not yet added to the shared count.
+     *
+     * @param month The calendar month (UTC) they were made in, e.g. "2026-10"
+     */
+    public record QuotaUsage(String month, long requests) {
+    }
+
+    private static final class Waiter {
+        final Condition signal;
+        boolean granted;
+
+        Waiter(Condition signal) {
+            this.signal = signal;
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<Waiter> interactive = new ArrayDeque<>();
+    private final Deque<Waiter> background = new ArrayDeque<>();
+    private final double burst;
+    private final double tokensPerNano;
+    private final double interactiveReserve;
+    private final long interactiveMaxWaitNanos;
+    private final long backgroundMaxWaitNanos;
+    private final long quotaPerMonth;
+    private final Map<Priority, Timer> waits = new EnumMap<>(Priority.class);
+    private final Map<Priority, Counter> timeouts = new EnumMap<>(Priority.class);
+    private final Counter quotaRejections;
+
+    // Guarded by lock
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+    private long quotaUsed;
+    private long quotaUnsynced;
+    private String quotaMonth = currentMonth();
+    private long quotaResetsAt = startOfNextMonth();
+
+    public RawgRateLimiter(@Value("${games.rawg.rate-limit.per-second:5}") double perSecond,
+                           @Value("${games.rawg.rate-limit.burst:5}") int burst,
+                           @Value("${games.rawg.rate-limit.interactive-reserve:1}") int interactiveReserve,
+                           @Value("${games.rawg.rate-limit.interactive-max-wait-ms:2000}") long interactiveMaxWaitMillis,
+                           @Value("${games.rawg.rate-limit.background-max-wait-ms:30000}") long backgroundMaxWaitMillis,
+                           @Value("${games.rawg.rate-limit.quota-per-month:20000}") long quotaPerMonth,
+                           MeterRegistry meterRegistry) {
+        this.burst = Math.max(1, burst);
+        this.tokensPerNano = perSecond / TimeUnit.SECONDS.toNanos(1);
+        this.interactiveReserve = Math.min(interactiveReserve, this.burst - 1);
+        this.interactiveMaxWaitNanos = TimeUnit.MILLISECONDS.toNanos(interactiveMaxWaitMillis);
+        this.backgroundMaxWaitNanos = TimeUnit.MILLISECONDS.toNanos(backgroundMaxWaitMillis);
+        this.quotaPerMonth = quotaPerMonth;
+        this.tokens = this.burst;
+
+        for (Priority priority : Priority.values()) {
+            Gauge.builder("rawg.ratelimit.queue.depth", this, limiter -> limiter.queueDepth(priority))
+                    .tag("lane", tagOf(priority))
+                    .register(meterRegistry);
+            waits.put(priority, Timer.builder("rawg.ratelimit.wait").tag("lane", tagOf(priority))
+                    .register(meterRegistry));
+            timeouts.put(priority, Counter.builder("rawg.ratelimit.timeouts").tag("lane", tagOf(priority))
+                    .register(meterRegistry));
+        }
+        this.quotaRejections = Counter.builder("rawg.ratelimit.quota.rejections").register(meterRegistry);
+        if (quotaPerMonth > 0) {
+            Gauge.builder("rawg.ratelimit.quota.remaining", this, RawgRateLimiter::quotaRemaining)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Takes a token, waiting in the given lane if there is none.
+     *
+     * @throws RawgUnavailableException if no token was granted before the lane's deadline,
+     *                                  or this month's quota is used up
+     */
+    public void acquire(Priority priority) {
+        long start = System.nanoTime();
+        long deadline = start + (priority == Priority.INTERACTIVE ? interactiveMaxWaitNanos : backgroundMaxWaitNanos);
+        Deque<Waiter> lane = priority == Priority.INTERACTIVE ? interactive : background;
+
+        lock.lock();
+        try {
+            checkQuota();
+            refill();
+            if (lane.isEmpty() && canTake(priority)) {
+                take();
+                recordWait(priority, start);
+                return;
+            }
+
+            Waiter waiter = new Waiter(lock.newCondition());
+            lane.addLast(waiter);
+            while (true) {
+                grant();
+                if (waiter.granted) {
+                    recordWait(priority, start);
+                    return;
+                }
+                if (quotaExhausted()) {
+                    lane.remove(waiter);
+                    checkQuota();
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    lane.remove(waiter);
+                    timeouts.get(priority).increment();
+                    throw new RawgUnavailableException("RAWG request quota busy, try again shortly");
+                }
+                try {
+                    waiter.signal.awaitNanos(Math.min(remaining, nanosUntilNextToken()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    lane.remove(waiter);
+                    if (waiter.granted) {
+                        // hand back a token granted while we were being interrupted
+                        tokens += 1;
+                        quotaUsed -= 1;
+                        quotaUnsynced -= 1;
+                    }
+                    throw new RawgUnavailableException("Interrupted while waiting for a RAWG request slot", e);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Hands available tokens to the heads of the lanes, interactive first; caller holds the lock
+    private void grant() {
+        refill();
+        while (true) {
+            Deque<Waiter> lane;
+            if (!interactive.isEmpty() && canTake(Priority.INTERACTIVE)) {
+                lane = interactive;
+            } else if (!background.isEmpty() && canTake(Priority.BACKGROUND)) {
+                lane = background;
+            } else {
+                return;
+            }
+            Waiter next = lane.pollFirst();
+            take();
+            next.granted = true;
+            next.signal.signal();
+        }
+    }
+
+    /**
+     * Takes the requests counted since the last call, to be added to the shared count.
+     *
+     * @return The requests, or null if there is no quota to keep
+     */
+    public QuotaUsage drainQuotaUsage() {
+        if (quotaPerMonth <= 0) {
+            return null;
+        }
+        lock.lock();
+        try {
+            quotaExhausted();
+            QuotaUsage usage = new QuotaUsage(quotaMonth, quotaUnsynced);
+            quotaUnsynced = 0;
+            return usage;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Puts back drained requests that could not be written, so the next sync retries them.
+     */
+    public void restoreQuotaUsage(QuotaUsage usage) {
+        lock.lock();
+        try {
+            if (usage.month().equals(quotaMonth)) {
+                quotaUnsynced += usage.requests();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the month's total across all instances as this instance's count, plus what it
+     * has counted since draining. A total for a month that has ended is ignored.
+     */
+    public void applySharedQuotaUsage(String month, long total) {
+        lock.lock();
+        try {
+            quotaExhausted();
+            if (month.equals(quotaMonth)) {
+                quotaUsed = total + quotaUnsynced;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Caller holds the lock
+    private void take() {
+        tokens -= 1;
+        quotaUsed += 1;
+        quotaUnsynced += 1;
+    }
+
+    // Caller holds the lock
+    private void checkQuota() {
+        if (quotaExhausted()) {
+            quotaRejections.increment();
+            throw new RawgUnavailableException("RAWG monthly request quota used up");
+        }
+    }
+
+    // Caller holds the lock
+    private boolean quotaExhausted() {
+        if (quotaPerMonth <= 0) {
+            return false;
+        }
+        if (System.currentTimeMillis() >= quotaResetsAt) {
+            // Requests of the last few seconds of the old month are not carried over
+            quotaUsed = 0;
+            quotaUnsynced = 0;
+            quotaMonth = currentMonth();
+            quotaResetsAt = startOfNextMonth();
+        }
+        return quotaUsed >= quotaPerMonth;
+    }
+
+    private long quotaRemaining() {
+        lock.lock();
+        try {
+            quotaExhausted();
+            return Math.max(0, quotaPerMonth - quotaUsed);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean canTake(Priority priority) {
+        if (quotaExhausted()) {
+            return false;
+        }
+        if (priority == Priority.INTERACTIVE) {
+            return tokens >= 1;
+        }
+        return interactive.isEmpty() && tokens >= 1 + interactiveReserve;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+
+    private long nanosUntilNextToken() {
+        double missing = Math.max(0, 1 - tokens);
+        return Math.max(TimeUnit.MILLISECONDS.toNanos(1), (long) Math.ceil(missing / tokensPerNano));
+    }
+
+    private int queueDepth(Priority priority) {
+        lock.lock();
+        try {
+            return (priority == Priority.INTERACTIVE ? interactive : background).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordWait(Priority priority, long start) {
+        waits.get(priority).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static String currentMonth() {
+        return YearMonth.now(ZoneOffset.UTC).toString();
+    }
+
+    private static long startOfNextMonth() {
+        return LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1).plusMonths(1)
+                .atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    private static String tagOf(Priority priority) {
+        return priority.name().toLowerCase(Locale.ROOT);
+    }
+}
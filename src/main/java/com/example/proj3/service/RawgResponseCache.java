@@ -0,0 +1,449 @@
+package com.example.proj3.service;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Persistent cache of RAWG responses, kept in memory-mapped segment files under
+ * {@code games.rawg-cache.dir}.
+ *
+ * Entries are appended to the active segment as records of
+ * {@code [magic][key length][value length][expires at][crc][key][value]}; a segment that
+ * is full is left as it is and a new one is started. An in-memory map from key to record
+ * location is rebuilt at startup by scanning the segments oldest first, so a restart keeps
+ * everything that has not expired, and a hit is a copy out of the mapping with no network
+ * or read call. A record cut off by a crash fails its CRC and ends the scan of its segment.
+ *
+ * Disk use is bounded by {@code games.rawg-cache.max-bytes}: when a new segment would go
+ * over it, the oldest segment is dropped with its entries and unmapped, so its file's space
+ * is freed straight away. A background compaction rewrites segments that are mostly expired
+ * or overwritten, keeping their live entries; it copies values outside the cache lock and
+ * only takes it to append each one.
+ * Expired entries stay readable as stale for {@code games.rawg-cache.max-stale-seconds},
+ * so they can stand in for RAWG while it is down.
+ */
+@Component
+public class RawgResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(RawgResponseCache.class);
+
+    private static final int MAGIC = 0x52574743; // "RWGC"
+    // magic, key length, value length, expires at, crc
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8 + 4;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    // Segments with less than this share of live bytes are compacted
+    private static final double COMPACT_BELOW_LIVE_RATIO = 0.5;
+
+    // Unmaps a buffer without waiting for it to be garbage collected; null where the JDK does not allow it
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warn("Dropped RAWG cache segments stay mapped until garbage collected: {}", e.toString());
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    /**
+     * One segment file, mapped whole. Records are written at {@code end} under the cache
+     * lock; readers only touch records the index points to, which are complete. Reads hold
+     * the segment's read lock so the mapping is not released under them.
+     */
+    private static final class Segment {
+        final long id;
+        final Path path;
+        final MappedByteBuffer buffer;
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        volatile boolean closed;
+        int end;
+
+        Segment(long id, Path path, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+        // Null once the segment has been dropped
+        byte[] read(int offset, int length) {
+            lock.readLock().lock();
+            try {
+                if (closed) {
+                    return null;
+                }
+                byte[] value = new byte[length];
+                buffer.get(offset, value);
+                return value;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void close() {
+            lock.writeLock().lock();
+            try {
+                if (!closed) {
+                    closed = true;
+                    unmap(buffer);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Where a key's latest record is; {@code offset} is the start of the value.
+     */
+    private record Location(Segment segment, int recordOffset, int offset, int length, long expiresAt) {
+        int recordLength() {
+            return offset + length - recordOffset;
+        }
+    }
+
+    private final boolean enabled;
+    private final Path dir;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final long maxStaleMillis;
+    private final Counter hits;
+    private final Counter staleHits;
+    private final Counter misses;
+
+    // Guarded by this
+    private Segment active;
+
+    public RawgResponseCache(@Value("${games.rawg-cache.enabled:true}") boolean enabled,
+                             @Value("${games.rawg-cache.dir:rawg-cache}") String dir,
+                             @Value("${games.rawg-cache.segment-bytes:16777216}") int segmentBytes,
+                             @Value("${games.rawg-cache.max-bytes:268435456}") long maxBytes,
+                             @Value("${games.rawg-cache.max-stale-seconds:604800}") long maxStaleSeconds,
+                             MeterRegistry meterRegistry) throws IOException {
+        this.enabled = enabled;
+        this.dir = Paths.get(dir).toAbsolutePath().normalize();
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = (int) Math.max(2, maxBytes / segmentBytes);
+        this.maxStaleMillis = maxStaleSeconds * 1000;
+        this.hits = Counter.builder("rawg.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.staleHits = Counter.builder("rawg.cache.requests").tag("result", "stale").register(meterRegistry);
+        this.misses = Counter.builder("rawg.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("rawg.cache.entries", index, Map::size).register(meterRegistry);
+        Gauge.builder("rawg.cache.bytes", segments, s -> (double) s.size() * segmentBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        if (enabled) {
+            Files.createDirectories(this.dir);
+            recover();
+        }
+    }
+
+    /**
+     * A cached value with its expiry time.
+     */
+    public record Entry(byte[] value, long expiresAt) {
+        public boolean isFresh() {
+            return expiresAt > System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * @return The cached value, fresh or stale, or null if there is none or it is past the
+     *         stale limit
+     */
+    public Entry lookup(String key) {
+        Location location = enabled ? index.get(key) : null;
+        long now = System.currentTimeMillis();
+        if (location == null || location.expiresAt() + maxStaleMillis <= now) {
+            misses.increment();
+            return null;
+        }
+        byte[] value = read(location);
+        if (value == null) {
+            // Its segment was dropped to stay within max-bytes
+            index.remove(key, location);
+            misses.increment();
+            return null;
+        }
+        (location.expiresAt() > now ? hits : staleHits).increment();
+        return new Entry(value, location.expiresAt());
+    }
+
+    /**
+     * Stores a value, replacing any earlier one for the key. Values that do not fit in a
+     * segment are not cached.
+     */
+    public void put(String key, byte[] value, Duration ttl) {
+        if (!enabled) {
+            return;
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (HEADER_BYTES + keyBytes.length + value.length > segmentBytes) {
+            return;
+        }
+        synchronized (this) {
+            try {
+                append(key, keyBytes, value, System.currentTimeMillis() + ttl.toMillis());
+            } catch (IOException e) {
+                logger.warn("Failed to cache RAWG response {}: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Rewrites the live entries of mostly dead segments into the active one and deletes
+     * those segments. Entries past the stale limit, or left in dropped segments, are removed
+     * from the index first, and the live entries are grouped by segment in the same pass.
+     */
+    @Scheduled(initialDelayString = "${games.rawg-cache.compact-interval-ms:600000}",
+               fixedDelayString = "${games.rawg-cache.compact-interval-ms:600000}")
+    public void compact() {
+        if (!enabled) {
+            return;
+        }
+        // Only segments older than the active one are compacted; their ends no longer move
+        List<Segment> candidates;
+        synchronized (this) {
+            candidates = new ArrayList<>(segments.headMap(active == null ? Long.MAX_VALUE : active.id).values());
+        }
+
+        long now = System.currentTimeMillis();
+        Map<Segment, List<Map.Entry<String, Location>>> live = new HashMap<>();
+        for (Map.Entry<String, Location> entry : index.entrySet()) {
+            Location location = entry.getValue();
+            if (location.expiresAt() + maxStaleMillis <= now || location.segment().closed) {
+                index.remove(entry.getKey(), location);
+            } else {
+                live.computeIfAbsent(location.segment(), segment -> new ArrayList<>())
+                        .add(Map.entry(entry.getKey(), location));
+            }
+        }
+
+        for (Segment segment : candidates) {
+            List<Map.Entry<String, Location>> entries = live.getOrDefault(segment, List.of());
+            long liveBytes = entries.stream().mapToLong(entry -> entry.getValue().recordLength()).sum();
+            if (liveBytes < segment.end * COMPACT_BELOW_LIVE_RATIO) {
+                try {
+                    rewrite(segment, entries);
+                } catch (IOException e) {
+                    logger.warn("Failed to compact RAWG cache segment {}: {}", segment.path, e.getMessage());
+                    return;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void flush() {
+        if (active != null) {
+            active.buffer.force();
+        }
+    }
+
+    // Copies each value outside the lock and appends it under the lock unless the key was written meanwhile
+    private void rewrite(Segment segment, List<Map.Entry<String, Location>> entries) throws IOException {
+        int moved = 0;
+        for (Map.Entry<String, Location> entry : entries) {
+            Location location = entry.getValue();
+            byte[] value = read(location);
+            if (value == null) {
+                return;
+            }
+            String key = entry.getKey();
+            synchronized (this) {
+                if (index.get(key) == location) {
+                    append(key, key.getBytes(StandardCharsets.UTF_8), value, location.expiresAt());
+                    moved++;
+                }
+            }
+        }
+        synchronized (this) {
+            if (segments.get(segment.id) == segment) {
+                drop(segment);
+            }
+        }
+        logger.debug("Compacted RAWG cache segment {}, kept {} entries", segment.path, moved);
+    }
+
+    // Caller holds the lock
+    private void append(String key, byte[] keyBytes, byte[] value, long expiresAt) throws IOException {
+        int length = HEADER_BYTES + keyBytes.length + value.length;
+        if (active == null || active.end + length > active.buffer.capacity()) {
+            roll();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(keyBytes);
+        crc.update(value);
+
+        MappedByteBuffer buffer = active.buffer;
+        int start = active.end;
+        buffer.putInt(start + 4, keyBytes.length);
+        buffer.putInt(start + 8, value.length);
+        buffer.putLong(start + 12, expiresAt);
+        buffer.putInt(start + 20, (int) crc.getValue());
+        buffer.put(start + HEADER_BYTES, keyBytes);
+        buffer.put(start + HEADER_BYTES + keyBytes.length, value);
+        // Written last, so a record cut off part way never starts with a valid magic
+        buffer.putInt(start, MAGIC);
+        active.end = start + length;
+
+        index.put(key, new Location(active, start, start + HEADER_BYTES + keyBytes.length, value.length, expiresAt));
+    }
+
+    // Starts a new segment, first dropping the oldest ones if that would exceed the disk budget
+    private void roll() throws IOException {
+        while (segments.size() >= maxSegments) {
+            drop(segments.firstEntry().getValue());
+        }
+        long id = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        active = open(dir.resolve(SEGMENT_PREFIX + String.format("%016d", id) + SEGMENT_SUFFIX), id, segmentBytes);
+        segments.put(id, active);
+    }
+
+    // Caller holds the lock. Index entries left pointing at the segment read as misses and
+    // are removed by the lookup or compaction that finds them, rather than by a scan here
+    private void drop(Segment segment) throws IOException {
+        segments.remove(segment.id);
+        if (segment == active) {
+            active = null;
+        }
+        segment.close();
+        Files.deleteIfExists(segment.path);
+    }
+
+    private static byte[] read(Location location) {
+        return location.segment().read(location.offset(), location.length());
+    }
+
+    private static void unmap(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException e) {
+            logger.warn("Failed to unmap RAWG cache segment: {}", e.toString());
+        }
+    }
+
+    private static Segment open(Path path, long id, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return new Segment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            entries.forEach(paths::add);
+        }
+        paths.sort(null);
+
+        long now = System.currentTimeMillis();
+        for (Path path : paths) {
+            String name = path.getFileName().toString();
+            long id;
+            try {
+                id = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            long size = Files.size(path);
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                Files.deleteIfExists(path);
+                continue;
+            }
+            Segment segment = open(path, id, size);
+            scan(segment, now);
+            segments.put(id, segment);
+        }
+
+        // Keep appending to the newest segment; a torn record at its end is overwritten
+        synchronized (this) {
+            active = segments.isEmpty() ? null : segments.lastEntry().getValue();
+            while (segments.size() > maxSegments) {
+                drop(segments.firstEntry().getValue());
+            }
+        }
+        logger.info("Recovered {} RAWG cache entries from {} segments", index.size(), segments.size());
+    }
+
+    private void scan(Segment segment, long now) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        while (position + HEADER_BYTES <= buffer.capacity() && buffer.getInt(position) == MAGIC) {
+            int keyLength = buffer.getInt(position + 4);
+            int valueLength = buffer.getInt(position + 8);
+            long expiresAt = buffer.getLong(position + 12);
+            int storedCrc = buffer.getInt(position + 20);
+            int keyOffset = position + HEADER_BYTES;
+            if (keyLength < 0 || valueLength < 0 || (long) keyOffset + keyLength + valueLength > buffer.capacity()) {
+                break;
+            }
+
+            byte[] keyBytes = new byte[keyLength];
+            buffer.get(keyOffset, keyBytes);
+            CRC32 crc = new CRC32();
+            crc.update(keyBytes);
+            crc.update(buffer.slice(keyOffset + keyLength, valueLength));
+            if ((int) crc.getValue() != storedCrc) {
+                break;
+            }
+
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
+            if (expiresAt + maxStaleMillis > now) {
+                index.put(key, new Location(segment, position, keyOffset + keyLength, valueLength, expiresAt));
+            } else {
+                // A dead newer record still hides an older one
+                index.remove(key);
+            }
+            position = keyOffset + keyLength + valueLength;
+        }
+        segment.end = position;
+    }
+}
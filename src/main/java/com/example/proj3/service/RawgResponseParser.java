@@ -0,0 +1,150 @@
+package com.example.proj3.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.proj3.service.RawgApiService.RawgGame;
+import com.example.proj3.service.RawgApiService.RawgPage;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Reads RAWG game and game-list responses with a streaming JSON parser.
+ *
+ * Only the fields that end up on a VideoGame are read; everything else RAWG sends
+ * (platforms, screenshots, tags, ratings...) is skipped token by token without building
+ * objects for it. A body that ends before its objects are closed is rejected with an
+ * IOException rather than returned as a partial game or page.
+ */
+final class RawgResponseParser {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private RawgResponseParser() {
+    }
+
+    /**
+     * Parses a {@code /games} list response.
+     */
+    static RawgPage parsePage(InputStream in) throws IOException {
+        int count = 0;
+        List<RawgGame> results = new ArrayList<>();
+        try (JsonParser parser = JSON.createParser(in)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("count".equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                    count = parser.getIntValue();
+                } else if ("results".equals(field) && value == JsonToken.START_ARRAY) {
+                    for (JsonToken item = parser.nextToken(); item != JsonToken.END_ARRAY; item = parser.nextToken()) {
+                        if (item == JsonToken.START_OBJECT) {
+                            results.add(readGame(parser));
+                        } else {
+                            expectValue(item);
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            expectEndOfObject(parser);
+        }
+        return new RawgPage(count, results);
+    }
+
+    /**
+     * Parses a {@code /games/{id}} detail response.
+     */
+    static RawgGame parseGame(InputStream in) throws IOException {
+        try (JsonParser parser = JSON.createParser(in)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            return readGame(parser);
+        }
+    }
+
+    // Reads the fields of a game object; the parser is on its START_OBJECT and is left on its END_OBJECT
+    private static RawgGame readGame(JsonParser parser) throws IOException {
+        String id = null;
+        String name = null;
+        String image = null;
+        String genres = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id" -> id = value == JsonToken.VALUE_NUMBER_INT ? parser.getText() : textOrNull(parser, value);
+                case "name" -> name = textOrNull(parser, value);
+                case "background_image" -> image = textOrNull(parser, value);
+                case "genres" -> {
+                    if (value == JsonToken.START_ARRAY) {
+                        genres = readGenres(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        expectEndOfObject(parser);
+        return new RawgGame(id, name, image, genres);
+    }
+
+    // Joins the genre names with ", ", the format VideoGame.genre has always used
+    private static String readGenres(JsonParser parser) throws IOException {
+        StringBuilder joined = new StringBuilder();
+        for (JsonToken item = parser.nextToken(); item != JsonToken.END_ARRAY; item = parser.nextToken()) {
+            if (item != JsonToken.START_OBJECT) {
+                expectValue(item);
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("name".equals(field) && value == JsonToken.VALUE_STRING) {
+                    if (!joined.isEmpty()) {
+                        joined.append(", ");
+                    }
+                    joined.append(parser.getText());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            expectEndOfObject(parser);
+        }
+        return joined.toString();
+    }
+
+    private static String textOrNull(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    // A null token means the input ended inside an array
+    private static void expectValue(JsonToken token) throws IOException {
+        if (token == null) {
+            throw new IOException("Truncated RAWG response");
+        }
+    }
+
+    // Field loops stop on the first token that is not a field name; anything but the object's end is a cut-off body
+    private static void expectEndOfObject(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.END_OBJECT) {
+            throw new IOException("Truncated RAWG response");
+        }
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Unexpected RAWG response: expected " + expected + " but got " + actual);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.proj3.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a RAWG call is not attempted because the circuit breaker is open or all
+ * RAWG call slots are busy, or when the call failed and nothing is cached. Maps to 503.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class RawgUnavailableException extends RuntimeException {
+
+    public RawgUnavailableException(String message) {
+        super(message);
+    }
+
+    public RawgUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.proj3.service;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.proj3.config.TokenHasher;
+import com.example.proj3.model.RefreshToken;
+import com.example.proj3.model.User;
+import com.example.proj3.repository.RefreshTokenRepository;
+import com.example.proj3.repository.UserRepository;
+
+import jakarta.transaction.Transactional;
+
+/**
+ * Issues and rotates refresh tokens for the short-lived access token mode.
+ *
+ * The raw token is only ever returned to the client; the table holds its SHA-256 hash, so
+ * a lookup is a single indexed equality match. Each refresh revokes the presented token
+ * and issues a new one in the same family. Presenting an already revoked token revokes
+ * the whole family, which logs out both the legitimate client and whoever copied it.
+ *
+ * The one exception is a second tab refreshing with the token the first tab has just
+ * rotated: the immediately previous token is accepted for a few seconds after its
+ * rotation, as long as the token that replaced it is still live, and gets its own next
+ * token in the family. Two refreshes of one token at the same moment are not treated as
+ * reuse either; the one that loses the race is refused and can retry within the window.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+
+    @Value("${jwt.refresh.enabled:false}")
+    private boolean enabled;
+
+    @Value("${jwt.refresh.expiration:1209600000}")
+    private long refreshExpirationMillis;
+
+    @Value("${jwt.refresh.reuse-grace-ms:10000}")
+    private long reuseGraceMillis;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * The user a refresh token was rotated for, and the token that replaces it.
+     */
+    public record Rotation(User user, String refreshToken) {
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts a new token family for a fresh login.
+     *
+     * @return The raw refresh token to hand to the client
+     */
+    @Transactional
+    public String issue(User user) {
+        return issue(user.getId(), UUID.randomUUID().toString(), null);
+    }
+
+    /**
+     * Exchanges a refresh token for the next one in its family.
+     *
+     * @param rawToken The refresh token presented by the client
+     * @return The rotation, or null if the token is unknown, expired, reused or its user is gone
+     */
+    @Transactional
+    public Rotation rotate(String rawToken) {
+        Optional<RefreshToken> found = refreshTokenRepository.findByTokenHash(TokenHasher.hash(rawToken));
+        if (found.isEmpty()) {
+            return null;
+        }
+        RefreshToken token = found.get();
+
+        if (token.isRevoked()) {
+            if (!withinGrace(token)) {
+                // A revoked token coming back means it was copied; nothing in its family can be trusted
+                int revoked = refreshTokenRepository.revokeFamily(token.getFamilyId());
+                logger.warn("Refresh token reuse detected for user {}; revoked {} tokens in its family",
+                        token.getUserId(), revoked);
+                return null;
+            }
+            logger.debug("Refresh token of user {} reused within the grace window", token.getUserId());
+            return next(token, false);
+        }
+        if (refreshTokenRepository.revokeIfActive(token.getId()) == 0) {
+            // Rotated by a concurrent request for the same token, e.g. another tab
+            return null;
+        }
+        if (token.isExpired()) {
+            return null;
+        }
+        return next(token, true);
+    }
+
+    // Issues the token that follows this one in its family, or revokes the family if its user is gone
+    private Rotation next(RefreshToken token, boolean replaces) {
+        User user = userRepository.findById(token.getUserId()).orElse(null);
+        if (user == null) {
+            refreshTokenRepository.revokeFamily(token.getFamilyId());
+            return null;
+        }
+        return new Rotation(user, issue(user.getId(), token.getFamilyId(), replaces ? token.getId() : null));
+    }
+
+    // Rotated moments ago and its replacement not yet rotated, revoked or expired
+    private boolean withinGrace(RefreshToken token) {
+        if (token.getRotatedAt() == null || token.getReplacedById() == null
+                || !token.getRotatedAt().plusMillis(reuseGraceMillis).isAfter(Instant.now())) {
+            return false;
+        }
+        return refreshTokenRepository.findById(token.getReplacedById())
+                .filter(replacement -> !replacement.isRevoked() && !replacement.isExpired())
+                .isPresent();
+    }
+
+    /**
+     * Revokes the family of the given token, e.g. on logout. Unknown tokens are ignored.
+     */
+    @Transactional
+    public void revokeFamily(String rawToken) {
+        refreshTokenRepository.findByTokenHash(TokenHasher.hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId()));
+    }
+
+    /**
+     * Revokes every refresh token of a user, e.g. after a password change or reset, or
+     * when the account is deleted.
+     */
+    @Transactional
+    public void revokeAllForUser(Long userId) {
+        int revoked = refreshTokenRepository.revokeAllForUser(userId);
+        if (revoked > 0) {
+            logger.info("Revoked {} refresh tokens of user {}", revoked, userId);
+        }
+    }
+
+    // Revoked rows are kept until expiry so reuse can still be detected
+    @Scheduled(fixedDelayString = "${jwt.refresh.purge-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = refreshTokenRepository.deleteExpiredBefore(Instant.now());
+        if (deleted > 0) {
+            logger.info("Purged {} expired refresh tokens", deleted);
+        }
+    }
+
+    // Links the token being replaced, if any, to the new one for the grace window
+    private String issue(Long userId, String familyId, Long replacedId) {
+        String rawToken = TokenHasher.newToken();
+        RefreshToken saved = refreshTokenRepository.save(new RefreshToken(TokenHasher.hash(rawToken), familyId, userId,
+                Instant.now().plusMillis(refreshExpirationMillis)));
+        if (replacedId != null) {
+            refreshTokenRepository.markReplaced(replacedId, saved.getId(), Instant.now());
+        }
+        return rawToken;
+    }
+}
@@ -16,10 +16,12 @@ public class ReviewService {
 
     private final ReviewRepo reviewRepo;
     private final VideoGameRepo gameRepo;
+    private final TasteSimilarityService tasteSimilarityService;
 
-    public ReviewService(ReviewRepo reviewRepo, VideoGameRepo gameRepo) {
+    public ReviewService(ReviewRepo reviewRepo, VideoGameRepo gameRepo, TasteSimilarityService tasteSimilarityService) {
         this.reviewRepo = reviewRepo;
         this.gameRepo = gameRepo;
+        this.tasteSimilarityService = tasteSimilarityService;
     }
     //Create a new review if it doesn't already exist for the user and game
     public Review createReview(User user, VideoGame videoGame, int rating, String comment) {
@@ -32,7 +34,9 @@ public class ReviewService {
         }
 
         Review review = new Review(user, videoGame, rating, comment);
-        return reviewRepo.save(review);
+        Review saved = reviewRepo.save(review);
+        tasteSimilarityService.recordRating(user.getId(), videoGame.getId(), rating);
+        return saved;
     }
     // Get all reviews for a specific game
     public List<Review> getReviewsForGame(Long gameId) {
@@ -61,6 +65,7 @@ public class ReviewService {
         }
 
         reviewRepo.delete(review);
+        tasteSimilarityService.removeRating(review.getUser().getId(), review.getVideoGame().getId());
     }
 
     public Review editReview(Long reviewId, User user, int newRating, String newComment) {
@@ -76,6 +81,8 @@ public class ReviewService {
 
         review.setRating(newRating);
         review.setComment(newComment);
-        return reviewRepo.save(review);
+        Review saved = reviewRepo.save(review);
+        tasteSimilarityService.recordRating(review.getUser().getId(), review.getVideoGame().getId(), newRating);
+        return saved;
     }
 }
@@ -0,0 +1,297 @@
+package com.example.proj3.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.proj3.repository.ReviewRepo;
+
+/**
+ * Keeps a precomputed "users with similar taste" table built from review ratings.
+ *
+ * Each user is a sparse vector of (gameId, rating) pairs held in primitive arrays, and an
+ * inverted index maps every game to the users who rated it, so only users that share at
+ * least one game are ever scored. Similarity is the Pearson correlation of the two users'
+ * ratings over the games both of them rated.
+ *
+ * The full table is built once at startup. After that, ReviewService reports each write and
+ * the affected users are marked dirty and rescored by a background refresh. Since a score
+ * only depends on co-rated games, a rating change on a game can only move the scores of
+ * pairs that include one of that game's raters, so marking those raters dirty is enough.
+ */
+@Service
+public class TasteSimilarityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TasteSimilarityService.class);
+
+    private final ReviewRepo reviewRepo;
+
+    @Value("${similarity.users.max-neighbors:20}")
+    private int maxNeighbors;
+
+    @Value("${similarity.users.min-shared-games:2}")
+    private int minSharedGames;
+
+    private final Map<Long, RatingVector> vectors = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> ratersByGame = new ConcurrentHashMap<>();
+    private final Map<Long, List<SimilarUser>> neighbors = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyUsers = ConcurrentHashMap.newKeySet();
+
+    public TasteSimilarityService(ReviewRepo reviewRepo) {
+        this.reviewRepo = reviewRepo;
+    }
+
+    /**
+     * A user who rated games similarly to another user.
+     *
+     * @param userId The similar user's ID
+     * @param similarity Correlation in [-1, 1]; higher means closer taste
+     * @param sharedGames Number of games both users rated
+     */
+    public record SimilarUser(Long userId, double similarity, int sharedGames) {
+    }
+
+    /**
+     * Returns the precomputed neighbours of a user, most similar first.
+     *
+     * @param userId The user to look up
+     * @param limit Maximum number of users to return
+     * @return The most similar users, or an empty list if none are known yet
+     */
+    public List<SimilarUser> getSimilarUsers(Long userId, int limit) {
+        List<SimilarUser> result = neighbors.getOrDefault(userId, Collections.emptyList());
+        return result.size() > limit ? result.subList(0, limit) : result;
+    }
+
+    /**
+     * Records a new or changed rating and schedules the affected users for rescoring.
+     */
+    public synchronized void recordRating(Long userId, Long gameId, int rating) {
+        vectors.merge(userId, RatingVector.of(gameId, rating), (current, ignored) -> current.with(gameId, rating));
+        Set<Long> raters = ratersByGame.computeIfAbsent(gameId, id -> ConcurrentHashMap.newKeySet());
+        raters.add(userId);
+        dirtyUsers.addAll(raters);
+    }
+
+    /**
+     * Removes a rating (e.g. a deleted review) and schedules the affected users for rescoring.
+     */
+    public synchronized void removeRating(Long userId, Long gameId) {
+        RatingVector current = vectors.get(userId);
+        if (current == null) {
+            return;
+        }
+        RatingVector updated = current.without(gameId);
+        if (updated.size() == 0) {
+            vectors.remove(userId);
+        } else {
+            vectors.put(userId, updated);
+        }
+
+        Set<Long> raters = ratersByGame.get(gameId);
+        if (raters != null) {
+            raters.remove(userId);
+            dirtyUsers.addAll(raters);
+        }
+        dirtyUsers.add(userId);
+    }
+
+    // Loads every rating in one query and scores all users
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        List<Object[]> rows = reviewRepo.findAllRatings();
+
+        synchronized (this) {
+            Map<Long, Map<Long, Integer>> ratingsByUser = new HashMap<>();
+            for (Object[] row : rows) {
+                ratingsByUser.computeIfAbsent((Long) row[0], id -> new HashMap<>())
+                        .put((Long) row[1], ((Number) row[2]).intValue());
+            }
+
+            vectors.clear();
+            ratersByGame.clear();
+            ratingsByUser.forEach((userId, ratings) -> {
+                vectors.put(userId, RatingVector.of(ratings));
+                for (Long gameId : ratings.keySet()) {
+                    ratersByGame.computeIfAbsent(gameId, id -> ConcurrentHashMap.newKeySet()).add(userId);
+                }
+            });
+            dirtyUsers.clear();
+        }
+
+        neighbors.clear();
+        vectors.keySet().parallelStream().forEach(this::rescore);
+        logger.info("Built taste similarity index for {} users from {} ratings in {} ms",
+                vectors.size(), rows.size(), System.currentTimeMillis() - start);
+    }
+
+    // Rescores users whose ratings, or whose neighbours' ratings, changed since the last run
+    @Scheduled(fixedDelayString = "${similarity.users.refresh-ms:30000}")
+    public void refreshDirtyUsers() {
+        if (dirtyUsers.isEmpty()) {
+            return;
+        }
+        List<Long> batch = new ArrayList<>(dirtyUsers);
+        dirtyUsers.removeAll(batch);
+        batch.parallelStream().forEach(this::rescore);
+        logger.debug("Rescored taste similarity for {} users", batch.size());
+    }
+
+    private void rescore(Long userId) {
+        RatingVector self = vectors.get(userId);
+        if (self == null) {
+            neighbors.remove(userId);
+            return;
+        }
+
+        // Only users who rated at least one of the same games can have a non-zero score
+        Set<Long> candidates = new HashSet<>();
+        for (long gameId : self.gameIds) {
+            Set<Long> raters = ratersByGame.get(gameId);
+            if (raters != null) {
+                candidates.addAll(raters);
+            }
+        }
+        candidates.remove(userId);
+
+        List<SimilarUser> scored = new ArrayList<>();
+        for (Long candidateId : candidates) {
+            RatingVector other = vectors.get(candidateId);
+            if (other == null) {
+                continue;
+            }
+            SimilarUser match = self.similarityTo(candidateId, other, minSharedGames);
+            if (match != null && match.similarity() > 0) {
+                scored.add(match);
+            }
+        }
+
+        scored.sort(Comparator.comparingDouble(SimilarUser::similarity).reversed()
+                .thenComparing(Comparator.comparingInt(SimilarUser::sharedGames).reversed()));
+        if (scored.size() > maxNeighbors) {
+            scored = new ArrayList<>(scored.subList(0, maxNeighbors));
+        }
+        neighbors.put(userId, Collections.unmodifiableList(scored));
+    }
+
+    /**
+     * Immutable sparse rating vector: game IDs sorted ascending with their ratings.
+     */
+    static final class RatingVector {
+        final long[] gameIds;
+        final int[] ratings;
+
+        private RatingVector(long[] gameIds, int[] ratings) {
+            this.gameIds = gameIds;
+            this.ratings = ratings;
+        }
+
+        static RatingVector of(Long gameId, int rating) {
+            return new RatingVector(new long[] { gameId }, new int[] { rating });
+        }
+
+        static RatingVector of(Map<Long, Integer> ratingsByGame) {
+            long[] ids = ratingsByGame.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+            int[] values = new int[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                values[i] = ratingsByGame.get(ids[i]);
+            }
+            return new RatingVector(ids, values);
+        }
+
+        int size() {
+            return gameIds.length;
+        }
+
+        RatingVector with(long gameId, int rating) {
+            int index = Arrays.binarySearch(gameIds, gameId);
+            if (index >= 0) {
+                int[] values = ratings.clone();
+                values[index] = rating;
+                return new RatingVector(gameIds, values);
+            }
+
+            int insertAt = -index - 1;
+            long[] ids = new long[gameIds.length + 1];
+            int[] values = new int[ratings.length + 1];
+            System.arraycopy(gameIds, 0, ids, 0, insertAt);
+            System.arraycopy(ratings, 0, values, 0, insertAt);
+            ids[insertAt] = gameId;
+            values[insertAt] = rating;
+            System.arraycopy(gameIds, insertAt, ids, insertAt + 1, gameIds.length - insertAt);
+            System.arraycopy(ratings, insertAt, values, insertAt + 1, ratings.length - insertAt);
+            return new RatingVector(ids, values);
+        }
+
+        RatingVector without(long gameId) {
+            int index = Arrays.binarySearch(gameIds, gameId);
+            if (index < 0) {
+                return this;
+            }
+            long[] ids = new long[gameIds.length - 1];
+            int[] values = new int[ratings.length - 1];
+            System.arraycopy(gameIds, 0, ids, 0, index);
+            System.arraycopy(ratings, 0, values, 0, index);
+            System.arraycopy(gameIds, index + 1, ids, index, gameIds.length - index - 1);
+            System.arraycopy(ratings, index + 1, values, index, ratings.length - index - 1);
+            return new RatingVector(ids, values);
+        }
+
+        // Merge-walks both sorted ID arrays, so the cost is linear in the two vector sizes
+        SimilarUser similarityTo(Long otherId, RatingVector other, int minShared) {
+            double sumX = 0;
+            double sumY = 0;
+            double sumXX = 0;
+            double sumYY = 0;
+            double sumXY = 0;
+            int shared = 0;
+            int i = 0;
+            int j = 0;
+            while (i < gameIds.length && j < other.gameIds.length) {
+                if (gameIds[i] == other.gameIds[j]) {
+                    double x = ratings[i];
+                    double y = other.ratings[j];
+                    sumX += x;
+                    sumY += y;
+                    sumXX += x * x;
+                    sumYY += y * y;
+                    sumXY += x * y;
+                    shared++;
+                    i++;
+                    j++;
+                } else if (gameIds[i] < other.gameIds[j]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            if (shared < Math.max(2, minShared)) {
+                return null;
+            }
+            double varianceX = shared * sumXX - sumX * sumX;
+            double varianceY = shared * sumYY - sumY * sumY;
+            if (varianceX <= 0 || varianceY <= 0) {
+                // One side rated all shared games the same; correlation is undefined
+                return null;
+            }
+            double correlation = (shared * sumXY - sumX * sumY) / Math.sqrt(varianceX * varianceY);
+            return new SimilarUser(otherId, correlation, shared);
+        }
+    }
+}
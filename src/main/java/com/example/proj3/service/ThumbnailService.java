@@ -0,0 +1,301 @@
+package com.example.proj3.service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.proj3.model.StoredBlob;
+import com.example.proj3.model.StoredBlob.ThumbnailState;
+import com.example.proj3.repository.StoredBlobRepository;
+import com.example.proj3.storage.BlobStore;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Generates square avatar thumbnails for stored profile pictures in the background.
+ *
+ * Jobs run on a small fixed pool with a bounded queue. When the queue is full the job is
+ * not queued; the picture stays PENDING and a periodic backfill resubmits it once there is
+ * room, which also covers jobs lost to a restart. Each image is decoded once, subsampled
+ * while decoding when it is much larger than the biggest thumbnail, centre-cropped to a
+ * square and scaled down step by step: every smaller size is made from the previous one.
+ * Opaque images are written as JPEG, images with transparency as PNG.
+ *
+ * Thumbnails are content-addressed like originals, so identical pictures share them. Each
+ * thumbnail has its own DERIVED StoredBlob row counting the originals that use it; an
+ * original that is collected drops those references, and the thumbnail is collected once
+ * no original uses it any more.
+ */
+@Service
+public class ThumbnailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailService.class);
+
+    private final BlobStore blobStore;
+    private final StoredBlobRepository storedBlobRepository;
+    private final TransactionTemplate transaction;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final Timer generateTimer;
+
+    // Largest first, so each size is scaled from the one before it
+    private final int[] sizes;
+
+    @Value("${storage.thumbnails.max-source-pixels:40000000}")
+    private long maxSourcePixels;
+
+    @Value("${storage.thumbnails.jpeg-quality:0.85}")
+    private float jpegQuality;
+
+    public ThumbnailService(BlobStore blobStore, StoredBlobRepository storedBlobRepository,
+                            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                            @Value("${storage.thumbnails.sizes:256,64,32}") int[] sizes,
+                            @Value("${storage.thumbnails.threads:2}") int threads,
+                            @Value("${storage.thumbnails.queue-capacity:64}") int queueCapacity) {
+        this.blobStore = blobStore;
+        this.storedBlobRepository = storedBlobRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.sizes = Arrays.stream(sizes).boxed().sorted((a, b) -> b - a).mapToInt(Integer::intValue).toArray();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("thumbnails.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Thumbnail jobs waiting for a thread")
+                .register(meterRegistry);
+        this.generateTimer = Timer.builder("thumbnails.generate").register(meterRegistry);
+    }
+
+    /**
+     * Queues thumbnail generation for a stored picture.
+     *
+     * @return false if the queue is full; the periodic backfill will pick the picture up later
+     */
+    public boolean submit(String blobKey) {
+        if (!inFlight.add(blobKey)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generateTimer.record(() -> generate(blobKey));
+                } finally {
+                    inFlight.remove(blobKey);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(blobKey);
+            logger.debug("Thumbnail queue full, deferring {}", blobKey);
+            return false;
+        }
+    }
+
+    // Resubmits pictures still waiting for thumbnails, only as many as the queue has room for
+    @Scheduled(fixedDelayString = "${storage.thumbnails.backfill-ms:60000}")
+    public void backfill() {
+        int room = executor.getQueue().remainingCapacity();
+        if (room == 0) {
+            return;
+        }
+        for (String key : storedBlobRepository.findPendingThumbnailKeys(PageRequest.of(0, room))) {
+            if (!submit(key)) {
+                return;
+            }
+        }
+    }
+
+    private void generate(String blobKey) {
+        StoredBlob blob = storedBlobRepository.findByBlobKey(blobKey).orElse(null);
+        if (blob == null || (blob.getThumbnailState() != null && blob.getThumbnailState() != ThumbnailState.PENDING)) {
+            return;
+        }
+
+        Map<Integer, Thumbnail> thumbnails = new TreeMap<>();
+        ThumbnailState state;
+        try {
+            BufferedImage image = decode(blobKey);
+            if (image == null) {
+                throw new IOException("Unsupported or oversized image");
+            }
+            BufferedImage current = cropToSquare(image);
+            boolean alpha = current.getColorModel().hasAlpha();
+            String extension = alpha ? "png" : "jpg";
+            for (int size : sizes) {
+                current = scaleDown(current, size, alpha);
+                byte[] encoded = encode(current, alpha);
+                BlobStore.PutResult stored = blobStore.put(new ByteArrayInputStream(encoded), extension, encoded.length);
+                thumbnails.put(size, new Thumbnail(stored, encoded, alpha ? "image/png" : "image/jpeg", extension));
+            }
+            state = ThumbnailState.READY;
+        } catch (Exception e) {
+            // The original is still served; a broken image is not retried
+            logger.warn("Thumbnail generation failed for {}: {}", blobKey, e.getMessage());
+            thumbnails.clear();
+            state = ThumbnailState.FAILED;
+        }
+
+        try {
+            recordThumbnails(blobKey, thumbnails, state);
+        } catch (DataIntegrityViolationException e) {
+            // Another original produced the same thumbnail and inserted its row first; now it exists
+            recordThumbnails(blobKey, thumbnails, state);
+        }
+
+        // Same race as for originals: an unreferenced copy may have been collected before our reference committed
+        for (Thumbnail thumbnail : thumbnails.values()) {
+            if (!blobStore.exists(thumbnail.stored().key())) {
+                try {
+                    blobStore.put(new ByteArrayInputStream(thumbnail.bytes()), thumbnail.extension(), thumbnail.bytes().length);
+                } catch (IOException e) {
+                    logger.warn("Failed to restore thumbnail {}: {}", thumbnail.stored().key(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Takes one reference on each thumbnail, creating its DERIVED row on first use, and links them to the original
+    private void recordThumbnails(String blobKey, Map<Integer, Thumbnail> thumbnails, ThumbnailState state) {
+        transaction.executeWithoutResult(status -> storedBlobRepository.findByBlobKey(blobKey).ifPresent(row -> {
+            if (row.getThumbnailState() != null && row.getThumbnailState() != ThumbnailState.PENDING) {
+                return;
+            }
+            Map<Integer, String> keys = new LinkedHashMap<>();
+            thumbnails.forEach((size, thumbnail) -> {
+                BlobStore.PutResult stored = thumbnail.stored();
+                if (storedBlobRepository.incrementRefCount(stored.key(), Instant.now()) == 0) {
+                    StoredBlob derived = new StoredBlob(stored.key(), stored.sha256(), stored.size(), thumbnail.contentType());
+                    derived.setThumbnailState(ThumbnailState.DERIVED);
+                    storedBlobRepository.saveAndFlush(derived);
+                }
+                keys.put(size, stored.key());
+            });
+            row.setThumbnails(keys);
+            row.setThumbnailState(state);
+            storedBlobRepository.save(row);
+        }));
+    }
+
+    private record Thumbnail(BlobStore.PutResult stored, byte[] bytes, String contentType, String extension) {
+    }
+
+    // Reads dimensions first, then decodes with subsampling so huge uploads never expand fully
+    private BufferedImage decode(String blobKey) throws IOException {
+        try (InputStream in = blobStore.open(blobKey);
+             ImageInputStream stream = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.min(width, height) / (sizes[0] * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage cropToSquare(BufferedImage image) {
+        int edge = Math.min(image.getWidth(), image.getHeight());
+        return image.getSubimage((image.getWidth() - edge) / 2, (image.getHeight() - edge) / 2, edge, edge);
+    }
+
+    // Halves repeatedly, then one final bilinear step; avoids the aliasing of a single big jump
+    private static BufferedImage scaleDown(BufferedImage source, int size, boolean alpha) {
+        BufferedImage current = source;
+        int edge = source.getWidth();
+        do {
+            edge = Math.max(size, edge / 2);
+            BufferedImage next = new BufferedImage(edge, edge, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, edge, edge, null);
+            g.dispose();
+            current = next;
+        } while (edge > size);
+        return current;
+    }
+
+    private byte[] encode(BufferedImage image, boolean alpha) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (alpha) {
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DISABLED);
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.proj3.service;
+
+/**
+ * Published by UserService when it saves a user, so TokenVersionService only picks up
+ * the user's token version once the save has committed.
+ *
+ * @param userId The saved user's ID
+ * @param tokenVersion The user's token version as saved
+ */
+public record TokenVersionChangedEvent(Long userId, int tokenVersion) {
+}
@@ -0,0 +1,116 @@
+package com.example.proj3.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.proj3.repository.UserRepository;
+
+/**
+ * In-memory copy of every user's token version, so JwtAuthFilter can reject stale tokens
+ * without a database call.
+ *
+ * Only users whose version was ever raised above 0 are stored; everyone else is implicitly
+ * on version 0. Users deleted on this instance are pinned to a version no token can carry
+ * until their last token has expired. The table is loaded at startup, updated from
+ * {@link TokenVersionChangedEvent}s once the change has committed, and reloaded
+ * periodically so bumps made by other instances are picked up. A version from a rolled
+ * back save is never applied, so the table is never ahead of the database. Until the
+ * first load, lookups go to the database.
+ */
+@Service
+public class TokenVersionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenVersionService.class);
+    private static final int REVOKED = Integer.MAX_VALUE;
+
+    private final UserRepository userRepository;
+
+    @Value("${jwt.expiration}")
+    private long tokenLifetimeMillis;
+
+    private volatile Map<Long, Integer> versions = new ConcurrentHashMap<>();
+    // Deleted user ID -> deletion time; kept until every token issued before it has expired
+    private final Map<Long, Long> deletedUsers = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public TokenVersionService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Checks whether a token issued at the given version is still valid for the user.
+     *
+     * @param userId The user ID from the token's claims
+     * @param tokenVersion The token version from the token's claims
+     * @return true if the user still exists and the version is current
+     */
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        if (userId == null) {
+            return false;
+        }
+        if (!ready) {
+            return userRepository.findTokenVersionById(userId)
+                    .map(version -> version == tokenVersion)
+                    .orElse(false);
+        }
+        return versions.getOrDefault(userId, 0) == tokenVersion;
+    }
+
+    /**
+     * Records a user's token version once the save that set it has committed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onTokenVersionChanged(TokenVersionChangedEvent event) {
+        if (event.userId() == null || deletedUsers.containsKey(event.userId())) {
+            return;
+        }
+        if (event.tokenVersion() > 0) {
+            versions.put(event.userId(), event.tokenVersion());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onUserChanged(UserChangedEvent event) {
+        if (event.isDeleted()) {
+            deletedUsers.put(event.userId(), System.currentTimeMillis());
+            versions.put(event.userId(), REVOKED);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+        ready = true;
+    }
+
+    // Picks up versions raised on other instances; only rows above version 0 are read
+    @Scheduled(fixedDelayString = "${jwt.version-refresh-ms:30000}", initialDelayString = "${jwt.version-refresh-ms:30000}")
+    public synchronized void reload() {
+        long start = System.currentTimeMillis();
+        List<Object[]> rows = userRepository.findRaisedTokenVersions();
+        Map<Long, Integer> loaded = new ConcurrentHashMap<>();
+        for (Object[] row : rows) {
+            loaded.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        // Keep revocations of deleted users and any bump newer than what was read
+        deletedUsers.values().removeIf(deletedAt -> deletedAt + tokenLifetimeMillis < start);
+        deletedUsers.keySet().forEach(id -> loaded.put(id, REVOKED));
+        versions.forEach((id, version) -> {
+            if (version != REVOKED) {
+                loaded.merge(id, version, Math::max);
+            }
+        });
+        versions = loaded;
+        logger.debug("Loaded {} raised token versions in {} ms", rows.size(), System.currentTimeMillis() - start);
+    }
+}
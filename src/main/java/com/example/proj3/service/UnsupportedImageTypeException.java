@@ -0,0 +1,16 @@
+package com.example.proj3.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when an uploaded profile picture is not one of the accepted image formats.
+ * Maps to 415.
+ */
+@ResponseStatus(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+public class UnsupportedImageTypeException extends RuntimeException {
+
+    public UnsupportedImageTypeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.proj3.service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.proj3.repository.StoredBlobRepository;
+import com.example.proj3.repository.UserRepository;
+import com.example.proj3.storage.BlobStore;
+import com.example.proj3.storage.LocalDiskBlobStore;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Deletes upload files that nothing refers to.
+ *
+ * The orphan collector only knows blobs that have a StoredBlob row. Files can also be left
+ * behind without one: a crash between storing a file and recording its reference, temp
+ * files from interrupted uploads, and flat-named pictures from before content addressing
+ * whose users were deleted or changed picture. This sweeper walks the local store in file
+ * name order, at most {@code storage.sweeper.max-files-per-run} files per run including
+ * the flat and temp files at the end of a pass, resuming after the last file the previous
+ * run looked at, so its disk and database load stays bounded. Each batch of files older than the grace period is checked against StoredBlob
+ * keys and User.profilePicture in two queries; the unreferenced ones are deleted.
+ */
+@Component
+public class UploadSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadSweeper.class);
+
+    private static final int BATCH_SIZE = 500;
+    private static final String TEMP_DIR = ".tmp";
+
+    private final BlobStore blobStore;
+    private final StoredBlobRepository storedBlobRepository;
+    private final UserRepository userRepository;
+    private final Counter scannedFiles;
+    private final Counter deletedFiles;
+    private final Counter reclaimedBytes;
+    private final long graceMillis;
+    private final int maxFilesPerRun;
+
+    // Last file looked at, relative to the root; empty at the start of a pass. Files are
+    // visited in path order within each phase (shard directories, flat files in the root,
+    // then temp files), so the cursor gives both the phase and the position within it
+    private String cursor = "";
+
+    public UploadSweeper(BlobStore blobStore, StoredBlobRepository storedBlobRepository,
+                         UserRepository userRepository, MeterRegistry meterRegistry,
+                         @Value("${storage.sweeper.grace-ms:86400000}") long graceMillis,
+                         @Value("${storage.sweeper.max-files-per-run:2000}") int maxFilesPerRun) {
+        this.blobStore = blobStore;
+        this.storedBlobRepository = storedBlobRepository;
+        this.userRepository = userRepository;
+        this.graceMillis = graceMillis;
+        this.maxFilesPerRun = maxFilesPerRun;
+        this.scannedFiles = Counter.builder("uploads.sweeper.scanned").baseUnit("files").register(meterRegistry);
+        this.deletedFiles = Counter.builder("uploads.sweeper.deleted").baseUnit("files").register(meterRegistry);
+        this.reclaimedBytes = Counter.builder("uploads.sweeper.reclaimed").baseUnit("bytes")
+                .description("Bytes freed by deleting unreferenced upload files")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${storage.sweeper.initial-delay-ms:300000}",
+               fixedDelayString = "${storage.sweeper.interval-ms:60000}")
+    public void sweep() {
+        if (!(blobStore instanceof LocalDiskBlobStore disk)) {
+            return;
+        }
+        Path root = disk.getRoot();
+        Instant cutoff = Instant.now().minusMillis(graceMillis);
+        String position = cursor;
+        int budget = maxFilesPerRun;
+        try {
+            if (!position.startsWith(TEMP_DIR + "/")) {
+                if (position.isEmpty() || position.contains("/")) {
+                    int slash = position.lastIndexOf('/');
+                    String shardCursor = slash < 0 ? "" : position.substring(0, slash);
+                    for (String shard : shardsFrom(root, shardCursor)) {
+                        String after = shard.equals(shardCursor) ? position.substring(slash + 1) : "";
+                        budget = sweepDirectory(root, shard, after, budget, cutoff);
+                        if (budget <= 0) {
+                            return;
+                        }
+                    }
+                    position = "";
+                }
+                // Flat legacy files in the root
+                budget = sweepDirectory(root, "", position, budget, cutoff);
+                if (budget <= 0) {
+                    return;
+                }
+                position = "";
+            }
+            // Interrupted uploads
+            String after = position.isEmpty() ? "" : position.substring(TEMP_DIR.length() + 1);
+            budget = sweepDirectory(root, TEMP_DIR, after, budget, cutoff);
+            if (budget > 0) {
+                cursor = "";
+            }
+        } catch (IOException e) {
+            logger.warn("Upload sweep stopped at {}: {}", cursor, e.getMessage());
+        }
+    }
+
+    // Second-level shard directories ("ab/cd") sorted by name, starting at the cursor's shard
+    private static List<String> shardsFrom(Path root, String shardCursor) throws IOException {
+        List<String> shards = new ArrayList<>();
+        String cursorTop = shardCursor.isEmpty() ? "" : shardCursor.substring(0, shardCursor.indexOf('/'));
+        for (String top : sortedNames(root, Files::isDirectory)) {
+            if (top.startsWith(".") || top.compareTo(cursorTop) < 0) {
+                continue;
+            }
+            for (String leaf : sortedNames(root.resolve(top), Files::isDirectory)) {
+                String shard = top + "/" + leaf;
+                if (shard.compareTo(shardCursor) >= 0) {
+                    shards.add(shard);
+                }
+            }
+        }
+        return shards;
+    }
+
+    private static List<String> sortedNames(Path dir, DirectoryStream.Filter<Path> filter) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir, filter)) {
+            for (Path entry : entries) {
+                names.add(entry.getFileName().toString());
+            }
+        }
+        names.sort(null);
+        return names;
+    }
+
+    /**
+     * Checks the files directly inside one directory in name order, starting after
+     * {@code after}, until the budget runs out, and moves the cursor past them. Temp files
+     * are never referenced, so they are deleted once past the grace period without a lookup.
+     *
+     * @param dir The directory relative to the root; empty for the root itself
+     * @return The budget left
+     */
+    private int sweepDirectory(Path root, String dir, String after, int budget, Instant cutoff) throws IOException {
+        Path directory = dir.isEmpty() ? root : root.resolve(dir);
+        if (!Files.isDirectory(directory)) {
+            return budget;
+        }
+        List<String> names = sortedNames(directory, Files::isRegularFile);
+        String prefix = dir.isEmpty() ? "" : dir + "/";
+        boolean temporary = dir.equals(TEMP_DIR);
+        Map<String, Path> batch = new HashMap<>();
+        int scanned = 0;
+        String last = null;
+        for (String name : names) {
+            if (scanned == budget) {
+                break;
+            }
+            if (name.compareTo(after) <= 0) {
+                continue;
+            }
+            scanned++;
+            last = name;
+            Path file = directory.resolve(name);
+            Instant modified;
+            try {
+                modified = Files.getLastModifiedTime(file).toInstant();
+            } catch (NoSuchFileException e) {
+                continue;
+            }
+            if (!modified.isBefore(cutoff)) {
+                continue;
+            }
+            if (temporary) {
+                delete(file, cutoff);
+                continue;
+            }
+            batch.put(prefix + name, file);
+            if (batch.size() == BATCH_SIZE) {
+                deleteUnreferenced(batch, cutoff);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            deleteUnreferenced(batch, cutoff);
+        }
+        if (last != null) {
+            cursor = prefix + last;
+        }
+        scannedFiles.increment(scanned);
+        return budget - scanned;
+    }
+
+    private void deleteUnreferenced(Map<String, Path> batch, Instant cutoff) {
+        Set<String> referenced = new HashSet<>(storedBlobRepository.findExistingKeys(batch.keySet()));
+        List<String> urls = batch.keySet().stream().map(key -> ProfilePictureService.URL_PREFIX + key).toList();
+        for (String url : userRepository.findReferencedPictures(urls)) {
+            referenced.add(url.substring(ProfilePictureService.URL_PREFIX.length()));
+        }
+
+        batch.forEach((key, file) -> {
+            if (!referenced.contains(key)) {
+                delete(file, cutoff);
+            }
+        });
+    }
+
+    private void delete(Path file, Instant cutoff) {
+        try {
+            // Re-read: an identical upload reusing the file refreshes its timestamp
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attributes.lastModifiedTime().toInstant().isBefore(cutoff)) {
+                return;
+            }
+            if (Files.deleteIfExists(file)) {
+                deletedFiles.increment();
+                reclaimedBytes.increment(attributes.size());
+                logger.debug("Deleted unreferenced upload {}", file);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to delete unreferenced upload {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.proj3.service;
+
+import com.example.proj3.model.UserSummary;
+
+/**
+ * Published by UserService after a user is created, updated or deleted, so in-memory
+ * indexes over users can be maintained incrementally.
+ *
+ * @param userId The affected user's ID
+ * @param user The user's state after the change, or null if the user was deleted
+ */
+public record UserChangedEvent(Long userId, UserSummary user) {
+
+    public boolean isDeleted() {
+        return user == null;
+    }
+}
@@ -20,14 +20,14 @@ public class UserGameListService {
     private final UserGameListRepo listRepo;
     private final VideoGameRepo gameRepo;
     private final UserRepository userRepository;
-    private final VideoGameService videoGameService;
+    private final GameResolver gameResolver;
 
     @Autowired
-    public UserGameListService(UserGameListRepo listRepo, VideoGameRepo gameRepo, UserRepository userRepository, VideoGameService videoGameService) {
+    public UserGameListService(UserGameListRepo listRepo, VideoGameRepo gameRepo, UserRepository userRepository, GameResolver gameResolver) {
         this.listRepo = listRepo;
         this.gameRepo = gameRepo;
         this.userRepository = userRepository;
-        this.videoGameService = videoGameService;
+        this.gameResolver = gameResolver;
     }
 
     // Creates a new game list for a given username
@@ -39,16 +39,14 @@ public class UserGameListService {
         return listRepo.save(list);
     }
 
-    // Adds a game to a list; fetches from RAWG if not already in the DB
-    public void addGameToList(Long listId, Long gameId) {
+    // Adds a game to a list; a RAWG game not yet in the DB is fetched and saved
+    public void addGameToList(Long listId, Long gameId, GameResolver.IdType idType) {
         UserGameList list = listRepo.findById(listId)
                 .orElseThrow(() -> new RuntimeException("List not found"));
 
-        VideoGame game = gameRepo.findById(gameId).orElse(null);
-
-        // If not found, fetch from RAWG and save
+        VideoGame game = gameResolver.resolve(gameId, idType);
         if (game == null) {
-            game = videoGameService.fetchAndSaveFromRawg(gameId);
+            throw new RuntimeException("Game not found");
         }
 
         if (!list.getVideoGames().contains(game)) {
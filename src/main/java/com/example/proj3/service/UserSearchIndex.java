@@ -0,0 +1,254 @@
+package com.example.proj3.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.proj3.model.UserSummary;
+import com.example.proj3.repository.UserRepository;
+
+/**
+ * In-memory trigram index over usernames and emails for substring search.
+ *
+ * A query of three or more characters intersects the posting sets of its trigrams,
+ * starting from the smallest, and then confirms each candidate with a substring check.
+ * Next to the index it keeps all users in a skip list ordered by username, so a blank
+ * query (the admin screen's default) walks one page of it and a one- or two-character
+ * query is a single filtering pass over it, with no sorting in either case. A change to
+ * one user is a logarithmic remove and insert rather than a copy of every user. The index
+ * is loaded once at startup and then kept current from {@link UserChangedEvent}s. Until
+ * it is loaded, searches go to the database.
+ */
+@Service
+public class UserSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchIndex.class);
+    private static final int GRAM = 3;
+    private static final Comparator<UserSummary> BY_USERNAME =
+            Comparator.comparing((UserSummary u) -> u.username().toLowerCase(Locale.ROOT)).thenComparing(UserSummary::id);
+    private static final Comparator<Entry> ENTRY_BY_USERNAME =
+            Comparator.comparing(Entry::username).thenComparing(entry -> entry.user().id());
+
+    private final UserRepository userRepository;
+
+    private final Map<Long, UserSummary> users = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    // Every user ordered by username, then ID; replaced as a whole only on a rebuild
+    private volatile NavigableSet<Entry> sorted = new ConcurrentSkipListSet<>(ENTRY_BY_USERNAME);
+    // Size of sorted, which a skip list can only count by walking it
+    private volatile int sortedCount;
+    private volatile boolean ready;
+
+    public UserSearchIndex(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * A user in the sorted snapshot, with the lower-cased fields that queries match against.
+     */
+    private record Entry(UserSummary user, String username, String email) {
+
+        static Entry of(UserSummary user) {
+            return new Entry(user,
+                    user.username() == null ? "" : user.username().toLowerCase(Locale.ROOT),
+                    user.email() == null ? null : user.email().toLowerCase(Locale.ROOT));
+        }
+
+        boolean matches(String needle, boolean includeEmail) {
+            return username.contains(needle) || (includeEmail && email != null && email.contains(needle));
+        }
+    }
+
+    /**
+     * Finds users whose username (and optionally email) contains the query, ignoring case.
+     *
+     * @param query The substring to search for; blank returns every user
+     * @param includeEmail Whether to match against email as well as username
+     * @param pageable Page number and size; results are always ordered by username
+     * @return One page of matching users
+     */
+    public Page<UserSummary> search(String query, boolean includeEmail, Pageable pageable) {
+        String needle = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        if (!ready) {
+            return userRepository.searchSummaries(needle, includeEmail,
+                    PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("username")));
+        }
+
+        if (needle.length() < GRAM) {
+            return searchSnapshot(needle, includeEmail, pageable);
+        }
+
+        List<UserSummary> matches = new ArrayList<>();
+        for (UserSummary user : candidates(needle)) {
+            if (matches(user, needle, includeEmail)) {
+                matches.add(user);
+            }
+        }
+        matches.sort(BY_USERNAME);
+
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        return new PageImpl<>(new ArrayList<>(matches.subList(from, to)), pageable, matches.size());
+    }
+
+    // Pages straight out of the sorted snapshot; only short queries get here
+    private Page<UserSummary> searchSnapshot(String needle, boolean includeEmail, Pageable pageable) {
+        NavigableSet<Entry> snapshot = sorted;
+        long offset = pageable.getOffset();
+        int size = pageable.getPageSize();
+        if (needle.isEmpty()) {
+            List<UserSummary> content = new ArrayList<>(size);
+            Iterator<Entry> entries = snapshot.iterator();
+            for (long skipped = 0; skipped < offset && entries.hasNext(); skipped++) {
+                entries.next();
+            }
+            while (content.size() < size && entries.hasNext()) {
+                content.add(entries.next().user());
+            }
+            return new PageImpl<>(content, pageable, sortedCount);
+        }
+
+        List<UserSummary> content = new ArrayList<>(size);
+        long total = 0;
+        for (Entry entry : snapshot) {
+            if (entry.matches(needle, includeEmail)) {
+                if (total >= offset && content.size() < size) {
+                    content.add(entry.user());
+                }
+                total++;
+            }
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        users.clear();
+        postings.clear();
+        NavigableSet<Entry> entries = new ConcurrentSkipListSet<>(ENTRY_BY_USERNAME);
+        for (UserSummary user : userRepository.findAllSummaries()) {
+            add(user);
+            entries.add(Entry.of(user));
+        }
+        sorted = entries;
+        sortedCount = entries.size();
+        ready = true;
+        logger.info("Built user search index for {} users ({} trigrams) in {} ms",
+                users.size(), postings.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onUserChanged(UserChangedEvent event) {
+        UserSummary previous = users.get(event.userId());
+        int count = sortedCount;
+        if (previous != null) {
+            remove(previous);
+            if (sorted.remove(Entry.of(previous))) {
+                count--;
+            }
+        }
+        if (!event.isDeleted()) {
+            add(event.user());
+            if (sorted.add(Entry.of(event.user()))) {
+                count++;
+            }
+        }
+        sortedCount = count;
+    }
+
+    private Collection<UserSummary> candidates(String needle) {
+        List<Set<Long>> sets = new ArrayList<>();
+        for (String gram : grams(needle)) {
+            Set<Long> posting = postings.get(gram);
+            if (posting == null) {
+                return List.of();
+            }
+            sets.add(posting);
+        }
+        sets.sort(Comparator.comparingInt(Set::size));
+
+        List<UserSummary> result = new ArrayList<>();
+        for (Long id : sets.get(0)) {
+            boolean inAll = true;
+            for (int i = 1; i < sets.size() && inAll; i++) {
+                inAll = sets.get(i).contains(id);
+            }
+            UserSummary user = inAll ? users.get(id) : null;
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
+    private static boolean matches(UserSummary user, String needle, boolean includeEmail) {
+        if (needle.isEmpty()) {
+            return true;
+        }
+        if (user.username() != null && user.username().toLowerCase(Locale.ROOT).contains(needle)) {
+            return true;
+        }
+        return includeEmail && user.email() != null && user.email().toLowerCase(Locale.ROOT).contains(needle);
+    }
+
+    private void add(UserSummary user) {
+        users.put(user.id(), user);
+        for (String gram : grams(user)) {
+            postings.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(user.id());
+        }
+    }
+
+    private void remove(UserSummary user) {
+        users.remove(user.id());
+        for (String gram : grams(user)) {
+            Set<Long> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(user.id());
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static Set<String> grams(UserSummary user) {
+        Set<String> grams = new HashSet<>();
+        if (user.username() != null) {
+            grams.addAll(grams(user.username().toLowerCase(Locale.ROOT)));
+        }
+        if (user.email() != null) {
+            grams.addAll(grams(user.email().toLowerCase(Locale.ROOT)));
+        }
+        return grams;
+    }
+
+    private static Set<String> grams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
@@ -1,18 +1,31 @@
 package com.example.proj3.service;
 import java.util.Optional;
+import java.util.ArrayList;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.UUID;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.event.TransactionalEventListener;
+import com.example.proj3.config.TokenHasher;
+import com.example.proj3.model.PublicUserDto;
 import com.example.proj3.model.User;
+import com.example.proj3.model.UserSummary;
 import com.example.proj3.repository.UserRepository;
+import com.example.proj3.repository.UserRepositoryCustom.SortKey;
+import com.example.proj3.repository.UserRepositoryCustom.UserFilter;
 import com.example.proj3.model.PasswordResetToken;
 import com.example.proj3.repository.PasswordResetTokenRepository;
 
@@ -29,6 +42,28 @@ public class UserService {
     @Autowired
     private PasswordResetTokenRepository passwordResetTokenRepository;
 
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private AccountAvailabilityFilter availabilityFilter;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Value("${app.frontend-url}")
+    private String frontendUrl;
+
+    // Admin dashboard counts per filter; cleared whenever any user changes
+    private static final int MAX_CACHED_COUNTS = 64;
+    private final Map<UserFilter, Long> userCountCache = new ConcurrentHashMap<>();
+
     /**
      * Finds a user by their ID.
      *
@@ -80,6 +115,27 @@ public class UserService {
         return userRepository.existsByEmail(email);
     }
 
+    /**
+     * Advisory check for signup forms. Names the availability filter has never seen are
+     * answered without a query; the filter is per instance, so this must not guard writes.
+     *
+     * @param username The username to check
+     * @return true if the username looks free
+     */
+    public boolean isUsernameAvailable(String username) {
+        return !availabilityFilter.mightContainUsername(username) || !userRepository.existsByUsername(username);
+    }
+
+    /**
+     * Advisory check for signup forms, like {@link #isUsernameAvailable(String)}.
+     *
+     * @param email The email to check
+     * @return true if the email looks free
+     */
+    public boolean isEmailAvailable(String email) {
+        return !availabilityFilter.mightContainEmail(email) || !userRepository.existsByEmail(email);
+    }
+
     /**
      * Creates a new user.
      *
@@ -93,7 +149,8 @@ public class UserService {
         if (user.getPassword() != null) {
             user.setPassword(user.getPassword());
         }
-        userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(saved.getId(), UserSummary.of(saved)));
         return true;
     } catch (Exception e) {
         return false;
@@ -108,8 +165,15 @@ public class UserService {
      */
     @Transactional
     public boolean deleteUser(Long id) {
-        if (userRepository.existsById(id)) {
-            userRepository.deleteById(id);
+        Optional<User> userOpt = userRepository.findById(id);
+        if (userOpt.isPresent()) {
+            String profilePicture = userOpt.get().getProfilePicture();
+            userRepository.delete(userOpt.get());
+            refreshTokenService.revokeAllForUser(id);
+            eventPublisher.publishEvent(new UserChangedEvent(id, null));
+            if (profilePicture != null) {
+                eventPublisher.publishEvent(new ProfilePictureReleasedEvent(profilePicture));
+            }
             return true;
         }
         return false;
@@ -128,6 +192,9 @@ public class UserService {
         if (userOpt.isPresent()) {
             User updatedUser = userOpt.get();
             
+            String previousUsername = updatedUser.getUsername();
+            boolean previousAdmin = updatedUser.isAdmin();
+
             // Update fields if they are provided
             if (user.getUsername() != null) {
                 updatedUser.setUsername(user.getUsername());
@@ -138,6 +205,8 @@ public class UserService {
             }
             
             // Only update password if it's provided and not already encoded
+            boolean passwordChanged = user.getPassword() != null
+                    && !user.getPassword().equals(updatedUser.getPassword());
             if (user.getPassword() != null) {
                 // Check if password is already encoded - if it contains "$2a$" it's likely already a BCrypt hash
                 if (!user.getPassword().startsWith("$2a$")) {
@@ -154,8 +223,20 @@ public class UserService {
             if (user.getProfilePicture() != null) {
                 updatedUser.setProfilePicture(user.getProfilePicture());
             }
+
+            // Tokens carry the username and role, and a new password must end existing sessions
+            if (passwordChanged || updatedUser.isAdmin() != previousAdmin
+                    || !Objects.equals(updatedUser.getUsername(), previousUsername)) {
+                updatedUser.incrementTokenVersion();
+            }
             
-            return userRepository.save(updatedUser);
+            User saved = userRepository.save(updatedUser);
+            if (passwordChanged) {
+                refreshTokenService.revokeAllForUser(saved.getId());
+            }
+            eventPublisher.publishEvent(new TokenVersionChangedEvent(saved.getId(), saved.getTokenVersion()));
+            eventPublisher.publishEvent(new UserChangedEvent(saved.getId(), UserSummary.of(saved)));
+            return saved;
         }
         return null;
     }  
@@ -184,9 +265,10 @@ public class UserService {
         // Set new password (encode it first)
         user.setPassword(passwordEncoder.encode(newPassword));
         
-        // Save user
+        // Save user; sessions started with the old password must not outlive it
         try {
             userRepository.save(user);
+            refreshTokenService.revokeAllForUser(id);
             return true;
         } catch (Exception e) {
             return false;
@@ -212,9 +294,10 @@ public class UserService {
         // Set new password (encode it first)
         user.setPassword(passwordEncoder.encode(newPassword));
         
-        // Save user
+        // Save user; sessions started with the old password must not outlive it
         try {
             userRepository.save(user);
+            refreshTokenService.revokeAllForUser(id);
             return true;
         } catch (Exception e) {
             return false;
@@ -298,6 +381,7 @@ public class UserService {
         
         try {
             userRepository.save(user);
+            refreshTokenService.revokeAllForUser(userId);
             return true;
         } catch (Exception e) {
             return false;
@@ -318,8 +402,8 @@ public class UserService {
             return true;
         }
         
-        // Generate a unique token
-        String token = UUID.randomUUID().toString();
+        // Generate a unique token; only its hash is stored
+        String token = TokenHasher.newToken();
         
         // Set expiration time (24 hours from now)
         Calendar calendar = Calendar.getInstance();
@@ -333,13 +417,16 @@ public class UserService {
             resetToken.setUser(user);
         }
         
-        resetToken.setToken(token);
+        resetToken.setTokenHash(TokenHasher.hash(token));
         resetToken.setExpiryDate(expiryDate);
         passwordResetTokenRepository.save(resetToken);
         
-        // Send email with reset link
-        // TODO: Implement email sending logic
-        // emailService.sendPasswordResetEmail(user.getEmail(), token);
+        // Queued in this transaction and sent by OutboxDispatcher, so no SMTP work happens here
+        outboxService.enqueue(OutboxService.PASSWORD_RESET, user.getEmail(), "Reset your password",
+                "Hi " + user.getUsername() + ",\n\n"
+                + "Use the link below to choose a new password. It expires in 24 hours.\n\n"
+                + frontendUrl + "/reset-password?token=" + token + "\n\n"
+                + "If you did not ask for this, you can ignore this email.");
         
         return true;
     }
@@ -353,7 +440,7 @@ public class UserService {
      */
     @Transactional
     public boolean confirmPasswordReset(String token, String newPassword) {
-        PasswordResetToken resetToken = passwordResetTokenRepository.findByToken(token);
+        PasswordResetToken resetToken = passwordResetTokenRepository.findByTokenHash(TokenHasher.hash(token));
 
         // Check if token exists and is valid
         if (resetToken == null) {
@@ -371,20 +458,39 @@ public class UserService {
         user.setPassword(passwordEncoder.encode(newPassword));
         user.setPasswordSetDate(new SimpleDateFormat("yyyy-MM-dd").format(new Date()));
         userRepository.save(user);
+        refreshTokenService.revokeAllForUser(user.getId());
 
         // Delete the used token
         passwordResetTokenRepository.delete(resetToken);
 
+        outboxService.enqueue(OutboxService.PASSWORD_CHANGED, user.getEmail(), "Your password was changed",
+                "Hi " + user.getUsername() + ",\n\n"
+                + "The password for your account was just reset. If this was not you, "
+                + "request a new reset link right away.");
+
         return true;
     }
     /**
      * Searches for users by a partial username match.
      *
      * @param query The partial username to search for
-     * @return A list of users whose usernames match the query
+     * @param limit Maximum number of results
+     * @return The public view of users whose usernames match the query, ordered by username
      */
-    public List<User> searchUsersByUsername(String query) {
-        return userRepository.findByUsernameContainingIgnoreCase(query);
+    public List<PublicUserDto> searchUsersByUsername(String query, int limit) {
+        List<UserSummary> matches = userSearchIndex.search(query, false, PageRequest.of(0, limit)).getContent();
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, String> pictures = new HashMap<>();
+        for (Object[] row : userRepository.findProfilePictures(matches.stream().map(UserSummary::id).toList())) {
+            pictures.put((Long) row[0], (String) row[1]);
+        }
+        List<PublicUserDto> users = new ArrayList<>(matches.size());
+        for (UserSummary match : matches) {
+            users.add(new PublicUserDto(match.id(), match.username(), pictures.get(match.id())));
+        }
+        return users;
     }
 
     /**
@@ -393,40 +499,65 @@ public class UserService {
      * @return A list of all usernames
      */
     public List<String> getAllUsernames() {
-        return userRepository.findAll().stream()
-                .map(User::getUsername)
-                .collect(Collectors.toList());
+        return userRepository.findAllUsernames();
     }
 
 
     /**
-    * Retrieves all users in the system.
-    * Required for the AdminController's getAllUsers() endpoint.
-    *
-    * @return A list of all users
-    */
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+     * Retrieves the users with the given IDs in a single query.
+     *
+     * @param ids The user IDs to look up
+     * @return The users that exist, in no particular order
+     */
+    public List<User> getUsersByIds(List<Long> ids) {
+        return userRepository.findAllById(ids);
     }
 
     /**
-     * Searches for users by username or email containing the query string.
-     * Required for the AdminController's searchUsers() endpoint.
+     * Lists user summaries for the admin dashboard, one page at a time.
      *
-     * @param query The search query
-     * @return A list of users matching the search criteria
+     * @param filter Optional admin/OAuth/provider filters
+     * @param sortKey Column to order by
+     * @param descending Whether to order descending
+     * @param after Keyset cursor: the sort value of the last row of the previous page, or null
+     * @param offset Rows to skip; ignored when a cursor is given
+     * @param limit Maximum number of rows to return
+     * @return Up to {@code limit} user summaries
      */
-    public List<User> searchUsers(String query) {
-        if (query == null || query.trim().isEmpty()) {
-            return getAllUsers();
+    public List<UserSummary> listUsers(UserFilter filter, SortKey sortKey, boolean descending,
+                                       Object after, int offset, int limit) {
+        return userRepository.findSummaries(filter, sortKey, descending, after, offset, limit);
+    }
+
+    /**
+     * Counts users matching a filter. Counts are cached until the next user change.
+     *
+     * @param filter Optional admin/OAuth/provider filters
+     * @return The number of matching users
+     */
+    public long countUsers(UserFilter filter) {
+        if (userCountCache.size() >= MAX_CACHED_COUNTS) {
+            userCountCache.clear();
         }
+        return userCountCache.computeIfAbsent(filter, userRepository::countSummaries);
+    }
 
-        String lowercaseQuery = query.toLowerCase();
-        return userRepository.findAll().stream()
-                .filter(user ->
-                    user.getUsername().toLowerCase().contains(lowercaseQuery) ||
-                    (user.getEmail() != null && user.getEmail().toLowerCase().contains(lowercaseQuery)))
-                .collect(Collectors.toList());
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        userCountCache.clear();
+    }
+
+    /**
+     * Searches for users by username or email containing the query string.
+     * Required for the AdminController's searchUsers() endpoint.
+     *
+     * @param query The search query; blank matches every user
+     * @param page Zero-based page number
+     * @param size Page size
+     * @return One page of user summaries matching the search criteria, ordered by username
+     */
+    public Page<UserSummary> searchUsers(String query, int page, int size) {
+        return userSearchIndex.search(query, true, PageRequest.of(page, size));
     }
 
     /**
@@ -437,7 +568,10 @@ public class UserService {
      * @return The saved user with its generated ID
      */
     public User saveUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(new TokenVersionChangedEvent(saved.getId(), saved.getTokenVersion()));
+        eventPublisher.publishEvent(new UserChangedEvent(saved.getId(), UserSummary.of(saved)));
+        return saved;
     }
 
     public User findByUsername(String currentUsername) {
@@ -0,0 +1,129 @@
+package com.example.proj3.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import com.example.proj3.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Serves the list of all usernames as a JSON array.
+ *
+ * Usernames are streamed from a username-only projection straight into the JSON writer,
+ * so no User entity is ever loaded. When caching is enabled, the encoded array is kept as
+ * a byte snapshot with an ETag. The snapshot is dropped when a user is created, renamed
+ * or deleted.
+ */
+@Service
+public class UsernameDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsernameDirectory.class);
+    private static final JsonFactory JSON = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Value("${users.usernames.cache-enabled:true}")
+    private boolean cacheEnabled;
+
+    private volatile Snapshot snapshot;
+
+    public UsernameDirectory(UserRepository userRepository, PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Encoded username array with its ETag. {@code sortedUsernames} is used to tell
+     * renames and creations apart from other user updates.
+     */
+    public record Snapshot(byte[] json, String etag, String[] sortedUsernames) {
+    }
+
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    /**
+     * Returns the cached snapshot, building it from the database if it was invalidated.
+     */
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                List<String> usernames = new ArrayList<>();
+                write(buffer, usernames);
+                byte[] json = buffer.toByteArray();
+                String[] sorted = usernames.toArray(String[]::new);
+                Arrays.sort(sorted);
+                snapshot = new Snapshot(json, "\"" + DigestUtils.md5DigestAsHex(json) + "\"", sorted);
+                logger.debug("Built username snapshot: {} usernames, {} bytes", sorted.length, json.length);
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Streams every username as a JSON array to the given output without caching.
+     */
+    public void writeTo(OutputStream out) {
+        write(out, null);
+    }
+
+    private void write(OutputStream out, List<String> collect) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<String> usernames = userRepository.streamAllUsernames();
+                 JsonGenerator generator = JSON.createGenerator(out, JsonEncoding.UTF8)) {
+                generator.writeStartArray();
+                usernames.forEach(username -> {
+                    try {
+                        generator.writeString(username);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    if (collect != null) {
+                        collect.add(username);
+                    }
+                });
+                generator.writeEndArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // Synchronized with snapshot() so a change committed during a rebuild is not lost
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onUserChanged(UserChangedEvent event) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        // An update that keeps a username already in the snapshot cannot change the list
+        if (event.isDeleted() || Arrays.binarySearch(current.sortedUsernames(), event.user().username()) < 0) {
+            snapshot = null;
+        }
+    }
+}
@@ -1,65 +1,90 @@
 package com.example.proj3.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import com.example.proj3.model.VideoGame;
 import com.example.proj3.repository.VideoGameRepo;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.ResponseEntity;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class VideoGameService {
 
     private final VideoGameRepo videoGameRepo;
+    private final GameSimilarityService gameSimilarityService;
+    private final RawgIdIndex rawgIdIndex;
+    private final RawgApiService rawgApiService;
 
-    public VideoGameService(VideoGameRepo videoGameRepo) {
+    public VideoGameService(VideoGameRepo videoGameRepo, GameSimilarityService gameSimilarityService,
+                            RawgIdIndex rawgIdIndex, RawgApiService rawgApiService) {
         this.videoGameRepo = videoGameRepo;
+        this.gameSimilarityService = gameSimilarityService;
+        this.rawgIdIndex = rawgIdIndex;
+        this.rawgApiService = rawgApiService;
     }
 
     // Finds a game by RAWG ID, or saves it if not found
     public VideoGame getOrCreateGame(VideoGame gameFromRawg) {
-        Optional<VideoGame> existingGame = videoGameRepo.findByRawgId(gameFromRawg.getRawgId());
+        Long existingId = rawgIdIndex.resolve(gameFromRawg.getRawgId());
+        Optional<VideoGame> existingGame = existingId == null ? Optional.empty() : videoGameRepo.findById(existingId);
 
         if (existingGame.isPresent()) {
             return existingGame.get();
         } else {
-            return videoGameRepo.save(gameFromRawg);
+            return saveNew(gameFromRawg);
         }
     }
 
     public VideoGame fetchAndSaveFromRawg(Long rawgId) {
-        String apiKey = "c3101d469d92487fa6cc0d34454b74d7"; // <- Replace with your actual RAWG key
-        String url = "https://api.rawg.io/api/games/" + rawgId + "?key=" + apiKey;
-
-        RestTemplate restTemplate = new RestTemplate();
+        VideoGame game;
         try {
-            ResponseEntity<Map> response = restTemplate.getForEntity(url, Map.class);
-            Map<String, Object> data = response.getBody();
+            game = rawgApiService.fetchGame(rawgId).toVideoGame();
+        } catch (RawgUnavailableException e) {
+            // Keeps its 503 status
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to fetch game from RAWG: " + e.getMessage());
+        }
+        game.setRawgId(rawgId.toString());
+        return saveNew(game);
+    }
 
-            if (data == null || data.get("name") == null) {
-                throw new RuntimeException("Invalid game data from RAWG API.");
+    // Saves a game not found locally; if another instance stored the same RAWG ID first, the
+    // unique constraint rejects this insert and the stored game is used instead
+    private VideoGame saveNew(VideoGame game) {
+        VideoGame saved;
+        try {
+            saved = videoGameRepo.save(game);
+        } catch (DataIntegrityViolationException e) {
+            if (game.getRawgId() == null) {
+                throw e;
             }
+            saved = videoGameRepo.findFirstByRawgIdOrderByIdAsc(game.getRawgId()).orElseThrow(() -> e);
+        }
+        rawgIdIndex.record(saved);
+        gameSimilarityService.index(saved);
+        return saved;
+    }
 
-            VideoGame game = new VideoGame();
-            game.setRawgId(rawgId.toString());
-            game.setTitle((String) data.get("name"));
-            game.setImageUrl((String) data.get("background_image"));
-
-            // Convert genres to comma-separated string
-            var genres = (List<Map<String, Object>>) data.get("genres");
-            String genreStr = genres.stream()
-                    .map(g -> (String) g.get("name"))
-                    .collect(Collectors.joining(", "));
-            game.setGenre(genreStr);
-
-            return videoGameRepo.save(game);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to fetch game from RAWG: " + e.getMessage());
+    // Fills in the local ID of each RAWG result that is already stored, with at most one query
+    public List<VideoGame> linkLocalIds(List<VideoGame> gamesFromRawg) {
+        List<String> rawgIds = new ArrayList<>(gamesFromRawg.size());
+        for (VideoGame game : gamesFromRawg) {
+            if (game.getRawgId() != null) {
+                rawgIds.add(game.getRawgId());
+            }
         }
+        Map<String, Long> localIds = rawgIdIndex.resolveAll(rawgIds);
+        for (VideoGame game : gamesFromRawg) {
+            Long localId = localIds.get(game.getRawgId());
+            if (localId != null) {
+                game.setId(localId);
+            }
+        }
+        return gamesFromRawg;
     }
 
     // Find by ID
@@ -67,6 +92,11 @@ public class VideoGameService {
         return videoGameRepo.findById(id);
     }
 
+    // Find several games by ID in one query
+    public List<VideoGame> findAllById(List<Long> ids) {
+        return videoGameRepo.findAllById(ids);
+    }
+
     // Get all games
     public List<VideoGame> getAllGames() {
         return videoGameRepo.findAll();
@@ -0,0 +1,58 @@
+package com.example.proj3.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Content-addressed blob storage.
+ *
+ * A blob's key is derived from the SHA-256 of its bytes, so storing the same content twice
+ * yields the same key and one stored copy. Keys are sharded as {@code ab/cd/<sha256>.<ext>}
+ * to keep directories small. Reference counting lives with the callers (see StoredBlob);
+ * a store only holds bytes.
+ */
+public interface BlobStore {
+
+    /**
+     * Result of a {@link #put}.
+     *
+     * @param key The content-addressed key
+     * @param sha256 Hex SHA-256 of the content
+     * @param size Content length in bytes
+     * @param created false if identical content was already stored
+     */
+    record PutResult(String key, String sha256, long size, boolean created) {
+    }
+
+    /**
+     * Streams the content into the store while hashing it. The blob becomes visible
+     * atomically and only once fully written.
+     *
+     * @param content The bytes to store; read to the end but not closed
+     * @param extension File extension without the dot, e.g. "png"
+     * @param maxBytes Uploads longer than this are rejected
+     * @throws BlobTooLargeException if the content exceeds maxBytes
+     */
+    PutResult put(InputStream content, String extension, long maxBytes) throws IOException;
+
+    /**
+     * Opens a stored blob for reading.
+     *
+     * @throws java.nio.file.NoSuchFileException if the key is not stored
+     */
+    InputStream open(String key) throws IOException;
+
+    boolean exists(String key);
+
+    /**
+     * Deletes a blob. Missing keys are ignored.
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * Builds the sharded key for a content hash.
+     */
+    static String keyFor(String sha256, String extension) {
+        return sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256 + "." + extension;
+    }
+}
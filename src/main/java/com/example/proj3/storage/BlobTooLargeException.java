@@ -0,0 +1,13 @@
+package com.example.proj3.storage;
+
+import java.io.IOException;
+
+/**
+ * Thrown by {@link BlobStore#put} when the content is longer than the allowed size.
+ */
+public class BlobTooLargeException extends IOException {
+
+    public BlobTooLargeException(long maxBytes) {
+        super("Upload exceeds the maximum size of " + maxBytes + " bytes");
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.proj3.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Object-store stand-in that keeps blobs in a map. Selected with {@code storage.type=memory};
+ * useful for local runs and for exercising callers without touching the disk.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.type", havingValue = "memory")
+public class InMemoryBlobStore implements BlobStore {
+
+    private final Map<String, byte[]> blobs = new ConcurrentHashMap<>();
+
+    @Override
+    public PutResult put(InputStream content, String extension, long maxBytes) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = content.read(chunk)) != -1) {
+            if (buffer.size() + read > maxBytes) {
+                throw new BlobTooLargeException(maxBytes);
+            }
+            digest.update(chunk, 0, read);
+            buffer.write(chunk, 0, read);
+        }
+
+        byte[] bytes = buffer.toByteArray();
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        String key = BlobStore.keyFor(sha256, extension);
+        boolean created = blobs.putIfAbsent(key, bytes) == null;
+        return new PutResult(key, sha256, bytes.length, created);
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        byte[] bytes = blobs.get(key);
+        if (bytes == null) {
+            throw new NoSuchFileException(key);
+        }
+        return new ByteArrayInputStream(bytes);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return blobs.containsKey(key);
+    }
+
+    @Override
+    public void delete(String key) {
+        blobs.remove(key);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.proj3.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stores blobs as files under {@code storage.local.root}.
+ *
+ * An upload is streamed into a temp file in the same file system while it is hashed, then
+ * renamed into its sharded location, so readers never see a partial file. If the target
+ * already exists the temp file is dropped, which is the deduplication. Keys that are plain
+ * file names (uploads from before content addressing) resolve to the root directory.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.type", havingValue = "local", matchIfMissing = true)
+public class LocalDiskBlobStore implements BlobStore {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path root;
+    private final Path tempDir;
+
+    public LocalDiskBlobStore(@Value("${storage.local.root:${file.upload-dir:uploads}}") String root) throws IOException {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.tempDir = this.root.resolve(".tmp");
+        Files.createDirectories(tempDir);
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public PutResult put(InputStream content, String extension, long maxBytes) throws IOException {
+        Path temp = Files.createTempFile(tempDir, "upload-", ".part");
+        try {
+            MessageDigest digest = sha256();
+            long size = 0;
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxBytes) {
+                        throw new BlobTooLargeException(maxBytes);
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            String key = BlobStore.keyFor(sha256, extension);
+            Path target = resolve(key);
+            if (Files.exists(target)) {
+                touch(target);
+                return new PutResult(key, sha256, size, false);
+            }
+
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Another upload of the same content won the race
+                touch(target);
+                return new PutResult(key, sha256, size, false);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target);
+            }
+            return new PutResult(key, sha256, size, true);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        Path path = resolve(key);
+        if (!Files.isRegularFile(path)) {
+            throw new NoSuchFileException(key);
+        }
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    /**
+     * Maps a key to its file, refusing anything that would escape the root directory.
+     */
+    public Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.startsWith(tempDir) || path.equals(root)) {
+            throw new IllegalArgumentException("Invalid blob key: " + key);
+        }
+        return path;
+    }
+
+    // A reused file restarts its grace period, so the upload sweeper does not take it
+    // while the caller is still recording its reference
+    private static void touch(Path path) throws IOException {
+        try {
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+        } catch (NoSuchFileException e) {
+            // Collected meanwhile; callers check exists() after recording their reference
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
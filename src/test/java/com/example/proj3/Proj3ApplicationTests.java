@@ -3,7 +3,7 @@ package com.example.proj3;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "games.rawg.api-key=test-key")
 class Proj3ApplicationTests {
 
 	@Test
@@ -0,0 +1,40 @@
+package com.example.proj3.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.example.proj3.config.JwtUtil;
+import com.example.proj3.service.LoginAttemptService;
+import com.example.proj3.service.RefreshTokenService;
+import com.example.proj3.service.UserService;
+
+class AuthControllerTests {
+
+    private final RefreshTokenService refreshTokenService = mock(RefreshTokenService.class);
+    private final AuthController controller = new AuthController(mock(UserService.class), mock(PasswordEncoder.class),
+            mock(AuthenticationManager.class), mock(JwtUtil.class), mock(LoginAttemptService.class), refreshTokenService);
+
+    @Test
+    void refreshIsNotFoundWhileRefreshTokensAreDisabled() {
+        when(refreshTokenService.isEnabled()).thenReturn(false);
+
+        assertEquals(HttpStatus.NOT_FOUND, controller.refresh("token").getStatusCode());
+        verify(refreshTokenService, never()).rotate(anyString());
+    }
+
+    @Test
+    void refreshWithARefusedTokenIsUnauthorized() {
+        when(refreshTokenService.isEnabled()).thenReturn(true);
+
+        assertEquals(HttpStatus.UNAUTHORIZED, controller.refresh("token").getStatusCode());
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.proj3.controller;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.proj3.controller.UploadController.ByteRange;
+import com.example.proj3.storage.LocalDiskBlobStore;
+
+class UploadControllerTests {
+
+    private static final String ETAG = "\"2cf24dba\"";
+    private static final long MODIFIED = 1_700_000_000_000L;
+
+    @TempDir
+    Path root;
+
+    @Test
+    void parsesSingleByteRanges() {
+        assertEquals(new ByteRange(0, 99), UploadController.parseRange("bytes=0-99", 1000));
+        assertEquals(new ByteRange(500, 999), UploadController.parseRange("bytes=500-", 1000));
+        assertEquals(new ByteRange(900, 999), UploadController.parseRange("bytes=900-5000", 1000));
+        assertEquals(new ByteRange(900, 999), UploadController.parseRange("bytes=-100", 1000));
+        assertEquals(new ByteRange(0, 999), UploadController.parseRange("bytes=-2000", 1000));
+    }
+
+    @Test
+    void unsatisfiableRangesAreNull() {
+        assertNull(UploadController.parseRange("bytes=1000-", 1000));
+        assertNull(UploadController.parseRange("bytes=5-4", 1000));
+        assertNull(UploadController.parseRange("bytes=-0", 1000));
+        assertNull(UploadController.parseRange("bytes=-5", 0));
+    }
+
+    @Test
+    void multipleOrMalformedRangesFallBackToTheWholeFile() {
+        ByteRange full = new ByteRange(0, 999);
+
+        assertEquals(full, UploadController.parseRange("bytes=0-1,5-6", 1000));
+        assertEquals(full, UploadController.parseRange("items=0-1", 1000));
+        assertEquals(full, UploadController.parseRange("bytes=abc", 1000));
+        assertEquals(full, UploadController.parseRange("bytes=a-b", 1000));
+    }
+
+    @Test
+    void matchingEntityTagsAreNotModified() {
+        assertTrue(UploadController.notModified(withHeader(HttpHeaders.IF_NONE_MATCH, ETAG), ETAG, MODIFIED));
+        assertTrue(UploadController.notModified(withHeader(HttpHeaders.IF_NONE_MATCH, "W/" + ETAG), ETAG, MODIFIED));
+        assertTrue(UploadController.notModified(withHeader(HttpHeaders.IF_NONE_MATCH, "\"other\", " + ETAG), ETAG, MODIFIED));
+        assertTrue(UploadController.notModified(withHeader(HttpHeaders.IF_NONE_MATCH, "*"), ETAG, MODIFIED));
+    }
+
+    @Test
+    void ifNoneMatchTakesPrecedenceOverIfModifiedSince() {
+        MockHttpServletRequest request = withHeader(HttpHeaders.IF_NONE_MATCH, "\"other\"");
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, MODIFIED);
+
+        assertFalse(UploadController.notModified(request, ETAG, MODIFIED));
+    }
+
+    @Test
+    void modificationDatesAreComparedToTheSecond() {
+        assertTrue(UploadController.notModified(withHeader(HttpHeaders.IF_MODIFIED_SINCE, MODIFIED), ETAG, MODIFIED + 999));
+        assertFalse(UploadController.notModified(withHeader(HttpHeaders.IF_MODIFIED_SINCE, MODIFIED), ETAG, MODIFIED + 1000));
+        // Streams without a modification time only revalidate by ETag
+        assertFalse(UploadController.notModified(withHeader(HttpHeaders.IF_MODIFIED_SINCE, MODIFIED), ETAG, -1));
+        assertFalse(UploadController.notModified(new MockHttpServletRequest(), ETAG, MODIFIED));
+    }
+
+    @Test
+    void keysAreTakenFromTheDecodedPath() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/app/uploads/abc_my%20pic.png");
+        request.setContextPath("/app");
+        assertEquals("abc_my pic.png", UploadController.keyOf(request));
+
+        request = new MockHttpServletRequest("GET", "/uploads/2c/f2/abc.png;jsessionid=123");
+        assertEquals("2c/f2/abc.png", UploadController.keyOf(request));
+    }
+
+    @Test
+    void servesLegacyFileNamesWithEncodedCharacters() throws IOException {
+        Files.writeString(root.resolve("abc_my pic.png"), "picture");
+        UploadController controller = new UploadController(new LocalDiskBlobStore(root.toString()));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/abc_my%20pic.png");
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-4");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.serve(request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 2-4/7", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("image/png", response.getContentType());
+        assertArrayEquals("ctu".getBytes(StandardCharsets.UTF_8), response.getContentAsByteArray());
+    }
+
+    private static MockHttpServletRequest withHeader(String name, Object value) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(name, value);
+        return request;
+    }
+}
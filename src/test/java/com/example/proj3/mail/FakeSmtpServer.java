@@ -0,0 +1,126 @@
+package com.example.proj3.mail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Minimal in-process SMTP server for tests. Accepts one connection at a time on a free
+ * local port, records each message it accepts, and can be told to reject recipients.
+ */
+public class FakeSmtpServer implements AutoCloseable {
+
+    /**
+     * One accepted message: the envelope recipient and the raw DATA section.
+     */
+    public record Received(String recipient, String data) {
+
+        public boolean hasSubject(String subject) {
+            return data.contains("Subject: " + subject);
+        }
+    }
+
+    private final ServerSocket serverSocket;
+    private final Thread acceptor;
+    private final List<Received> received = new CopyOnWriteArrayList<>();
+    private volatile boolean rejectRecipients;
+    private volatile BooleanSupplier onConnect = () -> true;
+
+    public FakeSmtpServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(this::acceptLoop, "fake-smtp");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    public List<Received> received() {
+        return received;
+    }
+
+    /**
+     * Answers RCPT TO with a permanent 550 error, so every send fails.
+     */
+    public void rejectRecipients(boolean reject) {
+        this.rejectRecipients = reject;
+    }
+
+    /**
+     * Runs on every new connection, e.g. to check what the sender is holding while it talks to us.
+     */
+    public void onConnect(BooleanSupplier check) {
+        this.onConnect = check;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try (Socket socket = serverSocket.accept()) {
+                if (onConnect.getAsBoolean()) {
+                    converse(socket);
+                }
+            } catch (IOException e) {
+                // Closed, or the client hung up
+            }
+        }
+    }
+
+    private void converse(Socket socket) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        OutputStream out = socket.getOutputStream();
+        reply(out, "220 localhost fake SMTP");
+        String recipient = null;
+        String line;
+        while ((line = in.readLine()) != null) {
+            String command = line.toUpperCase(Locale.ROOT);
+            if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                reply(out, "250 localhost");
+            } else if (command.startsWith("MAIL FROM")) {
+                reply(out, "250 OK");
+            } else if (command.startsWith("RCPT TO")) {
+                if (rejectRecipients) {
+                    reply(out, "550 No such user");
+                } else {
+                    recipient = line.substring(line.indexOf('<') + 1, line.lastIndexOf('>'));
+                    reply(out, "250 OK");
+                }
+            } else if (command.equals("DATA")) {
+                reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                StringBuilder data = new StringBuilder();
+                while ((line = in.readLine()) != null && !line.equals(".")) {
+                    data.append(line.startsWith("..") ? line.substring(1) : line).append('\n');
+                }
+                received.add(new Received(recipient, data.toString()));
+                reply(out, "250 OK queued");
+            } else if (command.equals("RSET") || command.equals("NOOP")) {
+                reply(out, "250 OK");
+            } else if (command.equals("QUIT")) {
+                reply(out, "221 Bye");
+                return;
+            } else {
+                reply(out, "502 Command not implemented");
+            }
+        }
+    }
+
+    private static void reply(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+}
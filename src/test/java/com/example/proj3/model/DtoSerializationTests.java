@@ -0,0 +1,105 @@
+package com.example.proj3.model;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares the JSON of the entities with the DTOs the endpoints now return: the DTOs must
+ * not carry credentials or private fields, and should be smaller.
+ */
+class DtoSerializationTests {
+
+    private static final Set<String> PRIVATE_FIELDS = Set.of("password", "tokenVersion", "email");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void reviewDtoLeavesOutPrivateUserFields() throws Exception {
+        Review review = new Review(user(), game(1L), 4, "Tight controls");
+        review.setId(10L);
+
+        String entityJson = objectMapper.writeValueAsString(review);
+        String dtoJson = objectMapper.writeValueAsString(ReviewDto.of(review));
+
+        assertTrue(fieldNames(entityJson).contains("password"), "the entity form exposes the password hash");
+        assertNoPrivateFields(dtoJson);
+        assertTrue(dtoJson.length() < entityJson.length(), dtoJson.length() + " >= " + entityJson.length());
+    }
+
+    @Test
+    void gameListDtoLeavesOutPrivateUserFields() throws Exception {
+        UserGameList list = new UserGameList("Favourites", user());
+        list.setId(20L);
+        List<VideoGame> games = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            games.add(game(id));
+        }
+        list.setVideoGames(games);
+
+        String entityJson = objectMapper.writeValueAsString(list);
+        String dtoJson = objectMapper.writeValueAsString(GameListDto.of(list));
+
+        assertTrue(fieldNames(entityJson).contains("password"), "the entity form exposes the password hash");
+        assertNoPrivateFields(dtoJson);
+        assertTrue(dtoJson.length() < entityJson.length(), dtoJson.length() + " >= " + entityJson.length());
+    }
+
+    @Test
+    void userSearchResultsLeaveOutEmailAndTheAdminFlag() throws Exception {
+        User user = user();
+        user.setAdmin(true);
+
+        String summaryJson = objectMapper.writeValueAsString(UserSummary.of(user));
+        String dtoJson = objectMapper.writeValueAsString(PublicUserDto.of(user));
+
+        assertTrue(fieldNames(summaryJson).contains("admin"), "the summary carries the admin flag");
+        assertNoPrivateFields(dtoJson);
+        assertFalse(fieldNames(dtoJson).contains("admin"));
+    }
+
+    private void assertNoPrivateFields(String json) throws Exception {
+        Set<String> names = fieldNames(json);
+        for (String field : PRIVATE_FIELDS) {
+            assertFalse(names.contains(field), field + " in " + json);
+        }
+    }
+
+    // Every object key anywhere in the document
+    private Set<String> fieldNames(String json) throws Exception {
+        Set<String> names = new HashSet<>();
+        collect(objectMapper.readTree(json), names);
+        return names;
+    }
+
+    private static void collect(JsonNode node, Set<String> names) {
+        node.fieldNames().forEachRemaining(names::add);
+        for (JsonNode child : node) {
+            collect(child, names);
+        }
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(5L);
+        user.setUsername("ada");
+        user.setEmail("ada@example.com");
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuv");
+        user.setProfilePicture("/uploads/ab/cd/abcd.png");
+        user.setTokenVersion(3);
+        return user;
+    }
+
+    private static VideoGame game(long id) {
+        return new VideoGame(id, "Game " + id, "Platformer", "https://example.com/" + id + ".jpg", Long.toString(100 + id));
+    }
+}
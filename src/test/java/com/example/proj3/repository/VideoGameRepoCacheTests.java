@@ -0,0 +1,86 @@
+package com.example.proj3.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.proj3.model.VideoGame;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Checks that repeated game lookups are answered from the second-level and query caches.
+ * Each repository call runs in its own transaction, as in the application, so hits can
+ * only come from the shared caches and not from a test-wide persistence context.
+ */
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class VideoGameRepoCacheTests {
+
+    @Autowired
+    private VideoGameRepo videoGameRepo;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private VideoGame game;
+
+    @BeforeEach
+    void setUp() {
+        videoGameRepo.deleteAll();
+        game = videoGameRepo.save(new VideoGame(null, "Celeste", "Platformer", null, "42"));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @Test
+    void repeatedFindByIdIsServedFromTheSecondLevelCache() {
+        videoGameRepo.findById(game.getId());
+        long statements = statistics.getPrepareStatementCount();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("Celeste", videoGameRepo.findById(game.getId()).orElseThrow().getTitle());
+        }
+
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getSecondLevelCacheHitCount() >= 5);
+    }
+
+    @Test
+    void repeatedFindByRawgIdIsServedFromTheQueryCache() {
+        videoGameRepo.findByRawgId("42");
+        assertEquals(1, statistics.getQueryCacheMissCount());
+        long statements = statistics.getPrepareStatementCount();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(game.getId(), videoGameRepo.findByRawgId("42").orElseThrow().getId());
+        }
+
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertEquals(5, statistics.getQueryCacheHitCount());
+        assertTrue(statistics.getSecondLevelCacheHitCount() >= 5);
+    }
+
+    @Test
+    void writingAGameInvalidatesCachedQueryResults() {
+        videoGameRepo.findByRawgId("42");
+        game.setTitle("Celeste Classic");
+        videoGameRepo.save(game);
+        long statements = statistics.getPrepareStatementCount();
+
+        assertEquals("Celeste Classic", videoGameRepo.findByRawgId("42").orElseThrow().getTitle());
+
+        assertEquals(0, statistics.getQueryCacheHitCount());
+        assertTrue(statistics.getPrepareStatementCount() > statements);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.proj3.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.proj3.model.UserSummary;
+import com.example.proj3.repository.UserRepository;
+
+class AccountAvailabilityFilterTests {
+
+    private static UserSummary user(long id, String username) {
+        return new UserSummary(id, username, username + "@example.com", false, false, null);
+    }
+
+    @Test
+    void repeatedNamesDoNotCountTowardsCapacity() {
+        AccountAvailabilityFilter.Bits bits = new AccountAvailabilityFilter.Bits(1000, 0.01);
+
+        for (int i = 0; i < 50; i++) {
+            bits.add("u:alice");
+        }
+        bits.add("u:bob");
+
+        assertEquals(2, bits.entries.get());
+    }
+
+    @Test
+    void nameAddedDuringRebuildSurvivesTheSwap() {
+        UserRepository userRepository = mock(UserRepository.class);
+        AccountAvailabilityFilter filter = new AccountAvailabilityFilter(userRepository, 1000, 0.01);
+        when(userRepository.findAllSummaries()).thenReturn(List.of(user(1L, "alice")));
+        filter.rebuild();
+
+        // A save lands on the old filter while the snapshot query runs, and is not in its result
+        when(userRepository.findAllSummaries()).thenAnswer(invocation -> {
+            filter.onUserChanged(new UserChangedEvent(2L, user(2L, "carol")));
+            return List.of(user(1L, "alice"));
+        });
+        filter.rebuild();
+
+        assertTrue(filter.mightContainUsername("Carol"));
+        assertTrue(filter.mightContainEmail("carol@example.com"));
+        assertTrue(filter.mightContainUsername("alice"));
+    }
+
+    @Test
+    void nameCommittedAfterTheSnapshotIsAddedAgain() {
+        UserRepository userRepository = mock(UserRepository.class);
+        AccountAvailabilityFilter filter = new AccountAvailabilityFilter(userRepository, 1000, 0.01);
+        when(userRepository.findAllSummaries()).thenReturn(List.of());
+        filter.rebuild();
+
+        // Added before commit to the old filter; the rebuild's query cannot see it yet
+        UserChangedEvent saved = new UserChangedEvent(3L, user(3L, "dave"));
+        filter.onUserChanged(saved);
+        filter.rebuild();
+        assertFalse(filter.mightContainUsername("dave"));
+
+        filter.onUserCommitted(saved);
+
+        assertTrue(filter.mightContainUsername("dave"));
+    }
+}
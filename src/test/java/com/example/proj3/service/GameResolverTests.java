@@ -0,0 +1,183 @@
+package com.example.proj3.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.proj3.model.VideoGame;
+import com.example.proj3.repository.VideoGameRepo;
+import com.example.proj3.service.GameResolver.IdType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+
+class GameResolverTests {
+
+    private final VideoGameRepo videoGameRepo = mock(VideoGameRepo.class);
+    private final VideoGameService videoGameService = mock(VideoGameService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private GameResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.getCache()).thenReturn(mock(Cache.class));
+        when(videoGameRepo.findById(anyLong())).thenReturn(Optional.empty());
+        when(videoGameRepo.findFirstByRawgIdOrderByIdAsc(anyString())).thenReturn(Optional.empty());
+        resolver = new GameResolver(videoGameRepo, videoGameService, mock(RawgIdIndex.class),
+                entityManagerFactory, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentRequestsForOneGameShareASingleFetch() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        VideoGame game = new VideoGame(1L, "Seven", null, null, "7");
+        when(videoGameService.fetchAndSaveFromRawg(7L)).thenAnswer(invocation -> {
+            release.await();
+            return game;
+        });
+
+        Future<VideoGame> first = executor.submit(() -> resolver.resolve(7, IdType.RAWG));
+        awaitCount("rawg", 1);
+        Future<VideoGame> second = executor.submit(() -> resolver.resolve(7, IdType.RAWG));
+        awaitCount("joined", 1);
+        release.countDown();
+
+        assertSame(game, first.get(5, TimeUnit.SECONDS));
+        assertSame(game, second.get(5, TimeUnit.SECONDS));
+        verify(videoGameService, times(1)).fetchAndSaveFromRawg(7L);
+    }
+
+    @Test
+    void fetchesOfOtherGamesDoNotWait() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        VideoGame other = new VideoGame(2L, "Eight", null, null, "8");
+        when(videoGameService.fetchAndSaveFromRawg(7L)).thenAnswer(invocation -> {
+            release.await();
+            return new VideoGame(1L, "Seven", null, null, "7");
+        });
+        when(videoGameService.fetchAndSaveFromRawg(8L)).thenReturn(other);
+
+        Future<VideoGame> blocked = executor.submit(() -> resolver.resolve(7, IdType.RAWG));
+        awaitCount("rawg", 1);
+
+        assertSame(other, executor.submit(() -> resolver.resolve(8, IdType.RAWG)).get(5, TimeUnit.SECONDS));
+        release.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void aFailedFetchIsRethrownToEveryWaiterAndThenRetried() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        VideoGame game = new VideoGame(1L, "Seven", null, null, "7");
+        when(videoGameService.fetchAndSaveFromRawg(7L)).thenAnswer(invocation -> {
+            if (calls.incrementAndGet() == 1) {
+                release.await();
+                throw new RawgUnavailableException("RAWG is unavailable");
+            }
+            return game;
+        });
+
+        Future<VideoGame> first = executor.submit(() -> resolver.resolve(7, IdType.RAWG));
+        awaitCount("rawg", 1);
+        Future<VideoGame> second = executor.submit(() -> resolver.resolve(7, IdType.RAWG));
+        awaitCount("joined", 1);
+        release.countDown();
+
+        for (Future<VideoGame> waiter : List.of(first, second)) {
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(RawgUnavailableException.class, failure.getCause());
+        }
+        assertSame(game, resolver.resolve(7, IdType.RAWG));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void autoIdsWithoutALocalGameAreCountedAsFallbacks() {
+        VideoGame game = new VideoGame(1L, "Seven", null, null, "7");
+        when(videoGameService.fetchAndSaveFromRawg(7L)).thenReturn(game);
+
+        assertSame(game, resolver.resolve(7, IdType.AUTO));
+
+        assertEquals(1, meterRegistry.get("games.resolve.auto_fallback").counter().count());
+        assertEquals(1, meterRegistry.get("games.resolve").tag("type", "auto").tag("source", "rawg").counter().count());
+    }
+
+    @Test
+    void aRawgMissQueriesTheDatabaseOnce() {
+        VideoGame game = new VideoGame(1L, "Seven", null, null, "7");
+        when(videoGameService.fetchAndSaveFromRawg(7L)).thenReturn(game);
+
+        assertSame(game, resolver.resolve(7, IdType.RAWG));
+
+        verify(videoGameRepo, times(1)).findFirstByRawgIdOrderByIdAsc("7");
+        verify(videoGameRepo, never()).findById(anyLong());
+    }
+
+    @Test
+    void anAutoMissLooksUpBothIdsInOneQuery() {
+        VideoGame game = new VideoGame(1L, "Seven", null, null, "7");
+        when(videoGameService.fetchAndSaveFromRawg(7L)).thenReturn(game);
+
+        assertSame(game, resolver.resolve(7, IdType.AUTO));
+
+        verify(videoGameRepo, times(1)).findByIdOrRawgId(7L, "7");
+        verify(videoGameRepo, never()).findById(anyLong());
+        verify(videoGameRepo, never()).findFirstByRawgIdOrderByIdAsc(anyString());
+    }
+
+    @Test
+    void anAutoIdPrefersTheLocalGame() {
+        VideoGame local = new VideoGame(7L, "Local", null, null, "100");
+        VideoGame byRawgId = new VideoGame(3L, "Seven", null, null, "7");
+        when(videoGameRepo.findByIdOrRawgId(7L, "7")).thenReturn(List.of(local, byRawgId));
+
+        assertSame(local, resolver.resolve(7, IdType.AUTO));
+
+        assertEquals(0, meterRegistry.get("games.resolve.auto_fallback").counter().count());
+        verify(videoGameService, never()).fetchAndSaveFromRawg(anyLong());
+    }
+
+    private void awaitCount(String source, int expected) throws InterruptedException {
+        BooleanSupplier reached = () -> meterRegistry.find("games.resolve").tag("source", source).counters().stream()
+                .mapToDouble(Counter::count).sum() >= expected;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!reached.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for " + source);
+            Thread.sleep(5);
+        }
+    }
+}
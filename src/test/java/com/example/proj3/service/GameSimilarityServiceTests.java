@@ -0,0 +1,80 @@
+package com.example.proj3.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.proj3.model.VideoGame;
+import com.example.proj3.service.GameSimilarityService.SimilarGame;
+
+class GameSimilarityServiceTests {
+
+    private final GameSimilarityService service = new GameSimilarityService(null);
+
+    @Test
+    void scoresGenreOverlapAsJaccardSimilarity() {
+        index(1L, "Action, RPG, Indie");
+        index(2L, "rpg,indie");
+        index(3L, "Action, Shooter");
+
+        List<SimilarGame> similar = service.getSimilarGames(1L, 10);
+
+        // {action, rpg, indie} against {rpg, indie}: 2 shared of 3; against {action, shooter}: 1 of 4
+        assertEquals(List.of(2L, 3L), ids(similar));
+        assertEquals(2.0 / 3, similar.get(0).similarity(), 1e-9);
+        assertEquals(1.0 / 4, similar.get(1).similarity(), 1e-9);
+    }
+
+    @Test
+    void ranksMostSimilarFirstAndLeavesOutGamesWithNoSharedGenre() {
+        index(1L, "Puzzle");
+        index(2L, "Action, Shooter, Horror");
+        index(3L, "Action, Shooter");
+        index(4L, "Action");
+        index(5L, "Action, Shooter, Horror");
+
+        List<SimilarGame> similar = service.getSimilarGames(2L, 10);
+
+        assertEquals(List.of(5L, 3L, 4L), ids(similar));
+        assertEquals(1.0, similar.get(0).similarity(), 1e-9);
+        assertEquals(List.of(5L, 3L), ids(service.getSimilarGames(2L, 2)));
+    }
+
+    @Test
+    void neverReturnsTheGameItself() {
+        index(1L, "Racing");
+        index(2L, "Racing");
+
+        assertEquals(List.of(2L), ids(service.getSimilarGames(1L, 10)));
+        assertEquals(List.of(1L), ids(service.getSimilarGames(2L, 10)));
+    }
+
+    @Test
+    void reindexingAGameMovesItToItsNewGenres() {
+        index(1L, "Strategy");
+        index(2L, "Strategy");
+        index(3L, "Sports");
+
+        index(2L, "Sports, Racing");
+
+        assertTrue(service.getSimilarGames(1L, 10).isEmpty());
+        assertEquals(List.of(2L), ids(service.getSimilarGames(3L, 10)));
+        assertEquals(0.5, service.getSimilarGames(3L, 10).get(0).similarity(), 1e-9);
+
+        index(2L, null);
+
+        assertTrue(service.getSimilarGames(2L, 10).isEmpty());
+        assertTrue(service.getSimilarGames(3L, 10).isEmpty());
+    }
+
+    private void index(Long id, String genre) {
+        service.index(new VideoGame(id, "Game " + id, genre, null, null));
+    }
+
+    private static List<Long> ids(List<SimilarGame> games) {
+        return games.stream().map(SimilarGame::gameId).toList();
+    }
+}
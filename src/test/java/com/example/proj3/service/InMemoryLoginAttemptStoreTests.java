@@ -0,0 +1,91 @@
+package com.example.proj3.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class InMemoryLoginAttemptStoreTests {
+
+    private static final long WINDOW = 60_000;
+
+    @Test
+    void fullStoreEvictsTheLeastRecentlyUsedKey() {
+        InMemoryLoginAttemptStore store = new InMemoryLoginAttemptStore(3, WINDOW);
+        long now = System.currentTimeMillis();
+        store.recordFailure("user:a", now, WINDOW);
+        store.recordFailure("user:b", now, WINDOW);
+        store.recordFailure("user:c", now, WINDOW);
+        store.recordFailure("user:a", now, WINDOW);
+
+        store.recordFailure("user:d", now, WINDOW);
+
+        assertEquals(3, store.trackedKeys());
+        // b was the least recently used; a, c and d keep their own counts
+        assertEquals(3.0, store.recordFailure("user:a", now, WINDOW), 1e-9);
+        assertEquals(2.0, store.recordFailure("user:d", now, WINDOW), 1e-9);
+    }
+
+    @Test
+    void lockedKeysAreNotEvicted() {
+        InMemoryLoginAttemptStore store = new InMemoryLoginAttemptStore(2, WINDOW);
+        long now = System.currentTimeMillis();
+        store.lock("user:victim", now + WINDOW);
+        store.recordFailure("user:junk1", now, WINDOW);
+
+        for (int i = 0; i < 100; i++) {
+            store.recordFailure("user:flood" + i, now, WINDOW);
+        }
+
+        assertTrue(store.lockedUntil("user:victim", now) > now);
+    }
+
+    @Test
+    void floodedStoreCountsNewKeysTogetherInsteadOfIgnoringThem() {
+        InMemoryLoginAttemptStore store = new InMemoryLoginAttemptStore(2, WINDOW);
+        long now = System.currentTimeMillis();
+        store.lock("user:x", now + WINDOW);
+        store.lock("user:y", now + WINDOW);
+
+        assertEquals(1.0, store.recordFailure("user:new1", now, WINDOW), 1e-9);
+        assertEquals(2.0, store.recordFailure("user:new2", now, WINDOW), 1e-9);
+        store.lock("user:new2", now + WINDOW);
+
+        // Every untracked key is now locked out with the shared entry, and a success on one
+        // of them does not lift it
+        store.reset("user:new1");
+        assertTrue(store.lockedUntil("user:someone-else", now) > now);
+        assertEquals(2, store.trackedKeys());
+    }
+
+    @Test
+    void theOverflowLockoutEndsOnceAKeyCanBeTrackedOnItsOwn() {
+        InMemoryLoginAttemptStore store = new InMemoryLoginAttemptStore(2, WINDOW);
+        long now = System.currentTimeMillis();
+        store.lock("user:x", now + 1_000);
+        store.lock("user:y", now + 1_000);
+        store.lock("user:flood", now + WINDOW);
+        assertTrue(store.lockedUntil("user:someone-else", now) > now);
+
+        // x and y can be evicted again, so nobody else shares the overflow lockout
+        long later = now + 2_000;
+        assertEquals(0, store.lockedUntil("user:someone-else", later));
+        assertEquals(1.0, store.recordFailure("user:someone-else", later, WINDOW), 1e-9);
+        assertEquals(0, store.lockedUntil("user:someone-else", later));
+    }
+
+    @Test
+    void theOverflowLockoutDoesNotApplyWhileTheStoreHasRoom() {
+        InMemoryLoginAttemptStore store = new InMemoryLoginAttemptStore(2, WINDOW);
+        long now = System.currentTimeMillis();
+        store.lock("user:x", now + WINDOW);
+        store.lock("user:y", now + WINDOW);
+        store.lock("user:flood", now + WINDOW);
+
+        store.reset("user:x");
+
+        assertEquals(0, store.lockedUntil("user:someone-else", now));
+        assertEquals(0, store.lockoutCount("user:someone-else"));
+        assertTrue(store.lockedUntil("user:y", now) > now);
+    }
+}
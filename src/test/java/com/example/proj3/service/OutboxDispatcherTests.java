@@ -0,0 +1,158 @@
+package com.example.proj3.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import com.example.proj3.mail.FakeSmtpServer;
+import com.example.proj3.mail.SmtpMailTransport;
+import com.example.proj3.model.OutboxMessage;
+import com.example.proj3.repository.OutboxMessageRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OutboxDispatcherTests {
+
+    private FakeSmtpServer smtp;
+    private OutboxMessageRepository repository;
+    private OutboxDispatcher dispatcher;
+    private final AtomicBoolean inTransaction = new AtomicBoolean();
+    private final AtomicBoolean connectedInsideTransaction = new AtomicBoolean();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        smtp = new FakeSmtpServer();
+        smtp.onConnect(() -> {
+            if (inTransaction.get()) {
+                connectedInsideTransaction.set(true);
+            }
+            return true;
+        });
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtp.port());
+        SmtpMailTransport transport = new SmtpMailTransport(mailSender);
+        ReflectionTestUtils.setField(transport, "from", "no-reply@example.com");
+
+        // Tracks whether a transaction is open, so the test can see where the SMTP call happens
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            inTransaction.set(true);
+            return mock(TransactionStatus.class);
+        });
+        doAnswer(invocation -> {
+            inTransaction.set(false);
+            return null;
+        }).when(transactionManager).commit(any());
+
+        repository = mock(OutboxMessageRepository.class);
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        dispatcher = new OutboxDispatcher(repository, transport, transactionManager, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 20);
+        ReflectionTestUtils.setField(dispatcher, "maxBatchesPerRun", 10);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 8);
+        ReflectionTestUtils.setField(dispatcher, "baseBackoffMillis", 30_000L);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoffMillis", 3_600_000L);
+        ReflectionTestUtils.setField(dispatcher, "leaseMillis", 300_000L);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        smtp.close();
+    }
+
+    private List<OutboxMessage> due(OutboxMessage... messages) {
+        List<OutboxMessage> batch = new ArrayList<>(List.of(messages));
+        when(repository.lockDue(any(), any())).thenReturn(batch).thenReturn(List.of());
+        return batch;
+    }
+
+    @Test
+    void sendsClaimedMessagesOverSmtpOutsideTheTransaction() {
+        List<OutboxMessage> batch = due(
+                new OutboxMessage(OutboxService.PASSWORD_RESET, "alice@example.com", "Reset your password", "link"),
+                new OutboxMessage(OutboxService.PASSWORD_CHANGED, "bob@example.com", "Your password was changed", "hi"));
+
+        dispatcher.dispatch();
+
+        assertEquals(2, smtp.received().size());
+        assertEquals("alice@example.com", smtp.received().get(0).recipient());
+        assertTrue(smtp.received().get(0).hasSubject("Reset your password"));
+        assertTrue(smtp.received().get(1).hasSubject("Your password was changed"));
+        assertFalse(connectedInsideTransaction.get(), "SMTP was called while a transaction was open");
+        for (OutboxMessage message : batch) {
+            assertEquals(OutboxMessage.Status.SENT, message.getStatus());
+            assertNotNull(message.getSentAt());
+            // The reset link is not kept once it has been delivered
+            assertEquals("", message.getBody());
+        }
+        // Once to claim the batch, once to record the outcomes
+        verify(repository, times(2)).saveAll(batch);
+    }
+
+    @Test
+    void claimLeasesTheMessageUntilTheOutcomeIsRecorded() {
+        OutboxMessage message = new OutboxMessage(OutboxService.PASSWORD_RESET, "alice@example.com", "Reset", "link");
+        due(message);
+        Instant before = Instant.now();
+        smtp.onConnect(() -> message.getNextAttemptAt().isAfter(before.plusSeconds(290)));
+
+        dispatcher.dispatch();
+
+        // The server only accepts the conversation if the message was already leased
+        assertEquals(1, smtp.received().size());
+    }
+
+    @Test
+    void rejectedMessageIsRetriedLaterWithBackoff() {
+        smtp.rejectRecipients(true);
+        OutboxMessage message = new OutboxMessage(OutboxService.PASSWORD_RESET, "nobody@example.com", "Reset", "link");
+        due(message);
+        Instant before = Instant.now();
+
+        dispatcher.dispatch();
+
+        assertEquals(OutboxMessage.Status.PENDING, message.getStatus());
+        assertEquals("link", message.getBody());
+        assertEquals(1, message.getAttempts());
+        assertNotNull(message.getLastError());
+        assertTrue(message.getNextAttemptAt().isAfter(before.plusSeconds(29)));
+        assertTrue(smtp.received().isEmpty());
+    }
+
+    @Test
+    void lastFailedAttemptMarksTheMessageFailed() {
+        smtp.rejectRecipients(true);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 1);
+        OutboxMessage message = new OutboxMessage(OutboxService.PASSWORD_RESET, "nobody@example.com", "Reset", "link");
+        due(message);
+
+        dispatcher.dispatch();
+
+        assertEquals(OutboxMessage.Status.FAILED, message.getStatus());
+        assertEquals("", message.getBody());
+    }
+}
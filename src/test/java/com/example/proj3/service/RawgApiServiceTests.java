@@ -0,0 +1,201 @@
+package com.example.proj3.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+
+import com.example.proj3.service.RawgApiService.RawgGame;
+import com.example.proj3.service.RawgCircuitBreaker.State;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RawgApiServiceTests {
+
+    private static final long OPEN_MS = 200;
+
+    @TempDir
+    Path cacheDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger requests = new AtomicInteger();
+    // What the stub answers: an HTTP status, and the game name for a 200
+    private volatile int status = 200;
+    private volatile String name = "Portal";
+    private volatile CountDownLatch hold = new CountDownLatch(0);
+
+    private HttpServer server;
+    private RawgCircuitBreaker breaker;
+    private RawgResponseCache cache;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/api/games", this::answer);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        hold.countDown();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void theBreakerOpensOnServerErrorsAndClosesAfterASuccessfulTrial() throws Exception {
+        RawgApiService service = service(2, 8, 0);
+        status = 500;
+
+        assertThrows(RawgUnavailableException.class, () -> service.fetchGame(1));
+        assertThrows(RawgUnavailableException.class, () -> service.fetchGame(1));
+        assertEquals(State.OPEN, breaker.state());
+
+        // Open: no request reaches RAWG
+        assertThrows(RawgUnavailableException.class, () -> service.fetchGame(1));
+        assertEquals(2, requests.get());
+
+        Thread.sleep(OPEN_MS + 50);
+        status = 200;
+        assertEquals("Portal", service.fetchGame(1).name());
+        assertEquals(State.CLOSED, breaker.state());
+        assertEquals(1, transitions("open", "half_open"));
+        assertEquals(1, transitions("half_open", "closed"));
+    }
+
+    @Test
+    void aFailedTrialReopensTheBreaker() throws Exception {
+        RawgApiService service = service(1, 8, 0);
+        status = 503;
+        assertThrows(RawgUnavailableException.class, () -> service.fetchGame(1));
+
+        Thread.sleep(OPEN_MS + 50);
+        assertThrows(RawgUnavailableException.class, () -> service.fetchGame(1));
+
+        assertEquals(State.OPEN, breaker.state());
+        assertEquals(1, transitions("half_open", "open"));
+    }
+
+    @Test
+    void tooManyRequestsCountsAgainstRawgButOtherClientErrorsDoNot() {
+        RawgApiService service = service(2, 8, 0);
+        status = 404;
+        assertThrows(HttpClientErrorException.class, () -> service.fetchGame(1));
+        assertThrows(HttpClientErrorException.class, () -> service.fetchGame(1));
+        assertEquals(State.CLOSED, breaker.state());
+
+        status = 429;
+        assertThrows(RawgUnavailableException.class, () -> service.fetchGame(1));
+        assertThrows(RawgUnavailableException.class, () -> service.fetchGame(1));
+        assertEquals(State.OPEN, breaker.state());
+        assertEquals(2, meterRegistry.get("rawg.calls").tag("outcome", "failure").counter().count());
+        assertEquals(2, meterRegistry.get("rawg.calls").tag("outcome", "success").counter().count());
+    }
+
+    @Test
+    void callsBeyondTheBulkheadAreRejected() throws Exception {
+        RawgApiService service = service(5, 1, 0);
+        hold = new CountDownLatch(1);
+
+        Future<RawgGame> slow = executor.submit(() -> service.fetchGame(1));
+        await(() -> requests.get() == 1);
+        RawgUnavailableException rejected = assertThrows(RawgUnavailableException.class, () -> service.fetchGame(2));
+        hold.countDown();
+
+        assertEquals("Too many concurrent RAWG requests", rejected.getMessage());
+        assertEquals("Portal", slow.get(5, TimeUnit.SECONDS).name());
+        assertEquals(1, meterRegistry.get("rawg.calls").tag("outcome", "rejected").counter().count());
+        assertEquals(State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void expiredResultsStandInForRawgAndAreRevalidatedOnceItIsBack() throws Exception {
+        // A TTL of zero makes every cached result stale at once
+        RawgApiService service = service(1, 8, 0);
+        assertEquals("Portal", service.fetchGame(1).name());
+
+        status = 500;
+        assertEquals("Portal", service.fetchGame(1).name());
+        assertEquals(State.OPEN, breaker.state());
+        // While the breaker is open the stale result is served without a request
+        assertEquals("Portal", service.fetchGame(1).name());
+        assertEquals(2, requests.get());
+
+        status = 200;
+        name = "Portal 2";
+        Thread.sleep(OPEN_MS + 50);
+        service.revalidatePending();
+
+        await(() -> "Portal 2".equals(RawgCodec.decodeGame(cache.lookup("game:1").value()).name()));
+        assertEquals(3, requests.get());
+        assertEquals(State.CLOSED, breaker.state());
+    }
+
+    private RawgApiService service(int failureThreshold, int maxConcurrentCalls, long gameTtlSeconds) {
+        try {
+            cache = new RawgResponseCache(true, cacheDir.toString(), 4096, 4096 * 4, 3600, meterRegistry);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        breaker = new RawgCircuitBreaker(maxConcurrentCalls, 50, failureThreshold, OPEN_MS, meterRegistry);
+        RawgRateLimiter rateLimiter = new RawgRateLimiter(1000, 100, 1, 2000, 2000, 0, meterRegistry);
+        RawgApiService service = new RawgApiService(new RestTemplateBuilder(), cache, breaker, rateLimiter,
+                "http://localhost:" + server.getAddress().getPort() + "/api", "test-key", 1000, 5000);
+        ReflectionTestUtils.setField(service, "gameTtlSeconds", gameTtlSeconds);
+        ReflectionTestUtils.setField(service, "maxPendingRevalidations", 10);
+        return service;
+    }
+
+    private void answer(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            hold.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int code = status;
+        byte[] body = (code == 200 ? "{\"id\": 1, \"name\": \"" + name + "\"}" : "{}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private double transitions(String from, String to) {
+        return meterRegistry.get("rawg.breaker.transitions").tag("from", from).tag("to", to).counter().count();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.proj3.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.example.proj3.service.RawgCircuitBreaker.State;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RawgCircuitBreakerTests {
+
+    private static final long OPEN_MS = 50;
+
+    private final RawgCircuitBreaker breaker = new RawgCircuitBreaker(4, 10, 1, OPEN_MS, new SimpleMeterRegistry());
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void anErrorFromTheTrialCallFreesTheTrialSlot() throws InterruptedException {
+        openAndWait();
+
+        assertThrows(StackOverflowError.class, () -> breaker.call(() -> {
+            throw new StackOverflowError();
+        }));
+
+        assertEquals(State.HALF_OPEN, breaker.state());
+        assertTrue(breaker.isCallPermitted());
+        assertEquals("ok", breaker.call(() -> "ok"));
+        assertEquals(State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void anErrorFromACallLetThroughWhileClosedLeavesTheTrialSlotTaken() throws Exception {
+        CountDownLatch closedCallStarted = new CountDownLatch(1);
+        CountDownLatch failClosedCall = new CountDownLatch(1);
+        Future<?> closedCall = executor.submit(() -> breaker.call(() -> {
+            closedCallStarted.countDown();
+            awaitQuietly(failClosedCall);
+            throw new StackOverflowError();
+        }));
+        closedCallStarted.await(5, TimeUnit.SECONDS);
+        openAndWait();
+
+        CountDownLatch trialStarted = new CountDownLatch(1);
+        CountDownLatch finishTrial = new CountDownLatch(1);
+        Future<String> trial = executor.submit(() -> breaker.call(() -> {
+            trialStarted.countDown();
+            awaitQuietly(finishTrial);
+            return "ok";
+        }));
+        trialStarted.await(5, TimeUnit.SECONDS);
+        assertFalse(breaker.isCallPermitted());
+
+        failClosedCall.countDown();
+        assertThrows(Exception.class, () -> closedCall.get(5, TimeUnit.SECONDS));
+        assertFalse(breaker.isCallPermitted());
+
+        finishTrial.countDown();
+        assertEquals("ok", trial.get(5, TimeUnit.SECONDS));
+        assertEquals(State.CLOSED, breaker.state());
+    }
+
+    private void openAndWait() throws InterruptedException {
+        assertThrows(RawgUnavailableException.class, () -> breaker.call(() -> {
+            throw new ResourceAccessException("Connection refused");
+        }));
+        assertEquals(State.OPEN, breaker.state());
+        Thread.sleep(OPEN_MS + 20);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.proj3.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.proj3.model.VideoGame;
+import com.example.proj3.repository.VideoGameRepo;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RawgIdIndexTests {
+
+    private final VideoGameRepo videoGameRepo = mock(VideoGameRepo.class);
+    private final RawgIdIndex index = new RawgIdIndex(videoGameRepo, mock(PlatformTransactionManager.class),
+            new SimpleMeterRegistry(), 16, false);
+
+    @Test
+    void onlyCanonicalPositiveNumbersAreKeys() {
+        assertEquals(7, RawgIdIndex.parse("7"));
+        assertEquals(123456789012345678L, RawgIdIndex.parse("123456789012345678"));
+
+        for (String rawgId : new String[] { null, "", "0", "007", "7a", "-7", "1234567890123456789" }) {
+            assertEquals(LongLongOpenHashMap.MISSING, RawgIdIndex.parse(rawgId), String.valueOf(rawgId));
+        }
+    }
+
+    @Test
+    void zeroPaddedIdsAreNotConfusedWithTheirCanonicalForm() {
+        index.record(new VideoGame(5L, "Seven", null, null, "7"));
+        when(videoGameRepo.findFirstByRawgIdOrderByIdAsc("007")).thenReturn(Optional.empty());
+
+        assertEquals(5L, index.resolve("7"));
+        assertNull(index.resolve("007"));
+        assertNull(index.cached("007"));
+    }
+
+    @Test
+    void resolveAllQueriesOnlyTheMissesAndRemembersThem() {
+        index.record(new VideoGame(5L, "Seven", null, null, "7"));
+        List<List<String>> queries = new ArrayList<>();
+        when(videoGameRepo.findIdsByRawgIds(List.of("8", "9"))).thenAnswer(invocation -> {
+            queries.add(invocation.getArgument(0));
+            return List.<Object[]>of(new Object[] { "8", 6L });
+        });
+
+        assertEquals(Map.of("7", 5L, "8", 6L), index.resolveAll(List.of("7", "8", "9")));
+        assertEquals(List.of(List.of("8", "9")), queries);
+        assertEquals(6L, index.cached("8"));
+    }
+}
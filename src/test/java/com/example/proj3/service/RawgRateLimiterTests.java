@@ -0,0 +1,118 @@
+package com.example.proj3.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.proj3.service.RawgRateLimiter.Priority;
+import com.example.proj3.service.RawgRateLimiter.QuotaUsage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RawgRateLimiterTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void requestsStopOnceTheMonthlyQuotaIsUsedUp() {
+        RawgRateLimiter limiter = new RawgRateLimiter(1000, 10, 1, 100, 100, 3, meterRegistry);
+
+        limiter.acquire(Priority.INTERACTIVE);
+        limiter.acquire(Priority.BACKGROUND);
+        limiter.acquire(Priority.INTERACTIVE);
+        assertEquals(0, meterRegistry.get("rawg.ratelimit.quota.remaining").gauge().value());
+
+        RawgUnavailableException rejected = assertThrows(RawgUnavailableException.class,
+                () -> limiter.acquire(Priority.INTERACTIVE));
+        assertEquals("RAWG monthly request quota used up", rejected.getMessage());
+        assertThrows(RawgUnavailableException.class, () -> limiter.acquire(Priority.BACKGROUND));
+        assertEquals(2, meterRegistry.get("rawg.ratelimit.quota.rejections").counter().count());
+    }
+
+    @Test
+    void queuedRequestsFailWhenTheQuotaRunsOutWhileTheyWait() throws Exception {
+        // One token every 100 ms and room for two requests this month
+        RawgRateLimiter limiter = new RawgRateLimiter(10, 1, 0, 5000, 5000, 2, meterRegistry);
+        limiter.acquire(Priority.INTERACTIVE);
+
+        Future<?> first = executor.submit(() -> limiter.acquire(Priority.INTERACTIVE));
+        Future<?> second = executor.submit(() -> limiter.acquire(Priority.INTERACTIVE));
+        long start = System.nanoTime();
+
+        // One of them gets the refilled token; the other gives up without waiting out its deadline
+        int failed = 0;
+        for (Future<?> waiter : List.of(first, second)) {
+            try {
+                waiter.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertInstanceOf(RawgUnavailableException.class, e.getCause());
+                failed++;
+            }
+        }
+        assertEquals(1, failed);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        assertEquals(0, meterRegistry.get("rawg.ratelimit.timeouts").tag("lane", "interactive").counter().count());
+    }
+
+    @Test
+    void theSharedCountReplacesTheLocalOneWithoutLosingUnsavedRequests() {
+        RawgRateLimiter limiter = new RawgRateLimiter(1000, 10, 1, 100, 100, 10, meterRegistry);
+        limiter.acquire(Priority.INTERACTIVE);
+        limiter.acquire(Priority.INTERACTIVE);
+
+        QuotaUsage drained = limiter.drainQuotaUsage();
+        assertEquals(2, drained.requests());
+        limiter.acquire(Priority.BACKGROUND);
+        // Other instances made 6 requests this month; ours are included in the total
+        limiter.applySharedQuotaUsage(drained.month(), 8);
+
+        assertEquals(1, meterRegistry.get("rawg.ratelimit.quota.remaining").gauge().value());
+        limiter.acquire(Priority.INTERACTIVE);
+        assertThrows(RawgUnavailableException.class, () -> limiter.acquire(Priority.INTERACTIVE));
+        assertEquals(2, limiter.drainQuotaUsage().requests());
+    }
+
+    @Test
+    void requestsThatCouldNotBeSavedAreDrainedAgain() {
+        RawgRateLimiter limiter = new RawgRateLimiter(1000, 10, 1, 100, 100, 10, meterRegistry);
+        limiter.acquire(Priority.INTERACTIVE);
+
+        QuotaUsage drained = limiter.drainQuotaUsage();
+        limiter.acquire(Priority.INTERACTIVE);
+        limiter.restoreQuotaUsage(drained);
+
+        assertEquals(2, limiter.drainQuotaUsage().requests());
+        // A total for a month that has ended does not touch this month's count
+        limiter.applySharedQuotaUsage("1999-01", 10);
+        assertEquals(8, meterRegistry.get("rawg.ratelimit.quota.remaining").gauge().value());
+    }
+
+    @Test
+    void aQuotaOfZeroIsUnlimited() {
+        RawgRateLimiter limiter = new RawgRateLimiter(1000, 1000, 1, 100, 100, 0, meterRegistry);
+
+        for (int i = 0; i < 500; i++) {
+            limiter.acquire(Priority.INTERACTIVE);
+        }
+        assertEquals(500, meterRegistry.get("rawg.ratelimit.wait").tag("lane", "interactive").timer().count());
+        assertNull(limiter.drainQuotaUsage());
+    }
+}
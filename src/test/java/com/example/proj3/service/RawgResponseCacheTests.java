@@ -0,0 +1,159 @@
+package com.example.proj3.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RawgResponseCacheTests {
+
+    private static final int SEGMENT_BYTES = 256;
+    private static final Duration TTL = Duration.ofHours(1);
+
+    @TempDir
+    Path dir;
+
+    private RawgResponseCache open(long maxBytes) throws IOException {
+        return new RawgResponseCache(true, dir.toString(), SEGMENT_BYTES, maxBytes, 60, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void entriesSurviveAReopen() throws IOException {
+        RawgResponseCache cache = open(SEGMENT_BYTES * 4);
+        cache.put("game:1", bytes("one"), TTL);
+        cache.put("game:2", bytes("two"), TTL);
+        cache.put("game:1", bytes("uno"), TTL);
+        cache.flush();
+
+        RawgResponseCache reopened = open(SEGMENT_BYTES * 4);
+
+        assertArrayEquals(bytes("uno"), reopened.lookup("game:1").value());
+        assertArrayEquals(bytes("two"), reopened.lookup("game:2").value());
+        assertTrue(reopened.lookup("game:2").isFresh());
+        assertNull(reopened.lookup("game:3"));
+    }
+
+    @Test
+    void aTruncatedSegmentKeepsTheRecordsBeforeTheCut() throws IOException {
+        RawgResponseCache cache = open(SEGMENT_BYTES * 4);
+        cache.put("game:1", bytes("one"), TTL);
+        cache.put("game:2", bytes("two"), TTL);
+        cache.flush();
+        Path segment = onlySegment();
+        // Cut into the value of the second record
+        int firstRecord = 24 + "game:1".length() + "one".length();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(firstRecord + 24 + "game:2".length() + 1);
+        }
+
+        RawgResponseCache reopened = open(SEGMENT_BYTES * 4);
+
+        assertArrayEquals(bytes("one"), reopened.lookup("game:1").value());
+        assertNull(reopened.lookup("game:2"));
+    }
+
+    @Test
+    void aCorruptRecordEndsTheScanAndIsOverwritten() throws IOException {
+        RawgResponseCache cache = open(SEGMENT_BYTES * 4);
+        cache.put("game:1", bytes("one"), TTL);
+        cache.put("game:2", bytes("two"), TTL);
+        cache.put("game:3", bytes("three"), TTL);
+        cache.flush();
+        Path segment = onlySegment();
+        int firstRecord = 24 + "game:1".length() + "one".length();
+        byte[] content = Files.readAllBytes(segment);
+        content[firstRecord + 24 + "game:2".length()] ^= 0x01;
+        Files.write(segment, content);
+
+        RawgResponseCache reopened = open(SEGMENT_BYTES * 4);
+        assertArrayEquals(bytes("one"), reopened.lookup("game:1").value());
+        assertNull(reopened.lookup("game:2"));
+        assertNull(reopened.lookup("game:3"));
+
+        reopened.put("game:4", bytes("four"), TTL);
+        reopened.flush();
+        RawgResponseCache again = open(SEGMENT_BYTES * 4);
+        assertArrayEquals(bytes("one"), again.lookup("game:1").value());
+        assertArrayEquals(bytes("four"), again.lookup("game:4").value());
+    }
+
+    @Test
+    void theOldestSegmentsAreDroppedToStayWithinMaxBytes() throws IOException {
+        RawgResponseCache cache = open(SEGMENT_BYTES * 2);
+        for (int i = 0; i < 20; i++) {
+            cache.put("game:" + i, new byte[64], TTL);
+        }
+
+        assertEquals(2, segmentFiles().size());
+        assertNull(cache.lookup("game:0"));
+        assertArrayEquals(new byte[64], cache.lookup("game:19").value());
+    }
+
+    @Test
+    void compactionKeepsLiveEntriesAndDeletesMostlyDeadSegments() throws IOException {
+        RawgResponseCache cache = open(SEGMENT_BYTES * 8);
+        cache.put("game:1", new byte[40], TTL);
+        for (int i = 0; i < 4; i++) {
+            cache.put("game:2", new byte[40], TTL);
+        }
+        cache.put("game:3", bytes("three"), TTL);
+        List<Path> before = segmentFiles();
+        assertEquals(2, before.size());
+
+        cache.compact();
+
+        assertFalse(Files.exists(before.get(0)));
+        assertArrayEquals(new byte[40], cache.lookup("game:1").value());
+        assertArrayEquals(new byte[40], cache.lookup("game:2").value());
+        assertArrayEquals(bytes("three"), cache.lookup("game:3").value());
+
+        cache.flush();
+        RawgResponseCache reopened = open(SEGMENT_BYTES * 8);
+        assertArrayEquals(new byte[40], reopened.lookup("game:1").value());
+        assertArrayEquals(bytes("three"), reopened.lookup("game:3").value());
+    }
+
+    @Test
+    void entriesPastTheStaleLimitAreMisses() throws IOException {
+        RawgResponseCache cache = open(SEGMENT_BYTES * 4);
+        cache.put("stale", bytes("old"), Duration.ofSeconds(-30));
+        cache.put("gone", bytes("older"), Duration.ofSeconds(-90));
+
+        RawgResponseCache.Entry stale = cache.lookup("stale");
+        assertArrayEquals(bytes("old"), stale.value());
+        assertFalse(stale.isFresh());
+        assertNull(cache.lookup("gone"));
+    }
+
+    private Path onlySegment() throws IOException {
+        List<Path> files = segmentFiles();
+        assertEquals(1, files.size());
+        return files.get(0);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.proj3.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.proj3.service.RawgApiService.RawgGame;
+import com.example.proj3.service.RawgApiService.RawgPage;
+
+class RawgResponseParserTests {
+
+    @Test
+    void parsesAGameListAndSkipsNestedIds() throws IOException {
+        RawgPage page;
+        try (InputStream in = resource("games-page.json")) {
+            page = RawgResponseParser.parsePage(in);
+        }
+
+        assertEquals(891234, page.count());
+        assertEquals(List.of(
+                new RawgGame("3498", "Grand Theft Auto V",
+                        "https://media.rawg.io/media/games/20a/20aa03a10cda45239fe22d035c0ebe64.jpg", "Action, Adventure"),
+                new RawgGame("4200", "Portal 2", null, null),
+                new RawgGame("58175", "God of War",
+                        "https://media.rawg.io/media/games/4be/4be6a6ad0364751a96229c56bf69be59.jpg", null)),
+                page.results());
+    }
+
+    @Test
+    void parsesAGameDetailAndSkipsNestedIds() throws IOException {
+        RawgGame game;
+        try (InputStream in = resource("game-detail.json")) {
+            game = RawgResponseParser.parseGame(in);
+        }
+
+        assertEquals(new RawgGame("28", "Red Dead Redemption 2",
+                "https://media.rawg.io/media/games/511/5118aff5091cb3efec399c808f8c598f.jpg", "Action, Adventure"), game);
+    }
+
+    @Test
+    void missingAndOddlyTypedFieldsAreNull() throws IOException {
+        RawgGame game = RawgResponseParser.parseGame(json("{\"id\": null, \"name\": 7, \"background_image\": {}}"));
+
+        assertEquals(new RawgGame(null, null, null, null), game);
+        assertEquals("", RawgResponseParser.parseGame(json("{\"id\": 1, \"genres\": []}")).genres());
+        assertEquals("1", RawgResponseParser.parseGame(json("{\"id\": \"1\"}")).rawgId());
+    }
+
+    @Test
+    void anEmptyPageHasNoResults() throws IOException {
+        RawgPage page = RawgResponseParser.parsePage(json("{\"count\": 0, \"results\": []}"));
+
+        assertEquals(0, page.count());
+        assertEquals(List.of(), page.results());
+        assertEquals(List.of(), RawgResponseParser.parsePage(json("{}")).results());
+    }
+
+    @Test
+    void truncatedResponsesAreRejected() throws IOException {
+        String detail = text("game-detail.json");
+        String page = text("games-page.json");
+
+        // Cut at every point inside the root object, including between fields and inside nested arrays
+        for (int end = 1; end < detail.trim().length(); end++) {
+            String cut = detail.substring(0, end);
+            assertThrows(IOException.class, () -> RawgResponseParser.parseGame(json(cut)), cut);
+        }
+        for (int end = 1; end < page.trim().length(); end += 7) {
+            String cut = page.substring(0, end);
+            assertThrows(IOException.class, () -> RawgResponseParser.parsePage(json(cut)), cut);
+        }
+    }
+
+    @Test
+    void nonObjectResponsesAreRejected() {
+        assertThrows(IOException.class, () -> RawgResponseParser.parsePage(json("[]")));
+        assertThrows(IOException.class, () -> RawgResponseParser.parseGame(json("\"Not found.\"")));
+        assertThrows(IOException.class, () -> RawgResponseParser.parseGame(json("")));
+    }
+
+    private static InputStream resource(String name) {
+        return RawgResponseParserTests.class.getResourceAsStream("/rawg/" + name);
+    }
+
+    private static String text(String name) throws IOException {
+        try (InputStream in = resource(name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static InputStream json(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.proj3.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.proj3.config.TokenHasher;
+import com.example.proj3.model.RefreshToken;
+import com.example.proj3.model.User;
+import com.example.proj3.repository.RefreshTokenRepository;
+import com.example.proj3.repository.UserRepository;
+import com.example.proj3.service.RefreshTokenService.Rotation;
+
+/**
+ * Rotation, reuse detection and revocation against a real database. Each service call
+ * runs in its own transaction, as it does behind the controller, so the bulk revocations
+ * are seen by the next call.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "jwt.refresh.enabled=true",
+        "jwt.refresh.reuse-grace-ms=60000"
+})
+@Import(RefreshTokenService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RefreshTokenServiceTests {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+        user = new User();
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        user.setPassword("hashed-password");
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void aRotationReplacesTheTokenWithTheNextInItsFamily() {
+        String first = refreshTokenService.issue(user);
+
+        Rotation rotation = refreshTokenService.rotate(first);
+
+        assertNotNull(rotation);
+        assertEquals(user.getId(), rotation.user().getId());
+        assertNotEquals(first, rotation.refreshToken());
+        RefreshToken old = stored(first);
+        RefreshToken next = stored(rotation.refreshToken());
+        assertTrue(old.isRevoked());
+        assertEquals(next.getId(), old.getReplacedById());
+        assertEquals(old.getFamilyId(), next.getFamilyId());
+        assertNotNull(refreshTokenService.rotate(rotation.refreshToken()));
+    }
+
+    @Test
+    void replayingAnOlderTokenRevokesTheWholeFamily() {
+        String first = refreshTokenService.issue(user);
+        String second = refreshTokenService.rotate(first).refreshToken();
+        String third = refreshTokenService.rotate(second).refreshToken();
+        String otherLogin = refreshTokenService.issue(user);
+
+        // first was replaced by second, which has been rotated in turn: not the previous token any more
+        assertNull(refreshTokenService.rotate(first));
+
+        assertTrue(stored(third).isRevoked());
+        assertNull(refreshTokenService.rotate(third));
+        assertNotNull(refreshTokenService.rotate(otherLogin));
+    }
+
+    @Test
+    void thePreviousTokenIsAcceptedWithinTheGraceWindow() {
+        String first = refreshTokenService.issue(user);
+        String fromFirstTab = refreshTokenService.rotate(first).refreshToken();
+
+        Rotation fromSecondTab = refreshTokenService.rotate(first);
+
+        assertNotNull(fromSecondTab);
+        assertEquals(stored(first).getFamilyId(), stored(fromSecondTab.refreshToken()).getFamilyId());
+        assertNotNull(refreshTokenService.rotate(fromFirstTab));
+        assertNotNull(refreshTokenService.rotate(fromSecondTab.refreshToken()));
+    }
+
+    @Test
+    void thePreviousTokenIsReuseOnceTheGraceWindowHasPassed() {
+        ReflectionTestUtils.setField(AopTestUtils.getTargetObject(refreshTokenService), "reuseGraceMillis", 0L);
+        try {
+            String first = refreshTokenService.issue(user);
+            String second = refreshTokenService.rotate(first).refreshToken();
+
+            assertNull(refreshTokenService.rotate(first));
+            assertNull(refreshTokenService.rotate(second));
+        } finally {
+            ReflectionTestUtils.setField(AopTestUtils.getTargetObject(refreshTokenService), "reuseGraceMillis", 60000L);
+        }
+    }
+
+    @Test
+    void anExpiredTokenIsRefused() {
+        String raw = TokenHasher.newToken();
+        refreshTokenRepository.save(new RefreshToken(TokenHasher.hash(raw), "family", user.getId(),
+                Instant.now().minusSeconds(1)));
+
+        assertNull(refreshTokenService.rotate(raw));
+        assertTrue(stored(raw).isRevoked());
+    }
+
+    @Test
+    void unknownTokensAreRefused() {
+        assertNull(refreshTokenService.rotate("not-a-token"));
+    }
+
+    @Test
+    void revokingAllForAUserEndsEveryLogin() {
+        String laptop = refreshTokenService.issue(user);
+        String phone = refreshTokenService.rotate(refreshTokenService.issue(user)).refreshToken();
+
+        // As after a password change or reset
+        refreshTokenService.revokeAllForUser(user.getId());
+
+        assertNull(refreshTokenService.rotate(laptop));
+        assertNull(refreshTokenService.rotate(phone));
+    }
+
+    @Test
+    void loggingOutRevokesTheFamilyAndEndsTheGraceWindow() {
+        String first = refreshTokenService.issue(user);
+        String second = refreshTokenService.rotate(first).refreshToken();
+
+        refreshTokenService.revokeFamily(second);
+
+        assertNull(refreshTokenService.rotate(second));
+        assertNull(refreshTokenService.rotate(first));
+    }
+
+    private RefreshToken stored(String rawToken) {
+        return refreshTokenRepository.findByTokenHash(TokenHasher.hash(rawToken)).orElseThrow();
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.proj3.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.proj3.service.TasteSimilarityService.RatingVector;
+import com.example.proj3.service.TasteSimilarityService.SimilarUser;
+
+class TasteSimilarityServiceTests {
+
+    @Test
+    void correlatesOverCoRatedGamesOnly() {
+        RatingVector a = RatingVector.of(Map.of(1L, 2, 2L, 4, 3L, 6, 9L, 1));
+        RatingVector b = RatingVector.of(Map.of(1L, 1, 2L, 2, 3L, 3, 7L, 10));
+
+        SimilarUser match = a.similarityTo(2L, b, 2);
+
+        // Games 1-3 rise together on both sides; games 7 and 9 are not shared and do not count
+        assertEquals(1.0, match.similarity(), 1e-9);
+        assertEquals(3, match.sharedGames());
+    }
+
+    @Test
+    void ratingOnAnUnsharedGameDoesNotMoveTheScore() {
+        RatingVector a = RatingVector.of(Map.of(1L, 5, 2L, 3, 3L, 4));
+        RatingVector b = RatingVector.of(Map.of(1L, 4, 2L, 1, 3L, 5));
+        double before = a.similarityTo(2L, b, 2).similarity();
+
+        double after = a.with(42L, 1).similarityTo(2L, b, 2).similarity();
+
+        assertEquals(before, after, 1e-12);
+    }
+
+    @Test
+    void matchesTheTextbookPearsonValue() {
+        RatingVector a = RatingVector.of(Map.of(1L, 5, 2L, 3, 3L, 4, 4L, 4));
+        RatingVector b = RatingVector.of(Map.of(1L, 3, 2L, 1, 3L, 2, 4L, 3));
+
+        // Means 4 and 2.25: deviation products sum to 2, squared deviations to 2 and 2.75
+        assertEquals(2 / Math.sqrt(2 * 2.75), a.similarityTo(2L, b, 2).similarity(), 1e-9);
+    }
+
+    @Test
+    void skipsPairsWithTooFewOrConstantSharedRatings() {
+        RatingVector a = RatingVector.of(Map.of(1L, 5, 2L, 3));
+        RatingVector flat = RatingVector.of(Map.of(1L, 4, 2L, 4));
+        RatingVector single = RatingVector.of(Map.of(1L, 4, 5L, 2));
+
+        assertNull(a.similarityTo(2L, flat, 2));
+        assertNull(a.similarityTo(3L, single, 1));
+    }
+}
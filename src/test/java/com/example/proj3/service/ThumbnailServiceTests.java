@@ -0,0 +1,268 @@
+package com.example.proj3.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.proj3.model.StoredBlob;
+import com.example.proj3.model.StoredBlob.ThumbnailState;
+import com.example.proj3.repository.StoredBlobRepository;
+import com.example.proj3.storage.BlobStore;
+import com.example.proj3.storage.InMemoryBlobStore;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ThumbnailServiceTests {
+
+    private static final int[] SIZES = {64, 32, 16};
+    // 1x1 lossy WebP
+    private static final byte[] WEBP = Base64.getDecoder().decode("UklGRiIAAABXRUJQVlA4IBYAAAAwAQCdASoBAAEADsD+JaQAA3AAAAAA");
+
+    private final Map<String, StoredBlob> rows = new ConcurrentHashMap<>();
+    private final StoredBlobRepository storedBlobRepository = mock(StoredBlobRepository.class);
+    // Opens of the blob stored under this key wait for the latch
+    private volatile String blockedKey;
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final BlobStore blobStore = new InMemoryBlobStore() {
+        @Override
+        public InputStream open(String key) throws IOException {
+            if (key.equals(blockedKey)) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.open(key);
+        }
+    };
+    private SimpleMeterRegistry meterRegistry;
+    private ThumbnailService service;
+
+    @BeforeEach
+    void setUp() {
+        when(storedBlobRepository.findByBlobKey(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(rows.get(invocation.<String>getArgument(0))));
+        when(storedBlobRepository.incrementRefCount(anyString(), any())).thenAnswer(invocation -> {
+            StoredBlob row = rows.get(invocation.<String>getArgument(0));
+            if (row == null) {
+                return 0;
+            }
+            ReflectionTestUtils.setField(row, "refCount", row.getRefCount() + 1);
+            return 1;
+        });
+        when(storedBlobRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+            StoredBlob row = invocation.getArgument(0);
+            rows.put(row.getBlobKey(), row);
+            return row;
+        });
+        when(storedBlobRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(storedBlobRepository.findPendingThumbnailKeys(any())).thenAnswer(invocation -> rows.values().stream()
+                .filter(row -> row.getThumbnailState() == ThumbnailState.PENDING && row.getRefCount() > 0)
+                .map(StoredBlob::getBlobKey)
+                .limit(invocation.<Pageable>getArgument(0).getPageSize())
+                .toList());
+        service = service(2, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        service.shutdown();
+    }
+
+    @Test
+    void aJpegGetsOneOpaqueThumbnailPerSize() throws Exception {
+        String key = upload(encode(image(300, 200, false), "jpg"), "jpg", "image/jpeg");
+
+        StoredBlob row = generate(key);
+
+        assertEquals(ThumbnailState.READY, row.getThumbnailState());
+        assertEquals(SIZES.length, row.getThumbnails().size());
+        for (int size : SIZES) {
+            String thumbnail = row.getThumbnails().get(size);
+            assertTrue(thumbnail.endsWith(".jpg"));
+            BufferedImage decoded = read(thumbnail);
+            assertEquals(size, decoded.getWidth());
+            assertEquals(size, decoded.getHeight());
+            assertFalse(decoded.getColorModel().hasAlpha());
+        }
+    }
+
+    @Test
+    void aPngWithTransparencyKeepsItsAlpha() throws Exception {
+        String key = upload(encode(image(120, 120, true), "png"), "png", "image/png");
+
+        StoredBlob row = generate(key);
+
+        assertEquals(ThumbnailState.READY, row.getThumbnailState());
+        for (int size : SIZES) {
+            String thumbnail = row.getThumbnails().get(size);
+            assertTrue(thumbnail.endsWith(".png"));
+            BufferedImage decoded = read(thumbnail);
+            assertEquals(size, decoded.getWidth());
+            assertTrue(decoded.getColorModel().hasAlpha());
+            // The corner pixel of the source is fully transparent
+            assertEquals(0, decoded.getRGB(0, 0) >>> 24);
+        }
+    }
+
+    @Test
+    void aWebpIsDecodedToo() throws Exception {
+        String key = upload(WEBP, "webp", "image/webp");
+
+        StoredBlob row = generate(key);
+
+        assertEquals(ThumbnailState.READY, row.getThumbnailState());
+        assertEquals(64, read(row.getThumbnails().get(64)).getWidth());
+    }
+
+    @Test
+    void anUndecodableUploadIsMarkedFailedWithoutThumbnails() throws Exception {
+        String key = upload("not an image".getBytes(), "png", "image/png");
+
+        StoredBlob row = generate(key);
+
+        assertEquals(ThumbnailState.FAILED, row.getThumbnailState());
+        assertTrue(row.getThumbnails().isEmpty());
+        assertEquals(1, rows.size());
+    }
+
+    @Test
+    void identicalThumbnailsShareOneDerivedRowCountingEachOriginal() throws Exception {
+        // Same solid picture at two resolutions: different originals, identical thumbnails
+        String small = upload(encode(solid(200), "png"), "png", "image/png");
+        String large = upload(encode(solid(400), "png"), "png", "image/png");
+
+        Map<Integer, String> first = generate(small).getThumbnails();
+        Map<Integer, String> second = generate(large).getThumbnails();
+
+        assertEquals(first, second);
+        for (String thumbnail : first.values()) {
+            StoredBlob derived = rows.get(thumbnail);
+            assertEquals(ThumbnailState.DERIVED, derived.getThumbnailState());
+            assertEquals(2, derived.getRefCount());
+        }
+        assertEquals(2 + SIZES.length, rows.size());
+    }
+
+    @Test
+    void picturesRejectedByAFullQueueAreBackfilledLater() throws Exception {
+        service.shutdown();
+        service = service(1, 1);
+        String running = upload(encode(image(100, 100, false), "jpg"), "jpg", "image/jpeg");
+        String queued = upload(encode(image(110, 100, false), "jpg"), "jpg", "image/jpeg");
+        String rejected = upload(encode(image(120, 100, false), "jpg"), "jpg", "image/jpeg");
+        blockedKey = running;
+
+        assertTrue(service.submit(running));
+        await(() -> queueDepth() == 0);
+        assertTrue(service.submit(queued));
+        assertFalse(service.submit(rejected));
+        // No room yet: backfill leaves it alone
+        service.backfill();
+        assertEquals(1, queueDepth());
+
+        release.countDown();
+        await(() -> rows.get(queued).getThumbnailState() == ThumbnailState.READY);
+        assertEquals(ThumbnailState.PENDING, rows.get(rejected).getThumbnailState());
+
+        service.backfill();
+        await(() -> rows.get(rejected).getThumbnailState() == ThumbnailState.READY);
+        assertEquals(ThumbnailState.READY, rows.get(running).getThumbnailState());
+    }
+
+    private ThumbnailService service(int threads, int queueCapacity) {
+        meterRegistry = new SimpleMeterRegistry();
+        ThumbnailService created = new ThumbnailService(blobStore, storedBlobRepository,
+                mock(PlatformTransactionManager.class), meterRegistry, SIZES, threads, queueCapacity);
+        ReflectionTestUtils.setField(created, "maxSourcePixels", 40_000_000L);
+        ReflectionTestUtils.setField(created, "jpegQuality", 0.85f);
+        return created;
+    }
+
+    private double queueDepth() {
+        return meterRegistry.get("thumbnails.queue.depth").gauge().value();
+    }
+
+    private String upload(byte[] content, String extension, String contentType) throws IOException {
+        BlobStore.PutResult stored = blobStore.put(new ByteArrayInputStream(content), extension, content.length);
+        rows.put(stored.key(), new StoredBlob(stored.key(), stored.sha256(), stored.size(), contentType));
+        return stored.key();
+    }
+
+    private StoredBlob generate(String key) throws InterruptedException {
+        assertTrue(service.submit(key));
+        await(() -> rows.get(key).getThumbnailState() != ThumbnailState.PENDING);
+        return rows.get(key);
+    }
+
+    private BufferedImage read(String key) throws IOException {
+        try (InputStream in = blobStore.open(key)) {
+            return ImageIO.read(in);
+        }
+    }
+
+    // A blue frame around a red centre; with alpha, the frame is transparent
+    private static BufferedImage image(int width, int height, boolean alpha) {
+        BufferedImage image = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(alpha ? new Color(0, 0, 255, 0) : Color.BLUE);
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.RED);
+        g.fillRect(width / 4, height / 4, width / 2, height / 2);
+        g.dispose();
+        return image;
+    }
+
+    private static BufferedImage solid(int edge) {
+        BufferedImage image = new BufferedImage(edge, edge, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.GREEN);
+        g.fillRect(0, 0, edge, edge);
+        g.dispose();
+        return image;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.proj3.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.proj3.repository.StoredBlobRepository;
+import com.example.proj3.repository.UserRepository;
+import com.example.proj3.storage.LocalDiskBlobStore;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UploadSweeperTests {
+
+    private static final long GRACE_MS = 60_000;
+
+    @TempDir
+    Path root;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private UploadSweeper sweeper(int maxFilesPerRun) throws IOException {
+        // Unstubbed repositories return no references, so every old file is unreferenced
+        return new UploadSweeper(new LocalDiskBlobStore(root.toString()), mock(StoredBlobRepository.class),
+                mock(UserRepository.class), meterRegistry, GRACE_MS, maxFilesPerRun);
+    }
+
+    @Test
+    void everyPhaseStaysWithinTheBudgetAndResumesWhereItStopped() throws IOException {
+        UploadSweeper sweeper = sweeper(3);
+        for (String file : List.of("aa/00/a.png", "aa/00/b.png", "aa/00/c.png", "ab/01/d.png", "ab/01/e.png",
+                "legacy-1.png", "legacy-2.png", ".tmp/upload-1.part")) {
+            write(file, true);
+        }
+
+        sweeper.sweep();
+        assertEquals(List.of(".tmp/upload-1.part", "ab/01/d.png", "ab/01/e.png", "legacy-1.png", "legacy-2.png"),
+                remainingFiles());
+
+        sweeper.sweep();
+        assertEquals(List.of(".tmp/upload-1.part", "legacy-2.png"), remainingFiles());
+
+        sweeper.sweep();
+        assertEquals(List.of(), remainingFiles());
+        assertEquals(8, meterRegistry.get("uploads.sweeper.scanned").counter().count());
+        assertEquals(8, meterRegistry.get("uploads.sweeper.deleted").counter().count());
+    }
+
+    @Test
+    void recentFilesCountTowardsTheBudgetButAreKept() throws IOException {
+        UploadSweeper sweeper = sweeper(2);
+        write("aa/00/new.png", false);
+        write("aa/00/old.png", true);
+        write("legacy.png", true);
+
+        sweeper.sweep();
+        assertEquals(List.of("aa/00/new.png", "legacy.png"), remainingFiles());
+
+        sweeper.sweep();
+        assertEquals(List.of("aa/00/new.png"), remainingFiles());
+    }
+
+    @Test
+    void aFinishedPassStartsOverFromTheFirstShard() throws IOException {
+        UploadSweeper sweeper = sweeper(10);
+        write("aa/00/a.png", false);
+
+        sweeper.sweep();
+        write("aa/00/b.png", true);
+        sweeper.sweep();
+
+        assertEquals(List.of("aa/00/a.png"), remainingFiles());
+        assertEquals(3, meterRegistry.get("uploads.sweeper.scanned").counter().count());
+    }
+
+    private void write(String relative, boolean old) throws IOException {
+        Path file = root.resolve(relative);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, relative);
+        Instant modified = old ? Instant.now().minus(1, ChronoUnit.DAYS) : Instant.now();
+        Files.setLastModifiedTime(file, FileTime.from(modified));
+    }
+
+    private List<String> remainingFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile)
+                    .map(file -> root.relativize(file).toString().replace('\\', '/'))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.proj3.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Behaviour every {@link BlobStore} must have; each implementation's test extends this.
+ */
+abstract class BlobStoreContractTests {
+
+    // SHA-256 of "hello"
+    static final String HELLO_SHA256 = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+
+    abstract BlobStore store() throws IOException;
+
+    static InputStream bytes(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static byte[] read(BlobStore store, String key) throws IOException {
+        try (InputStream in = store.open(key)) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    void putStoresContentUnderItsShardedHash() throws IOException {
+        BlobStore store = store();
+
+        BlobStore.PutResult result = store.put(bytes("hello"), "png", 100);
+
+        assertEquals("2c/f2/" + HELLO_SHA256 + ".png", result.key());
+        assertEquals(HELLO_SHA256, result.sha256());
+        assertEquals(5, result.size());
+        assertTrue(result.created());
+        assertTrue(store.exists(result.key()));
+        assertArrayEquals("hello".getBytes(StandardCharsets.UTF_8), read(store, result.key()));
+    }
+
+    @Test
+    void identicalContentIsStoredOnce() throws IOException {
+        BlobStore store = store();
+
+        BlobStore.PutResult first = store.put(bytes("hello"), "png", 100);
+        BlobStore.PutResult second = store.put(bytes("hello"), "png", 100);
+
+        assertEquals(first.key(), second.key());
+        assertFalse(second.created());
+    }
+
+    @Test
+    void oversizedContentIsRejectedAndNotStored() throws IOException {
+        BlobStore store = store();
+
+        assertThrows(BlobTooLargeException.class, () -> store.put(bytes("hello"), "png", 4));
+
+        assertFalse(store.exists(BlobStore.keyFor(HELLO_SHA256, "png")));
+    }
+
+    @Test
+    void contentOfExactlyTheLimitIsAccepted() throws IOException {
+        assertTrue(store().put(bytes("hello"), "png", 5).created());
+    }
+
+    @Test
+    void openingAMissingKeyFailsWithNoSuchFile() throws IOException {
+        BlobStore store = store();
+
+        assertThrows(NoSuchFileException.class, () -> store.open(BlobStore.keyFor(HELLO_SHA256, "png")));
+    }
+
+    @Test
+    void deleteRemovesTheBlobAndIgnoresMissingKeys() throws IOException {
+        BlobStore store = store();
+        String key = store.put(bytes("hello"), "png", 100).key();
+
+        store.delete(key);
+        store.delete(key);
+
+        assertFalse(store.exists(key));
+        // Stored again after deletion, it counts as new content
+        assertTrue(store.put(bytes("hello"), "png", 100).created());
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.proj3.storage;
+
+class InMemoryBlobStoreTests extends BlobStoreContractTests {
+
+    @Override
+    BlobStore store() {
+        return new InMemoryBlobStore();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.proj3.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LocalDiskBlobStoreTests extends BlobStoreContractTests {
+
+    @TempDir
+    Path root;
+
+    @Override
+    BlobStore store() throws IOException {
+        return new LocalDiskBlobStore(root.toString());
+    }
+
+    @Test
+    void blobsAreWrittenAsShardedFilesAndNoTempFilesRemain() throws IOException {
+        LocalDiskBlobStore store = new LocalDiskBlobStore(root.toString());
+
+        String key = store.put(bytes("hello"), "png", 100).key();
+        assertThrows(BlobTooLargeException.class, () -> store.put(bytes("too long"), "png", 4));
+
+        assertTrue(Files.isRegularFile(root.resolve("2c").resolve("f2").resolve(HELLO_SHA256 + ".png")));
+        assertEquals(root.resolve(key), store.resolve(key));
+        try (Stream<Path> temp = Files.list(root.resolve(".tmp"))) {
+            assertEquals(0, temp.count());
+        }
+    }
+
+    @Test
+    void legacyFlatKeysResolveToTheRoot() throws IOException {
+        LocalDiskBlobStore store = new LocalDiskBlobStore(root.toString());
+        Files.writeString(root.resolve("abc_my pic.png"), "old");
+
+        assertTrue(store.exists("abc_my pic.png"));
+        assertArrayEquals("old".getBytes(StandardCharsets.UTF_8), read(store, "abc_my pic.png"));
+    }
+
+    @Test
+    void keysOutsideTheRootAreRefused() throws IOException {
+        LocalDiskBlobStore store = new LocalDiskBlobStore(root.toString());
+
+        assertThrows(IllegalArgumentException.class, () -> store.resolve("../secret.png"));
+        assertThrows(IllegalArgumentException.class, () -> store.resolve("2c/../../secret.png"));
+        assertThrows(IllegalArgumentException.class, () -> store.resolve(".tmp/upload-1.part"));
+        assertThrows(IllegalArgumentException.class, () -> store.resolve(""));
+    }
+}